@@ -0,0 +1,250 @@
+// build-assets.mjs
+//
+// Production asset pipeline, run by the "assets" Maven profile after resources are copied.
+// For every HTML page and Thymeleaf template under <out>/static and <out>/templates it:
+//   - concatenates and minifies the classic (non-module) scripts into one file,
+//   - bundles the ES module entry scripts of the page into one module plus shared chunks,
+//   - bundles the local stylesheets into one CSS file (images they reference are fingerprinted too),
+//   - rewrites the page to load those files from /dist/.
+// Every output name carries a content hash, so /dist/** can be served as immutable,
+// and every text file gets .gz and .br siblings for EncodedResourceResolver.
+// The source tree is never touched; without the profile the app serves /js and /assets as before.
+
+import * as esbuild from 'esbuild';
+import { promises as fs } from 'node:fs';
+import path from 'node:path';
+import zlib from 'node:zlib';
+import { promisify } from 'node:util';
+
+const gzip = promisify(zlib.gzip);
+const brotli = promisify(zlib.brotliCompress);
+
+const out = path.resolve(argValue('--out', 'target/classes'));
+const staticDir = path.join(out, 'static');
+const templatesDir = path.join(out, 'templates');
+const distDir = path.join(staticDir, 'dist');
+const entryDir = path.resolve(out, '..', 'asset-entries');
+
+const COMPRESSIBLE = new Set(['.js', '.css', '.svg', '.json']);
+
+const TAG = /[ \t]*<(script|link)\b([^>]*?)\/?>(?:\s*<\/script>)?[ \t]*\r?\n?/gi;
+const ATTR = /([\w:-]+)\s*=\s*"([^"]*)"/g;
+
+function argValue(name, fallback) {
+  const index = process.argv.indexOf(name);
+  return index >= 0 ? process.argv[index + 1] : fallback;
+}
+
+async function listFiles(dir, filter) {
+  let entries;
+  try {
+    entries = await fs.readdir(dir, { withFileTypes: true });
+  } catch {
+    return [];
+  }
+  const files = [];
+  for (const entry of entries) {
+    const full = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      if (full !== distDir) {
+        files.push(...await listFiles(full, filter));
+      }
+    } else if (filter(full)) {
+      files.push(full);
+    }
+  }
+  return files;
+}
+
+function attributes(source) {
+  const attrs = {};
+  for (const [, key, value] of source.matchAll(ATTR)) {
+    attrs[key.toLowerCase()] = value;
+  }
+  return attrs;
+}
+
+// Resolves src/href (or th:src/th:href "@{/...}") to a file on disk; null for remote URLs.
+function resolveLocal(page, attrs, name) {
+  const thValue = attrs[`th:${name}`];
+  if (thValue) {
+    const match = /^@\{(\/[^}?#]+)\}$/.exec(thValue);
+    return match ? path.join(staticDir, match[1]) : null;
+  }
+  const value = attrs[name];
+  if (!value || /^(https?:)?\/\//.test(value)) {
+    return null;
+  }
+  return value.startsWith('/') ? path.join(staticDir, value) : path.resolve(path.dirname(page), value);
+}
+
+// Finds the script and stylesheet tags of one page and groups them by kind.
+function scan(page, html) {
+  const groups = { classic: [], module: [], style: [] };
+  for (const match of html.matchAll(TAG)) {
+    const attrs = attributes(match[2]);
+    let kind;
+    let file;
+    if (match[1].toLowerCase() === 'script') {
+      file = resolveLocal(page, attrs, 'src');
+      kind = attrs.type === 'module' ? 'module' : 'classic';
+    } else if (attrs.rel === 'stylesheet') {
+      file = resolveLocal(page, attrs, 'href');
+      kind = 'style';
+    }
+    // Tags already pointing into /dist were rewritten by an earlier run over the same output.
+    if (kind && file && !file.startsWith(distDir + path.sep)) {
+      groups[kind].push({ file, start: match.index, end: match.index + match[0].length, text: match[0] });
+    }
+  }
+  return groups;
+}
+
+// Writes one synthetic entry file per page and kind, so esbuild sees a single entry per page.
+async function writeEntries(pages) {
+  const entries = { classic: {}, module: {}, style: {} };
+  for (const page of pages) {
+    for (const kind of Object.keys(entries)) {
+      const tags = page.groups[kind];
+      if (tags.length === 0) {
+        continue;
+      }
+      const entry = path.join(entryDir, `${page.name}.${kind}.${kind === 'style' ? 'css' : 'js'}`);
+      let content;
+      if (kind === 'classic') {
+        // Classic scripts share the global scope, so concatenation keeps their semantics.
+        const sources = await Promise.all(tags.map(tag => fs.readFile(tag.file, 'utf8')));
+        content = sources.join('\n;\n');
+      } else if (kind === 'module') {
+        content = tags.map(tag => `import ${JSON.stringify(tag.file)};`).join('\n');
+      } else {
+        content = tags.map(tag => `@import ${JSON.stringify(tag.file)};`).join('\n');
+      }
+      await fs.writeFile(entry, content);
+      entries[kind][entry] = page;
+    }
+  }
+  return entries;
+}
+
+// Builds one kind of entry and records the hashed output of each page.
+async function build(kind, entries, options) {
+  const entryPoints = Object.keys(entries);
+  if (entryPoints.length === 0) {
+    return;
+  }
+  const result = await esbuild.build({
+    entryPoints,
+    outdir: distDir,
+    entryNames: `[name]-[hash]`,
+    minify: true,
+    metafile: true,
+    logLevel: 'warning',
+    ...options,
+  });
+  for (const [output, meta] of Object.entries(result.metafile.outputs)) {
+    if (meta.entryPoint) {
+      const page = entries[path.resolve(meta.entryPoint)];
+      page.outputs[kind] = path.relative(staticDir, path.resolve(output)).split(path.sep).join('/');
+    }
+  }
+}
+
+function tagFor(page, kind) {
+  const url = `/${page.outputs[kind]}`;
+  const attr = name => (page.template ? `th:${name}="@{${url}}"` : `${name}="${url}"`);
+  if (kind === 'style') {
+    return `<link rel="stylesheet" ${attr('href')}>`;
+  }
+  return `<script ${kind === 'module' ? 'type="module" ' : ''}${attr('src')} defer></script>`;
+}
+
+// Replaces the first tag of each group with the bundle and drops the rest.
+function rewrite(page, html) {
+  const edits = [];
+  for (const kind of Object.keys(page.groups)) {
+    page.groups[kind].forEach((tag, index) => {
+      let replacement = '';
+      if (index === 0) {
+        const indent = /^[ \t]*/.exec(tag.text)[0];
+        replacement = `${indent}${tagFor(page, kind)}\n`;
+      }
+      edits.push({ ...tag, replacement });
+    });
+  }
+  edits.sort((a, b) => b.start - a.start);
+  for (const edit of edits) {
+    html = html.slice(0, edit.start) + edit.replacement + html.slice(edit.end);
+  }
+  return html;
+}
+
+async function precompress() {
+  const files = await listFiles(distDir, file => COMPRESSIBLE.has(path.extname(file)));
+  await Promise.all(files.map(async file => {
+    const data = await fs.readFile(file);
+    await fs.writeFile(`${file}.gz`, await gzip(data, { level: zlib.constants.Z_BEST_COMPRESSION }));
+    await fs.writeFile(`${file}.br`, await brotli(data, {
+      params: {
+        [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+        [zlib.constants.BROTLI_PARAM_SIZE_HINT]: data.length,
+      },
+    }));
+  }));
+  return files.length;
+}
+
+async function main() {
+  await fs.rm(entryDir, { recursive: true, force: true });
+  await fs.mkdir(entryDir, { recursive: true });
+
+  const isHtml = file => file.endsWith('.html');
+  const files = [
+    ...(await listFiles(staticDir, isHtml)).map(file => ({ file, template: false })),
+    ...(await listFiles(templatesDir, isHtml)).map(file => ({ file, template: true })),
+  ];
+
+  const pages = [];
+  const names = new Set();
+  for (const { file, template } of files) {
+    const html = await fs.readFile(file, 'utf8');
+    const name = path.basename(file, '.html');
+    if (names.has(name)) {
+      throw new Error(`Two pages are named ${name}; asset bundles are named after the page`);
+    }
+    names.add(name);
+    pages.push({ file, template, name, html, groups: scan(file, html), outputs: {} });
+  }
+
+  const entries = await writeEntries(pages);
+  await build('classic', entries.classic, {});
+  await build('module', entries.module, {
+    bundle: true,
+    format: 'esm',
+    splitting: true,
+    chunkNames: 'chunks/[name]-[hash]',
+  });
+  await build('style', entries.style, {
+    bundle: true,
+    assetNames: 'assets/[name]-[hash]',
+    loader: { '.png': 'file', '.jpg': 'file', '.jpeg': 'file', '.svg': 'file', '.gif': 'file', '.webp': 'file' },
+  });
+
+  // Kept outside /dist so it is not served; it records which bundle each page now loads.
+  const manifestFile = path.join(out, 'asset-manifest.json');
+  const manifest = JSON.parse(await fs.readFile(manifestFile, 'utf8').catch(() => '{}'));
+  for (const page of pages) {
+    await fs.writeFile(page.file, rewrite(page, page.html));
+    const key = path.relative(out, page.file).split(path.sep).join('/');
+    manifest[key] = { ...manifest[key], ...page.outputs };
+  }
+  await fs.writeFile(manifestFile, JSON.stringify(manifest, null, 2));
+
+  const compressed = await precompress();
+  console.log(`Bundled ${pages.length} pages into ${distDir}, precompressed ${compressed} files`);
+}
+
+main().catch(error => {
+  console.error(error);
+  process.exit(1);
+});
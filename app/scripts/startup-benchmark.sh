@@ -0,0 +1,98 @@
+#!/bin/sh
+# ----------------------------------------------------------------------------
+# Startup benchmark: time from JVM launch to the first successful GET /doctor.
+#
+#   scripts/startup-benchmark.sh [plain|fast|both] [runs]
+#
+#   plain  the regular fat jar            (mvn package)
+#   fast   AOT + CDS + lazy beans         (mvn -Pfast-start package)
+#
+# Environment:
+#   PORT       port to start on (default 18080)
+#   TIMEOUT    seconds to wait for /doctor per run (default 120)
+#   APP_ARGS   extra application arguments, e.g. --spring.datasource.url=...
+#   JAVA_OPTS  extra JVM options for both modes
+#
+# Prints one summary line per mode and appends every run to
+# target/startup-benchmark.csv (timestamp,mode,run,millis) to track regressions.
+# ----------------------------------------------------------------------------
+set -eu
+
+cd "$(dirname "$0")/.."
+
+MODES=${1:-both}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+TIMEOUT=${TIMEOUT:-120}
+APP_ARGS=${APP_ARGS:-}
+JAVA_OPTS=${JAVA_OPTS:-}
+
+JAR=$(ls target/back-end-*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+FAST_DIR=target/fast-start
+CSV=target/startup-benchmark.csv
+
+[ "$MODES" = both ] && MODES="plain fast"
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Starts the app for one mode in the background and prints its pid.
+launch() {
+  case "$1" in
+    plain)
+      [ -n "$JAR" ] || { echo "No jar in target/; run mvn package" >&2; exit 1; }
+      # shellcheck disable=SC2086
+      java $JAVA_OPTS -jar "$JAR" --server.port="$PORT" $APP_ARGS >target/startup-plain.log 2>&1 &
+      ;;
+    fast)
+      [ -f "$FAST_DIR/application.jsa" ] || { echo "No CDS archive; run mvn -Pfast-start package" >&2; exit 1; }
+      # shellcheck disable=SC2086
+      (cd "$FAST_DIR" && exec java $JAVA_OPTS -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=fast-start -jar "$(basename "$(ls ./*.jar | head -n 1)")" \
+        --server.port="$PORT" $APP_ARGS) >target/startup-fast.log 2>&1 &
+      ;;
+    *)
+      echo "Unknown mode $1 (plain, fast or both)" >&2; exit 1
+      ;;
+  esac
+  echo $!
+}
+
+# Runs one cold start and prints the milliseconds until /doctor answered 2xx.
+measure() {
+  start=$(now_ms)
+  pid=$(launch "$1")
+  deadline=$(( start + TIMEOUT * 1000 ))
+  until curl -fsS -o /dev/null "http://localhost:$PORT/doctor" 2>/dev/null; do
+    if [ "$(now_ms)" -gt "$deadline" ] || ! kill -0 "$pid" 2>/dev/null; then
+      kill "$pid" 2>/dev/null || true
+      echo "$1: no successful /doctor within ${TIMEOUT}s, see target/startup-$1.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid" 2>/dev/null || true
+  # Launched from a subshell, so not our child: poll until the port is free for the next run
+  while kill -0 "$pid" 2>/dev/null; do
+    sleep 0.05
+  done
+  echo "$elapsed"
+}
+
+for mode in $MODES; do
+  results=""
+  run=1
+  while [ "$run" -le "$RUNS" ]; do
+    millis=$(measure "$mode")
+    echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$mode,$run,$millis" >>"$CSV"
+    echo "$mode run $run: ${millis} ms"
+    results="$results $millis"
+    run=$(( run + 1 ))
+  done
+  # shellcheck disable=SC2086
+  printf '%s\n' $results | sort -n | awk -v mode="$mode" '
+    { v[NR] = $1 }
+    END { printf "startup mode=%s runs=%d min=%dms median=%dms max=%dms\n", mode, NR, v[1], v[int((NR + 1) / 2)], v[NR] }'
+done
@@ -1,5 +1,7 @@
 package com.project.back_end.DTO;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.project.back_end.models.Appointment;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -9,6 +11,7 @@ import java.time.LocalTime;
  * This class is used to structure and simplify the data sent between the backend and frontend,
  * ensuring all necessary presentation-layer fields (like extracted date/time) are included.
  */
+@JsonFilter(FieldSelection.FILTER)
 public class AppointmentDTO {
 
     private final Long id;
@@ -21,14 +24,12 @@ public class AppointmentDTO {
     private final String patientAddress;
     private final LocalDateTime appointmentTime;
     private final int status; // e.g., 0: Scheduled, 1: Completed, 2: Cancelled
-
-    // Calculated fields for frontend convenience
-    private final LocalDate appointmentDate;
-    private final LocalTime appointmentTimeOnly;
-    private final LocalDateTime endTime;
+    private final int durationMinutes;
+    // Sent back with updates so concurrent edits are detected; null when not loaded from an entity
+    private final Long version;
 
     /**
-     * Constructor for the AppointmentDTO, calculating derived fields automatically.
+     * Constructor for the AppointmentDTO.
      *
      * @param id Unique identifier for the appointment.
      * @param doctorId ID of the doctor assigned.
@@ -45,7 +46,46 @@ public class AppointmentDTO {
             Long id, Long doctorId, String doctorName, Long patientId, String patientName,
             String patientEmail, String patientPhone, String patientAddress,
             LocalDateTime appointmentTime, int status) {
-        
+        this(id, doctorId, doctorName, patientId, patientName, patientEmail, patientPhone, patientAddress,
+                appointmentTime, status, Appointment.DEFAULT_DURATION_MINUTES);
+    }
+
+    /**
+     * Builds the DTO from an entity whose doctor and patient are loaded.
+     *
+     * @param appointment The appointment to copy.
+     */
+    public AppointmentDTO(Appointment appointment) {
+        this(appointment.getId(), appointment.getDoctor().getId(), appointment.getDoctor().getName(),
+                appointment.getPatient().getId(), appointment.getPatient().getName(), appointment.getPatient().getEmail(),
+                appointment.getPatient().getPhone(), appointment.getPatient().getAddress(),
+                appointment.getAppointmentTime(), appointment.getStatus(), appointment.getDurationMinutes(),
+                appointment.getVersion());
+    }
+
+    /**
+     * Constructor for the AppointmentDTO with an explicit visit length.
+     *
+     * @param durationMinutes Length of the appointment in minutes.
+     */
+    public AppointmentDTO(
+            Long id, Long doctorId, String doctorName, Long patientId, String patientName,
+            String patientEmail, String patientPhone, String patientAddress,
+            LocalDateTime appointmentTime, int status, int durationMinutes) {
+        this(id, doctorId, doctorName, patientId, patientName, patientEmail, patientPhone, patientAddress,
+                appointmentTime, status, durationMinutes, null);
+    }
+
+    /**
+     * Constructor for the AppointmentDTO with a visit length and the entity version.
+     *
+     * @param version Optimistic-lock version of the appointment.
+     */
+    public AppointmentDTO(
+            Long id, Long doctorId, String doctorName, Long patientId, String patientName,
+            String patientEmail, String patientPhone, String patientAddress,
+            LocalDateTime appointmentTime, int status, int durationMinutes, Long version) {
+
         this.id = id;
         this.doctorId = doctorId;
         this.doctorName = doctorName;
@@ -56,12 +96,8 @@ public class AppointmentDTO {
         this.patientAddress = patientAddress;
         this.appointmentTime = appointmentTime;
         this.status = status;
-
-        // Automatically calculate derived fields
-        this.appointmentDate = appointmentTime.toLocalDate();
-        this.appointmentTimeOnly = appointmentTime.toLocalTime();
-        // Assuming standard appointment duration of 1 hour
-        this.endTime = appointmentTime.plusHours(1);
+        this.durationMinutes = durationMinutes;
+        this.version = version;
     }
 
     // --- Getter Methods ---
@@ -106,15 +142,25 @@ public class AppointmentDTO {
         return status;
     }
 
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    // Calculated fields for frontend convenience, derived on read so a sparse response skips them
+
     public LocalDate getAppointmentDate() {
-        return appointmentDate;
+        return appointmentTime.toLocalDate();
     }
 
     public LocalTime getAppointmentTimeOnly() {
-        return appointmentTimeOnly;
+        return appointmentTime.toLocalTime();
     }
 
     public LocalDateTime getEndTime() {
-        return endTime;
+        return appointmentTime.plusMinutes(durationMinutes);
     }
 }
@@ -0,0 +1,44 @@
+package com.project.back_end.DTO;
+
+/**
+ * The authenticated caller of a request, resolved once from the token by the
+ * authentication interceptor and stored as a request attribute.
+ */
+public class AuthPrincipal {
+
+    /**
+     * Request attribute under which the principal is stored.
+     */
+    public static final String ATTRIBUTE = "authPrincipal";
+
+    private final String role;
+    private final Long id;
+    private final String identifier;
+
+    /**
+     * Constructor for the AuthPrincipal.
+     *
+     * @param role The role the token was accepted for ("admin", "doctor" or "patient").
+     * @param id The ID of the Admin, Doctor or Patient entity.
+     * @param identifier The token subject (username for admins, email otherwise).
+     */
+    public AuthPrincipal(String role, Long id, String identifier) {
+        this.role = role;
+        this.id = id;
+        this.identifier = identifier;
+    }
+
+    // --- Getter Methods ---
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+}
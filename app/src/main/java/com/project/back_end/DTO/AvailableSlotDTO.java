@@ -0,0 +1,48 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) describing a single free appointment slot of a doctor.
+ * Returned by the "next available slots" search, which spans every doctor of a specialty.
+ */
+public class AvailableSlotDTO {
+
+    private final Long doctorId;
+    private final String doctorName;
+    private final String specialty;
+    private final LocalDateTime slotTime;
+
+    /**
+     * Constructor for the AvailableSlotDTO.
+     *
+     * @param doctorId ID of the doctor offering the slot.
+     * @param doctorName Full name of the doctor.
+     * @param specialty Specialty of the doctor.
+     * @param slotTime Start date and time of the free slot.
+     */
+    public AvailableSlotDTO(Long doctorId, String doctorName, String specialty, LocalDateTime slotTime) {
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.specialty = specialty;
+        this.slotTime = slotTime;
+    }
+
+    // --- Getter Methods ---
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public LocalDateTime getSlotTime() {
+        return slotTime;
+    }
+}
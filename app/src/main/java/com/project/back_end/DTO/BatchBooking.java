@@ -0,0 +1,63 @@
+package com.project.back_end.DTO;
+
+import com.project.back_end.models.Appointment;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) used to receive a batch booking request.
+ * Either an explicit list of appointments, or a recurrence rule: a first appointment
+ * repeated {@code occurrences} times every {@code intervalDays} days (7 for weekly).
+ */
+public class BatchBooking {
+
+    // Explicit appointments to book together
+    private List<Appointment> appointments;
+
+    // Recurrence rule, used when no explicit list is given
+    private Appointment first;
+    private Integer occurrences;
+    private Integer intervalDays;
+
+    /**
+     * Default constructor required for framework deserialization.
+     */
+    public BatchBooking() {
+    }
+
+    // --- Getter Methods ---
+
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    public Appointment getFirst() {
+        return first;
+    }
+
+    public Integer getOccurrences() {
+        return occurrences;
+    }
+
+    public Integer getIntervalDays() {
+        return intervalDays;
+    }
+
+    // --- Setter Methods ---
+
+    public void setAppointments(List<Appointment> appointments) {
+        this.appointments = appointments;
+    }
+
+    public void setFirst(Appointment first) {
+        this.first = first;
+    }
+
+    public void setOccurrences(Integer occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public void setIntervalDays(Integer intervalDays) {
+        this.intervalDays = intervalDays;
+    }
+}
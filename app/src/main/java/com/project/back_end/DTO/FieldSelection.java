@@ -0,0 +1,49 @@
+package com.project.back_end.DTO;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The fields a client asked for with fields=, resolved by the sparse-fields interceptor and
+ * stored as a request attribute. Without the parameter every field is selected.
+ */
+public class FieldSelection {
+
+    /**
+     * Request attribute under which the selection is stored.
+     */
+    public static final String ATTRIBUTE = "fieldSelection";
+
+    /**
+     * Jackson filter id that item types put in their @JsonFilter.
+     */
+    public static final String FILTER = "fields";
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    private final Set<String> fields;
+
+    /**
+     * Constructor for the FieldSelection.
+     *
+     * @param fields The selected property names, or null for all of them.
+     */
+    public FieldSelection(Set<String> fields) {
+        this.fields = fields == null ? null : Collections.unmodifiableSet(fields);
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * The selected property names; empty when every field is selected.
+     */
+    public Set<String> getFields() {
+        return fields == null ? Set.of() : fields;
+    }
+}
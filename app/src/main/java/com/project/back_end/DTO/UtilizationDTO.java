@@ -0,0 +1,93 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) describing how much of the offered time was booked over a date range,
+ * either for one doctor or for every doctor of a specialty (doctorId is then null).
+ */
+public class UtilizationDTO {
+
+    private final Long doctorId;
+    private final String doctorName;
+    private final String specialty;
+    private final LocalDate start;
+    private final LocalDate end;
+    private final long appointments;
+    private final long bookedMinutes;
+    private final long offeredMinutes;
+    private final long offeredSlots;
+
+    /**
+     * Constructor for the UtilizationDTO.
+     *
+     * @param doctorId ID of the doctor, or null for a specialty row.
+     * @param doctorName Full name of the doctor, or null for a specialty row.
+     * @param specialty Specialty of the doctor or of the row.
+     * @param start First day of the range (inclusive).
+     * @param end Last day of the range (inclusive).
+     * @param appointments Number of booked appointments.
+     * @param bookedMinutes Minutes covered by those appointments.
+     * @param offeredMinutes Minutes of the working days' slot grid.
+     * @param offeredSlots Number of slots on the working days' slot grid.
+     */
+    public UtilizationDTO(Long doctorId, String doctorName, String specialty, LocalDate start, LocalDate end,
+                          long appointments, long bookedMinutes, long offeredMinutes, long offeredSlots) {
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.specialty = specialty;
+        this.start = start;
+        this.end = end;
+        this.appointments = appointments;
+        this.bookedMinutes = bookedMinutes;
+        this.offeredMinutes = offeredMinutes;
+        this.offeredSlots = offeredSlots;
+    }
+
+    // --- Getter Methods ---
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public long getAppointments() {
+        return appointments;
+    }
+
+    public long getBookedMinutes() {
+        return bookedMinutes;
+    }
+
+    public long getOfferedMinutes() {
+        return offeredMinutes;
+    }
+
+    public long getOfferedSlots() {
+        return offeredSlots;
+    }
+
+    // --- Derived Properties ---
+
+    /**
+     * Booked share of the offered minutes, between 0 and 1 (0 when nothing was offered).
+     */
+    public double getUtilization() {
+        return offeredMinutes == 0 ? 0 : (double) bookedMinutes / offeredMinutes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Data Transfer Object (DTO) used to receive a request to join a doctor's waitlist for a day.
+ * Without a time the patient takes any slot of that day that frees up.
+ */
+public class WaitlistRequest {
+
+    private Long doctorId;
+    private LocalDate date;
+    // Optional start time the patient wants
+    private LocalTime time;
+    private Integer durationMinutes;
+
+    /**
+     * Default constructor required for framework deserialization.
+     */
+    public WaitlistRequest() {
+    }
+
+    // --- Getter Methods ---
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public Integer getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    // --- Setter Methods ---
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public void setTime(LocalTime time) {
+        this.time = time;
+    }
+
+    public void setDurationMinutes(Integer durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.back_end.config;
+
+import com.project.back_end.controllers.DoctorController;
+import com.project.back_end.services.AppointmentStatusJob;
+import com.project.back_end.services.CacheSync;
+import com.project.back_end.services.DoctorFilterEngine;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.TokenService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The "fast-start" profile makes every bean lazy. The beans behind GET /doctor, the request
+ * new instances receive first, stay eager so that first request does not pay for them. So do the
+ * background jobs no request ever asks for, which would otherwise never be created and never run.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter hotPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                DoctorController.class, DoctorService.class, DoctorFilterEngine.class,
+                TokenService.class, TokenAuthInterceptor.class,
+                CacheSync.class, AppointmentStatusJob.class);
+    }
+}
@@ -0,0 +1,211 @@
+package com.project.back_end.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Optional idempotency for booking and prescription POSTs. A client that sends an
+ * Idempotency-Key header may retry freely: the first request runs normally and its response
+ * is remembered in {@link IdempotencyStore}; a retry with the same key, path and body gets that
+ * response back before token validation or any repository work, marked Idempotency-Replayed.
+ *
+ * The path includes the caller's token, so keys are scoped per caller. Reusing a key with a
+ * different body is 422, a retry while the first request is still running is 409, and 5xx
+ * responses are not remembered so they can be retried.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final List<String> PATH_PREFIXES = List.of("/appointments/", "/prescription/");
+    private static final String STORE_KEY_ATTRIBUTE = IdempotencyFilter.class.getName() + ".storeKey";
+
+    private final IdempotencyStore store;
+
+    public IdempotencyFilter(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(KEY_HEADER) == null) {
+            return true;
+        }
+        String path = pathOf(request);
+        return PATH_PREFIXES.stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Prescription handlers return Mono; their response is only complete on the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            runAndRemember(request, response, chain, (String) request.getAttribute(STORE_KEY_ATTRIBUTE));
+            return;
+        }
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeMessage(response, HttpStatus.BAD_REQUEST, KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String storeKey = pathOf(request) + " " + key;
+        byte[] fingerprint = sha256(body);
+        IdempotencyStore.Entry existing = store.begin(storeKey, fingerprint);
+        if (existing != null) {
+            if (!existing.matches(fingerprint)) {
+                writeMessage(response, HttpStatus.UNPROCESSABLE_ENTITY, KEY_HEADER + " was already used with a different request body");
+            } else if (!existing.isComplete()) {
+                writeMessage(response, HttpStatus.CONFLICT, "A request with this " + KEY_HEADER + " is still being processed");
+            } else {
+                response.setStatus(existing.getStatus());
+                if (existing.getContentType() != null) {
+                    response.setContentType(existing.getContentType());
+                }
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.setContentLength(existing.getBody().length);
+                response.getOutputStream().write(existing.getBody());
+            }
+            return;
+        }
+
+        request.setAttribute(STORE_KEY_ATTRIBUTE, storeKey);
+        runAndRemember(new CachedBodyRequest(request, body), new ContentCachingResponseWrapper(response), chain, storeKey);
+    }
+
+    private void runAndRemember(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String storeKey)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            store.release(storeKey);
+            throw e;
+        }
+        if (isAsyncStarted(request)) {
+            // Finished on the async dispatch, which sees the same wrapped response
+            return;
+        }
+        ContentCachingResponseWrapper wrapped = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (wrapped == null) {
+            store.release(storeKey);
+            return;
+        }
+        if (wrapped.getStatus() < 500) {
+            store.complete(storeKey, wrapped.getStatus(), wrapped.getContentType(), wrapped.getContentAsByteArray());
+        } else {
+            store.release(storeKey);
+        }
+        wrapped.copyBodyToResponse();
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static void writeMessage(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    /**
+     * Serves the already-read body again to message converters further down the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is in memory: it is available at once, and all read when the listener is done
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.project.back_end.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, time-limited memory of responses to requests that carried an Idempotency-Key.
+ * Holds at most clinic.idempotency.max-entries keys for clinic.idempotency.ttl-seconds each;
+ * the oldest key is dropped first when full. Local to this instance, like the other in-memory indexes.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * A remembered request: in flight until {@link #complete} stores its response.
+     */
+    public static final class Entry {
+        private final byte[] fingerprint;
+        private final long createdAt;
+        private volatile int status;
+        private volatile String contentType;
+        private volatile byte[] body;
+
+        private Entry(byte[] fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        public boolean matches(byte[] otherFingerprint) {
+            return Arrays.equals(fingerprint, otherFingerprint);
+        }
+
+        public boolean isComplete() {
+            return status != 0;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    // Insertion order is creation order, so expired keys are always at the head
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${clinic.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${clinic.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Claims a key for a new request.
+     *
+     * @return null if the key was free and is now held by the caller; otherwise the existing entry,
+     *         which may still be in flight.
+     */
+    public synchronized Entry begin(String key, byte[] fingerprint) {
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        entries.put(key, new Entry(fingerprint, now));
+        return null;
+    }
+
+    /**
+     * Stores the response of a claimed key so later requests with it get the same answer.
+     */
+    public synchronized void complete(String key, int status, String contentType, byte[] body) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.contentType = contentType;
+            entry.body = body;
+            entry.status = status;
+        }
+    }
+
+    /**
+     * Releases a claimed key without remembering a response, so a retry runs the request again.
+     */
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isComplete()) {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAt < ttlMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.back_end.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project.back_end.DTO.FieldSelection;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Application-wide Jackson settings.
+ *
+ * Besides JSON, REST responses and request bodies can be CBOR (application/cbor) or Smile
+ * (application/x-jackson-smile), chosen by the Accept and Content-Type headers. JSON stays the
+ * default: its converter is ahead of the binary ones, so a client that names no format gets JSON.
+ * Errors written directly by the interceptors and filters are always JSON.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Types with @JsonFilter(FieldSelection.FILTER) serialize in full unless a sparse-fields
+     * handler selects otherwise; Jackson refuses filtered types when no filter is registered.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer serializeAllByDefault() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(FieldSelection.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    /**
+     * Replaces Spring MVC's default CBOR converter, whose mapper skips the Boot customizations
+     * above (date format, filters), so every encoding carries the same fields.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Same as {@link #cborHttpMessageConverter} for Smile.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.back_end.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that a handler needs a valid token (taken from the {token} path variable)
+ * for one of the given roles. The verified caller is available as the
+ * {@link com.project.back_end.DTO.AuthPrincipal} request attribute.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequireRole {
+
+    /**
+     * Accepted roles: "admin", "doctor" or "patient".
+     */
+    String[] value() default {};
+
+    /**
+     * Name of a path variable holding the role instead, e.g. "user" for endpoints shared by roles.
+     */
+    String pathVariable() default "";
+}
@@ -0,0 +1,16 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled background jobs. Disable with clinic.scheduling.enabled=false,
+ * e.g. on instances that should only serve traffic. Cross-instance cache sync does not
+ * depend on it: {@link com.project.back_end.services.CacheSync} polls on its own thread.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "clinic.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,25 @@
+package com.project.back_end.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets clients of a list endpoint pick the fields of each listed item with a fields= query
+ * parameter, e.g. fields=id,name,specialty. Unknown names are refused with 400. The parsed
+ * choice is available as the {@link com.project.back_end.DTO.FieldSelection} request attribute,
+ * so the handler can skip loading what was not asked for, and only the chosen properties are
+ * serialized. The item type must carry @JsonFilter(FieldSelection.FILTER).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SparseFields {
+
+    /**
+     * The type of the listed items.
+     */
+    Class<?> value();
+}
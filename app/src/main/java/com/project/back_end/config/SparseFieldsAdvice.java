@@ -0,0 +1,40 @@
+package com.project.back_end.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.project.back_end.DTO.FieldSelection;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Serializes only the selected properties of the listed items of {@link SparseFields} handlers.
+ * The filter runs inside Jackson's bean serializer, so getters of unselected properties are never
+ * called and lazy associations behind them are never initialised.
+ */
+@ControllerAdvice
+public class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType, @NonNull Class converterType) {
+        return super.supports(returnType, converterType) && returnType.hasMethodAnnotation(SparseFields.class);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(@NonNull MappingJacksonValue bodyContainer, @NonNull MediaType contentType,
+                                           @NonNull MethodParameter returnType, @NonNull ServerHttpRequest request,
+                                           @NonNull ServerHttpResponse response) {
+        Object selection = request instanceof ServletServerHttpRequest servletRequest
+                ? servletRequest.getServletRequest().getAttribute(FieldSelection.ATTRIBUTE) : null;
+        if (selection instanceof FieldSelection fields && !fields.isAll()) {
+            bodyContainer.setFilters(new SimpleFilterProvider()
+                    .addFilter(FieldSelection.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields.getFields())));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.project.back_end.config;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.project.back_end.DTO.FieldSelection;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the fields= parameter of handlers annotated with {@link SparseFields} into a
+ * {@link FieldSelection} request attribute, answering 400 when it names a property the item
+ * type does not serialize.
+ */
+@Component
+public class SparseFieldsInterceptor implements HandlerInterceptor {
+
+    private static final String PARAMETER = "fields";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, Set<String>> propertiesByType = new ConcurrentHashMap<>();
+
+    public SparseFieldsInterceptor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        SparseFields sparseFields = handlerMethod.getMethodAnnotation(SparseFields.class);
+        if (sparseFields == null) {
+            return true;
+        }
+        String parameter = request.getParameter(PARAMETER);
+        if (parameter == null || parameter.isBlank()) {
+            request.setAttribute(FieldSelection.ATTRIBUTE, FieldSelection.ALL);
+            return true;
+        }
+        Set<String> known = propertiesByType.computeIfAbsent(sparseFields.value(), this::serializedProperties);
+        Set<String> fields = new LinkedHashSet<>();
+        for (String field : parameter.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(name)) {
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                objectMapper.writeValue(response.getWriter(), Map.of(
+                        "message", "Unknown field: " + name,
+                        "fields", known));
+                return false;
+            }
+            fields.add(name);
+        }
+        request.setAttribute(FieldSelection.ATTRIBUTE, new FieldSelection(fields));
+        return true;
+    }
+
+    private Set<String> serializedProperties(Class<?> type) {
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(type));
+        Set<String> names = new TreeSet<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldSerialize()) {
+                names.add(property.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Exposes the per-request statement counts as response headers, written just before the body
+ * so the counts cover everything the controller did.
+ */
+@RestControllerAdvice
+@ConditionalOnProperty(name = "clinic.statement-counter.enabled", havingValue = "true")
+public class StatementCountHeaders implements ResponseBodyAdvice<Object> {
+
+    public static final String SQL_HEADER = "X-SQL-Statements";
+    public static final String MONGO_HEADER = "X-Mongo-Commands";
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType, @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType, @NonNull MediaType contentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> converterType,
+                                  @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        response.getHeaders().set(SQL_HEADER, Long.toString(StatementCounter.jdbcStatements()));
+        response.getHeaders().set(MONGO_HEADER, Long.toString(StatementCounter.mongoCommands()));
+        return body;
+    }
+}
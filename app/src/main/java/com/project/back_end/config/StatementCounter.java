@@ -0,0 +1,64 @@
+package com.project.back_end.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request tally of JDBC statements and Mongo commands.
+ * A request opens the scope with {@link #begin()}, rebinds it on every later dispatch of the same
+ * request with {@link #resume(long[])} and closes it on each thread with {@link #end()}; JDBC
+ * statements outside a scope are ignored.
+ *
+ * JDBC runs on the request's threads, so it is counted per scope. The reactive Mongo driver runs
+ * commands on its own threads, so they are counted process-wide and a scope reports how many
+ * were issued since it began: exact while requests are served one at a time, as in the budget
+ * tests, and an upper bound under concurrent load.
+ */
+public final class StatementCounter {
+
+    private static final int JDBC = 0;
+    private static final int MONGO_AT_BEGIN = 1;
+
+    private static final ThreadLocal<long[]> COUNTS = new ThreadLocal<>();
+    private static final AtomicLong MONGO_COMMANDS = new AtomicLong();
+
+    private StatementCounter() {
+    }
+
+    /**
+     * @return The new scope, to pass to {@link #resume(long[])} on a later dispatch.
+     */
+    public static long[] begin() {
+        long[] counts = {0, MONGO_COMMANDS.get()};
+        COUNTS.set(counts);
+        return counts;
+    }
+
+    public static void resume(long[] counts) {
+        COUNTS.set(counts);
+    }
+
+    public static void end() {
+        COUNTS.remove();
+    }
+
+    public static void jdbcStatement() {
+        long[] counts = COUNTS.get();
+        if (counts != null) {
+            counts[JDBC]++;
+        }
+    }
+
+    public static void mongoCommand() {
+        MONGO_COMMANDS.incrementAndGet();
+    }
+
+    public static long jdbcStatements() {
+        long[] counts = COUNTS.get();
+        return counts == null ? 0 : counts[JDBC];
+    }
+
+    public static long mongoCommands() {
+        long[] counts = COUNTS.get();
+        return counts == null ? 0 : MONGO_COMMANDS.get() - counts[MONGO_AT_BEGIN];
+    }
+}
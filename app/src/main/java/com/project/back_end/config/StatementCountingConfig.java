@@ -0,0 +1,129 @@
+package com.project.back_end.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Counts every JDBC statement and Mongo command issued while serving a request.
+ * Enabled with clinic.statement-counter.enabled=true (set by the "debug" profile),
+ * so production pays nothing for the proxies.
+ *
+ * JDBC is counted at the connection level, which covers Hibernate and JdbcTemplate alike:
+ * one per prepared statement (a batch counts once) and one per plain statement execution.
+ * Mongo is counted by a command listener on the client; see {@link StatementCounter}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "clinic.statement-counter.enabled", havingValue = "true")
+public class StatementCountingConfig {
+
+    private static final String COUNTS_ATTRIBUTE = StatementCountingConfig.class.getName() + ".counts";
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())) {
+                    return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        return result instanceof Connection connection ? countingConnection(connection) : result;
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer statementCountingMongoCustomizer() {
+        return builder -> builder.addCommandListener(new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                StatementCounter.mongoCommand();
+            }
+        });
+    }
+
+    @Bean
+    public OncePerRequestFilter statementCountingFilter() {
+        return new OncePerRequestFilter() {
+            // Reactive results are written on an async dispatch, which must see the request's counts
+            @Override
+            protected boolean shouldNotFilterAsyncDispatch() {
+                return false;
+            }
+
+            @Override
+            protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                            @NonNull FilterChain chain) throws ServletException, IOException {
+                if (request.getAttribute(COUNTS_ATTRIBUTE) instanceof long[] counts) {
+                    StatementCounter.resume(counts);
+                } else {
+                    request.setAttribute(COUNTS_ATTRIBUTE, StatementCounter.begin());
+                }
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    StatementCounter.end();
+                }
+            }
+        };
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("prepareStatement") || name.equals("prepareCall")) {
+                StatementCounter.jdbcStatement();
+            }
+            Object result = invoke(target, method, args);
+            if (name.equals("createStatement")) {
+                return proxy(Statement.class, (Statement) result, (statement, call, callArgs) -> {
+                    if (call.getName().startsWith("execute")) {
+                        StatementCounter.jdbcStatement();
+                    }
+                    return invoke(statement, call, callArgs);
+                });
+            }
+            return result;
+        });
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocation = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocation);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
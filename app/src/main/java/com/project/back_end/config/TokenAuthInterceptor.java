@@ -0,0 +1,69 @@
+package com.project.back_end.config;
+
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.services.TokenService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Verifies the request token once, before the handler runs, for handlers annotated with
+ * {@link RequireRole}. Runs after handler mapping so it can read the {token} path variable and
+ * the annotation; on success it stores the {@link AuthPrincipal}, otherwise it answers 401.
+ */
+@Component
+public class TokenAuthInterceptor implements HandlerInterceptor {
+
+    private static final String UNAUTHORIZED_BODY = "{\"message\":\"Invalid or expired token\"}";
+
+    private final TokenService tokenService;
+
+    public TokenAuthInterceptor(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RequireRole required = handlerMethod.getMethodAnnotation(RequireRole.class);
+        if (required == null) {
+            return true;
+        }
+        // Reactive results are written on an async dispatch of a request authenticated when it started
+        if (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(AuthPrincipal.ATTRIBUTE) != null) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String token = pathVariables == null ? null : pathVariables.get("token");
+        List<String> roles = required.pathVariable().isEmpty()
+                ? List.of(required.value())
+                : pathVariables == null || pathVariables.get(required.pathVariable()) == null
+                        ? List.of()
+                        : List.of(pathVariables.get(required.pathVariable()));
+
+        Optional<AuthPrincipal> principal = token == null ? Optional.empty() : tokenService.authenticate(token, roles);
+        if (principal.isEmpty()) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(UNAUTHORIZED_BODY);
+            return false;
+        }
+        request.setAttribute(AuthPrincipal.ATTRIBUTE, principal.get());
+        return true;
+    }
+}
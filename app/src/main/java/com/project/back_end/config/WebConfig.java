@@ -2,14 +2,28 @@ package com.project.back_end.config;
 
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.lang.NonNull; 
 
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.time.Duration;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final TokenAuthInterceptor tokenAuthInterceptor;
+    private final SparseFieldsInterceptor sparseFieldsInterceptor;
+
+    public WebConfig(TokenAuthInterceptor tokenAuthInterceptor, SparseFieldsInterceptor sparseFieldsInterceptor) {
+        this.tokenAuthInterceptor = tokenAuthInterceptor;
+        this.sparseFieldsInterceptor = sparseFieldsInterceptor;
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints
@@ -18,4 +32,23 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE")  // Specify allowed methods
                 .allowedHeaders("*");  // You can restrict headers if needed
     }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // Verifies the token once per request for handlers annotated with @RequireRole
+        registry.addInterceptor(tokenAuthInterceptor);
+        // Resolves fields= for handlers annotated with @SparseFields
+        registry.addInterceptor(sparseFieldsInterceptor);
+    }
+
+    @Override
+    public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
+        // Bundles written by the "assets" build profile; names carry a content hash, so they never change.
+        // Serves the precompressed .br/.gz sibling when the client accepts it.
+        registry.addResourceHandler("/dist/**")
+                .addResourceLocations("classpath:/static/dist/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
 }
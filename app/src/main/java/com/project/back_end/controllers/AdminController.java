@@ -1,24 +1,108 @@
 package com.project.back_end.controllers;
 
 import com.project.back_end.models.Admin;
+import com.project.back_end.services.AppointmentSnapshot;
+import com.project.back_end.services.DoctorService;
 import com.project.back_end.services.Service;
+import com.project.back_end.config.RequireRole;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 
 @RestController
 @RequestMapping("${api.path}admin")
 public class AdminController {
+    private static final long MAX_DAILY_BUCKETS = 366;
+    // About as long as loading the snapshot of a large appointment table takes
+    private static final int SNAPSHOT_RETRY_AFTER_SECONDS = 30;
+
     private final Service service;
+    private final DoctorService doctorService;
+    private final AppointmentSnapshot appointmentSnapshot;
 
     @Autowired
-    public AdminController(Service service) {
+    public AdminController(Service service, DoctorService doctorService, AppointmentSnapshot appointmentSnapshot) {
         this.service = service;
+        this.doctorService = doctorService;
+        this.appointmentSnapshot = appointmentSnapshot;
     }
 
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> adminLogin(@RequestBody Admin admin) {
         return service.validateAdmin(admin);
     }
+
+    @RequireRole("admin")
+    @GetMapping("/utilization/{from}/{to}/{token}")
+    public ResponseEntity<Map<String, Object>> getUtilization(@PathVariable String from, @PathVariable String to,
+                                                              @RequestParam(defaultValue = "total") String granularity) {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(from);
+            end = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Dates must be given as yyyy-MM-dd"));
+        }
+        if (end.isBefore(start)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "The range must end on or after its start"));
+        }
+        if ("day".equalsIgnoreCase(granularity) && ChronoUnit.DAYS.between(start, end) >= MAX_DAILY_BUCKETS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Daily utilization is limited to " + MAX_DAILY_BUCKETS + " days"));
+        }
+        return ResponseEntity.ok(doctorService.getUtilization(start, end, granularity));
+    }
+
+    /**
+     * Ad-hoc appointment counts from the in-memory snapshot (refreshed every few minutes), never from MySQL.
+     * groupBy is status, doctor, weekday or hour; from/to are ISO date-times, the range is [from, to).
+     * Answers 503 with Retry-After until the snapshot's first load after startup has completed.
+     */
+    @RequireRole("admin")
+    @GetMapping("/reports/appointments/{groupBy}/{token}")
+    public ResponseEntity<Map<String, Object>> getAppointmentReport(@PathVariable String groupBy,
+                                                                    @RequestParam(required = false) Long doctorId,
+                                                                    @RequestParam(required = false) Long patientId,
+                                                                    @RequestParam(required = false) Integer status,
+                                                                    @RequestParam(required = false) String from,
+                                                                    @RequestParam(required = false) String to,
+                                                                    @RequestParam(required = false) String weekday,
+                                                                    @RequestParam(required = false) Integer hour) {
+        AppointmentSnapshot.GroupBy dimension;
+        DayOfWeek day;
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            dimension = AppointmentSnapshot.GroupBy.valueOf(groupBy.toUpperCase());
+            day = weekday != null ? DayOfWeek.valueOf(weekday.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Unknown report dimension or weekday"));
+        }
+        try {
+            start = from != null ? LocalDateTime.parse(from) : null;
+            end = to != null ? LocalDateTime.parse(to) : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "from and to must be given as yyyy-MM-ddTHH:mm"));
+        }
+        AppointmentSnapshot.Filter filter = new AppointmentSnapshot.Filter()
+                .doctorId(doctorId)
+                .patientId(patientId)
+                .status(status)
+                .between(start, end)
+                .weekday(day)
+                .hour(hour);
+        return appointmentSnapshot.report(dimension, filter)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(SNAPSHOT_RETRY_AFTER_SECONDS))
+                        .body(Map.of("message", "The report snapshot is still loading; try again shortly")));
+    }
 }
@@ -1,13 +1,21 @@
-package com.project_back_end.controllers;
+package com.project.back_end.controllers;
 
-import com.project_back_end.models.Appointment;
-import com.project_back_end.services.AppointmentService;
-import com.project_back_end.services.Service;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.BatchBooking;
+import com.project.back_end.DTO.WaitlistRequest;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.Service;
+import com.project.back_end.config.RequireRole;
+import com.project.back_end.config.SparseFields;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.DTO.AppointmentDTO;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,52 +30,88 @@ public class AppointmentController {
         this.service = service;
     }
 
+    @RequireRole("doctor")
+    @SparseFields(AppointmentDTO.class)
     @GetMapping("/{date}/{patientName}/{token}")
-    public ResponseEntity<Map<String, Object>> getAppointments(@PathVariable String date, @PathVariable String patientName, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "doctor");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
+    public ResponseEntity<Map<String, Object>> getAppointments(@PathVariable String date, @PathVariable String patientName, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         LocalDate localDate = LocalDate.parse(date);
-        Map<String, Object> appointments = appointmentService.getAppointment(patientName, localDate, token);
+        Map<String, Object> appointments = appointmentService.getAppointment(patientName, localDate, principal.getId());
         return ResponseEntity.ok(appointments);
     }
 
+    @RequireRole("patient")
     @PostMapping("/{token}")
-    public ResponseEntity<Map<String, String>> bookAppointment(@RequestBody Appointment appointment, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
+    public ResponseEntity<Map<String, String>> bookAppointment(@RequestBody Appointment appointment, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!isOwn(appointment, principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Unauthorized access"));
         }
         int valid = service.validateAppointment(appointment);
         if (valid == -1) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid doctor ID"));
+        } else if (valid == -2) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Appointments can be booked from now until " + service.lastBookableDate()));
         } else if (valid == 0) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Appointment slot unavailable"));
         }
         int booked = appointmentService.bookAppointment(appointment);
         if (booked == 1) {
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Appointment booked successfully"));
+        } else if (booked == 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Appointment slot unavailable"));
         } else {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Error booking appointment"));
         }
     }
 
+    @RequireRole("patient")
+    @PostMapping("/batch/{token}")
+    public ResponseEntity<Map<String, Object>> bookAppointments(@RequestBody BatchBooking batch, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        List<Appointment> items = batch.getAppointments() != null ? batch.getAppointments()
+                : Collections.singletonList(batch.getFirst());
+        for (Appointment item : items) {
+            if (!isOwn(item, principal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Unauthorized access"));
+            }
+        }
+        return appointmentService.bookAppointments(batch);
+    }
+
+    @RequireRole("patient")
+    @PostMapping("/waitlist/{token}")
+    public ResponseEntity<Map<String, Object>> joinWaitlist(@RequestBody WaitlistRequest request, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return appointmentService.joinWaitlist(request, principal.getId());
+    }
+
+    @RequireRole("patient")
+    @GetMapping("/waitlist/{token}")
+    public ResponseEntity<Map<String, Object>> getWaitlist(@RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return ResponseEntity.ok(appointmentService.getWaitlist(principal.getId()));
+    }
+
+    @RequireRole("patient")
+    @DeleteMapping("/waitlist/{entryId}/{token}")
+    public ResponseEntity<Map<String, String>> leaveWaitlist(@PathVariable long entryId, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return appointmentService.leaveWaitlist(entryId, principal.getId());
+    }
+
+    @RequireRole("patient")
     @PutMapping("/{token}")
-    public ResponseEntity<Map<String, String>> updateAppointment(@RequestBody Appointment appointment, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
+    public ResponseEntity<Map<String, Object>> updateAppointment(@RequestBody Appointment appointment, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!isOwn(appointment, principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Unauthorized access"));
         }
-        return appointmentService.updateAppointment(appointment);
+        return appointmentService.updateAppointment(appointment, principal.getId());
     }
 
+    @RequireRole("patient")
     @DeleteMapping("/{id}/{token}")
-    public ResponseEntity<Map<String, String>> cancelAppointment(@PathVariable long id, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
-        }
-        return appointmentService.cancelAppointment(id, token);
+    public ResponseEntity<Map<String, String>> cancelAppointment(@PathVariable long id, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return appointmentService.cancelAppointment(id, principal.getId());
+    }
+
+    // Patients book and edit appointments for themselves only
+    private static boolean isOwn(Appointment appointment, AuthPrincipal principal) {
+        return appointment != null && appointment.getPatient() != null
+                && principal.getId().equals(appointment.getPatient().getId());
     }
 }
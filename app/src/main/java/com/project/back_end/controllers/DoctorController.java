@@ -1,9 +1,15 @@
-package com.project_back_end.controllers;
+package com.project.back_end.controllers;
 
-import com.project_back_end.models.Doctor;
-import com.project_back_end.DTO.Login;
-import com.project_back_end.services.DoctorService;
-import com.project_back_end.services.Service;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.DTO.Login;
+import com.project.back_end.DTO.AvailableSlotDTO;
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.DTO.FieldSelection;
+import com.project.back_end.services.DoctorDeletionService;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.Service;
+import com.project.back_end.config.RequireRole;
+import com.project.back_end.config.SparseFields;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -11,42 +17,58 @@ import org.springframework.http.HttpStatus;
 import java.time.LocalDate;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("${api.path}doctor")
 public class DoctorController {
+    // Bounds of the next-available search, which walks every doctor of the specialty day by day
+    private static final int MAX_SLOT_COUNT = 50;
+    private static final int MAX_SEARCH_DAYS = 90;
+
     private final DoctorService doctorService;
     private final Service service;
+    private final DoctorDeletionService doctorDeletionService;
 
     @Autowired
-    public DoctorController(DoctorService doctorService, Service service) {
+    public DoctorController(DoctorService doctorService, Service service, DoctorDeletionService doctorDeletionService) {
         this.doctorService = doctorService;
         this.service = service;
+        this.doctorDeletionService = doctorDeletionService;
     }
 
+    @RequireRole(pathVariable = "user")
     @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
-    public ResponseEntity<Map<String, Object>> getDoctorAvailability(@PathVariable String user, @PathVariable Long doctorId, @PathVariable String date, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, user);
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
+    public ResponseEntity<Map<String, Object>> getDoctorAvailability(@PathVariable String user, @PathVariable Long doctorId, @PathVariable String date) {
         LocalDate localDate = LocalDate.parse(date);
         List<String> availability = doctorService.getDoctorAvailability(doctorId, localDate);
         return ResponseEntity.ok(Map.of("availability", availability));
     }
 
+    @RequireRole(pathVariable = "user")
+    @GetMapping("/nextAvailable/{user}/{speciality}/{time}/{token}")
+    public ResponseEntity<Map<String, Object>> getNextAvailableSlots(@PathVariable String user, @PathVariable String speciality,
+                                                                     @PathVariable String time,
+                                                                     @RequestParam(defaultValue = "5") int count,
+                                                                     @RequestParam(defaultValue = "14") int days) {
+        if (count < 1 || count > MAX_SLOT_COUNT || days < 1 || days > MAX_SEARCH_DAYS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message",
+                    "count must be between 1 and " + MAX_SLOT_COUNT + ", days between 1 and " + MAX_SEARCH_DAYS));
+        }
+        List<AvailableSlotDTO> slots = doctorService.findNextAvailableSlots(speciality, time, count, days);
+        return ResponseEntity.ok(Map.of("slots", slots));
+    }
+
+    @SparseFields(Doctor.class)
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getDoctors() {
-        List<Doctor> doctors = doctorService.getDoctors();
+    public ResponseEntity<Map<String, Object>> getDoctors(@RequestAttribute(FieldSelection.ATTRIBUTE) FieldSelection fields) {
+        List<Doctor> doctors = doctorService.getDoctors(fields.includes("availableTimes"));
         return ResponseEntity.ok(Map.of("doctors", doctors));
     }
 
+    @RequireRole("admin")
     @PostMapping("/{token}")
-    public ResponseEntity<Map<String, String>> saveDoctor(@RequestBody Doctor doctor, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
-        }
+    public ResponseEntity<Map<String, String>> saveDoctor(@RequestBody Doctor doctor) {
         int result = doctorService.saveDoctor(doctor);
         if (result == 1) {
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Doctor added to db"));
@@ -62,38 +84,35 @@ public class DoctorController {
         return doctorService.validateDoctor(login);
     }
 
+    @RequireRole("admin")
     @PutMapping("/{token}")
-    public ResponseEntity<Map<String, String>> updateDoctor(@RequestBody Doctor doctor, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
-        }
-        int result = doctorService.updateDoctor(doctor);
-        if (result == 1) {
-            return ResponseEntity.ok(Map.of("message", "Doctor updated"));
-        } else if (result == -1) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found"));
-        } else {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Some internal error occurred"));
-        }
+    public ResponseEntity<Map<String, Object>> updateDoctor(@RequestBody Doctor doctor) {
+        return doctorService.updateDoctor(doctor);
     }
 
+    @RequireRole("admin")
     @DeleteMapping("/{id}/{token}")
-    public ResponseEntity<Map<String, String>> deleteDoctor(@PathVariable long id, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
-        }
-        int result = doctorService.deleteDoctor(id);
-        if (result == 1) {
-            return ResponseEntity.ok(Map.of("message", "Doctor deleted successfully"));
-        } else if (result == -1) {
+    public ResponseEntity<Map<String, Object>> deleteDoctor(@PathVariable long id) {
+        // The doctor disappears from search and booking now; appointments and prescriptions go in the background
+        Optional<DoctorDeletionJob> job = doctorDeletionService.start(id);
+        if (job.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found with id"));
-        } else {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Some internal error occurred"));
         }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Doctor deletion started",
+                "jobId", job.get().getJobId(),
+                "progress", job.get()));
+    }
+
+    @RequireRole("admin")
+    @GetMapping("/deletions/{jobId}/{token}")
+    public ResponseEntity<Map<String, Object>> getDeletionProgress(@PathVariable String jobId) {
+        return doctorDeletionService.getJob(jobId)
+                .<ResponseEntity<Map<String, Object>>>map(job -> ResponseEntity.ok(Map.of("progress", job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Deletion job not found")));
     }
 
+    @SparseFields(Doctor.class)
     @GetMapping("/filter/{name}/{time}/{speciality}")
     public ResponseEntity<Map<String, Object>> filterDoctors(@PathVariable String name, @PathVariable String time, @PathVariable String speciality) {
         Map<String, Object> result = service.filterDoctor(name, speciality, time);
@@ -1,9 +1,13 @@
-package com.project_back_end.controllers;
+package com.project.back_end.controllers;
 
-import com.project_back_end.models.Patient;
-import com.project_back_end.DTO.Login;
-import com.project_back_end.services.PatientService;
-import com.project_back_end.services.Service;
+import com.project.back_end.models.Patient;
+import com.project.back_end.DTO.Login;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.Service;
+import com.project.back_end.config.RequireRole;
+import com.project.back_end.config.SparseFields;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.DTO.AppointmentDTO;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,13 +26,10 @@ public class PatientController {
         this.service = service;
     }
 
+    @RequireRole("patient")
     @GetMapping("/{token}")
-    public ResponseEntity<Map<String, Object>> getPatient(@PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
-        return patientService.getPatientDetails(token);
+    public ResponseEntity<Map<String, Object>> getPatient(@RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return patientService.getPatientDetails(principal.getId());
     }
 
     @PostMapping()
@@ -50,21 +51,17 @@ public class PatientController {
         return service.validatePatientLogin(login);
     }
 
+    @RequireRole("patient")
+    @SparseFields(AppointmentDTO.class)
     @GetMapping("/{id}/{token}")
-    public ResponseEntity<Map<String, Object>> getPatientAppointment(@PathVariable Long id, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
-        return patientService.getPatientAppointment(id, token);
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(@PathVariable Long id, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return patientService.getPatientAppointment(id, principal.getId());
     }
 
+    @RequireRole("patient")
+    @SparseFields(AppointmentDTO.class)
     @GetMapping("/filter/{condition}/{name}/{token}")
-    public ResponseEntity<Map<String, Object>> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
-        return service.filterPatient(condition, name, token);
+    public ResponseEntity<Map<String, Object>> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        return service.filterPatient(condition, name, principal.getId());
     }
 }
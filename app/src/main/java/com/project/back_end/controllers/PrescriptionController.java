@@ -1,41 +1,69 @@
-package com.project_back_end.controllers;
+package com.project.back_end.controllers;
 
-import com.project_back_end.models.Prescription;
-import com.project_back_end.services.PrescriptionService;
-import com.project_back_end.services.AdminService;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.services.PrescriptionService;
+import com.project.back_end.config.RequireRole;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("${api.path}prescription")
 public class PrescriptionController {
     private final PrescriptionService prescriptionService;
-    private final AdminService service;
 
     @Autowired
-    public PrescriptionController(PrescriptionService prescriptionService, AdminService service) {
+    public PrescriptionController(PrescriptionService prescriptionService) {
         this.prescriptionService = prescriptionService;
-        this.service = service;
     }
 
+    @RequireRole("doctor")
     @PostMapping("/{token}")
-    public ResponseEntity<Map<String, String>> savePrescription(@RequestBody Prescription prescription, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "doctor");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(validation.getBody());
-        }
+    public Mono<ResponseEntity<Map<String, String>>> savePrescription(@RequestBody Prescription prescription) {
         return prescriptionService.savePrescription(prescription);
     }
 
+    @RequireRole("doctor")
+    @PostMapping("/bulk/{token}")
+    public Mono<ResponseEntity<Map<String, Object>>> savePrescriptions(@RequestBody List<Prescription> prescriptions) {
+        return prescriptionService.savePrescriptions(prescriptions);
+    }
+
+    @RequireRole("doctor")
     @GetMapping("/{appointmentId}/{token}")
-    public ResponseEntity<Map<String, Object>> getPrescription(@PathVariable Long appointmentId, @PathVariable String token) {
-        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "doctor");
-        if (validation.getStatusCode() != HttpStatus.OK) {
-            return ResponseEntity.status(validation.getStatusCode()).body(Map.of("message", validation.getBody().get("message")));
-        }
+    public Mono<ResponseEntity<Map<String, Object>>> getPrescription(@PathVariable Long appointmentId) {
         return prescriptionService.getPrescription(appointmentId);
     }
-}
\ No newline at end of file
+
+    @RequireRole("doctor")
+    @GetMapping("/bulk/{token}")
+    public Mono<ResponseEntity<Map<String, Object>>> getPrescriptions(@RequestParam List<Long> appointmentIds) {
+        return prescriptionService.getPrescriptions(appointmentIds);
+    }
+
+    @RequireRole({"admin", "doctor"})
+    @GetMapping("/search/{token}")
+    public Mono<ResponseEntity<Map<String, Object>>> searchPrescriptions(@RequestParam(required = false) String medication,
+                                                                         @RequestParam(required = false) String text,
+                                                                         @RequestParam(required = false) String from,
+                                                                         @RequestParam(required = false) String to,
+                                                                         @RequestParam(defaultValue = "0") int page,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = from != null ? LocalDate.parse(from) : null;
+            last = to != null ? LocalDate.parse(to) : null;
+        } catch (DateTimeParseException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "from and to must be given as yyyy-MM-dd")));
+        }
+        return prescriptionService.searchPrescriptions(medication, text, first, last, page, size);
+    }
+}
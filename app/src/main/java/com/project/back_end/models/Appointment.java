@@ -1,15 +1,20 @@
 package com.project.back_end.models;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 
 // Validation and Utility Imports
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -20,8 +25,22 @@ import java.time.temporal.ChronoUnit;
  * It is mapped to a relational database table.
  */
 @Entity
+@Table(indexes = {
+        // Past/upcoming lists of one patient are range scans on appointment_time
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time"),
+        // Covers the completion job's candidate scan (id is implicit in InnoDB secondary indexes)
+        @Index(name = "idx_appointment_status_time", columnList = "status, appointment_time, duration_minutes")
+})
 public class Appointment {
 
+    /**
+     * Length of a visit when none is given, matching the historical one-hour slot.
+     */
+    public static final int DEFAULT_DURATION_MINUTES = 60;
+
+    public static final int STATUS_SCHEDULED = 0;
+    public static final int STATUS_COMPLETED = 1;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -42,16 +61,24 @@ public class Appointment {
     @NotNull(message = "Appointment status is required")
     private int status; // 0 for Scheduled, 1 for Completed
 
+    // Length of the visit in minutes; null for rows created before durations existed
+    @Positive(message = "Appointment duration must be positive")
+    private Integer durationMinutes;
+
+    // Optimistic concurrency; the database default covers rows written before versioning and by JDBC batches
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     // --- Helper Methods (Transient - not persisted) ---
 
     /**
-     * Calculates the end time of the appointment (assuming 1 hour duration).
+     * Calculates the end time of the appointment from its duration.
      * @return The calculated end time.
      */
     @Transient
     public LocalDateTime getEndTime() {
-        // Assuming a standard 1-hour appointment duration
-        return this.appointmentTime.plus(1, ChronoUnit.HOURS);
+        return this.appointmentTime.plus(getDurationMinutes(), ChronoUnit.MINUTES);
     }
 
     /**
@@ -72,6 +99,15 @@ public class Appointment {
         return this.appointmentTime.toLocalTime();
     }
 
+    /**
+     * Tells a duration that was set from the default {@link #getDurationMinutes()} falls back to.
+     * @return Whether a duration was set.
+     */
+    @Transient
+    public boolean hasDurationMinutes() {
+        return this.durationMinutes != null;
+    }
+
 
     // --- Getters and Setters ---
 
@@ -114,4 +150,20 @@ public class Appointment {
     public void setStatus(int status) {
         this.status = status;
     }
+
+    public int getDurationMinutes() {
+        return durationMinutes != null ? durationMinutes : DEFAULT_DURATION_MINUTES;
+    }
+
+    public void setDurationMinutes(Integer durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
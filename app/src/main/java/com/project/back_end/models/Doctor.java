@@ -1,22 +1,28 @@
 package com.project.back_end.models;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Version;
 
 // Validation Imports
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 
 // Jackson (JSON) Import
+import com.project.back_end.DTO.FieldSelection;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonProperty.Access;
 
 // Utility Imports
+import java.time.LocalTime;
 import java.util.List;
 
 /**
@@ -24,6 +30,7 @@ import java.util.List;
  * and available time slots. Mapped to a relational database table.
  */
 @Entity
+@JsonFilter(FieldSelection.FILTER)
 public class Doctor {
 
     @Id
@@ -55,6 +62,19 @@ public class Doctor {
     @ElementCollection
     private List<String> availableTimes;
 
+    // Optional per-doctor slot grid; clinic defaults apply when these are null
+    @Positive(message = "Slot length must be positive")
+    private Integer slotMinutes;
+
+    private LocalTime workdayStart;
+
+    private LocalTime workdayEnd;
+
+    // Optimistic concurrency; the database default covers rows written before versioning
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     // --- Getters and Setters ---
 
     public Long getId() {
@@ -113,4 +133,36 @@ public class Doctor {
     public void setAvailableTimes(List<String> availableTimes) {
         this.availableTimes = availableTimes;
     }
-}
\ No newline at end of file
+
+    public Integer getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public void setSlotMinutes(Integer slotMinutes) {
+        this.slotMinutes = slotMinutes;
+    }
+
+    public LocalTime getWorkdayStart() {
+        return workdayStart;
+    }
+
+    public void setWorkdayStart(LocalTime workdayStart) {
+        this.workdayStart = workdayStart;
+    }
+
+    public LocalTime getWorkdayEnd() {
+        return workdayEnd;
+    }
+
+    public void setWorkdayEnd(LocalTime workdayEnd) {
+        this.workdayEnd = workdayEnd;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
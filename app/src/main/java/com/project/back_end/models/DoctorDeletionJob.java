@@ -0,0 +1,146 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A background doctor deletion and its progress, kept in the doctor_deletion_job table so every
+ * instance sees it and an interrupted deletion resumes where it stopped. A worker claims the job
+ * with a lease before running it, and records progress with the repository's update queries, in
+ * the transaction of the chunk it deleted.
+ */
+@Entity
+@Table(indexes = {
+        // Bookings and new deletions look for the active job of a doctor
+        @Index(name = "idx_deletion_doctor_status", columnList = "doctor_id, status")
+})
+public class DoctorDeletionJob {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * While a doctor has a job in one of these states it takes no new bookings.
+     */
+    public static final List<Status> ACTIVE = List.of(Status.PENDING, Status.RUNNING);
+
+    @Id
+    @Column(length = 36)
+    private String jobId;
+
+    @Column(nullable = false)
+    private Long doctorId;
+
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status = Status.PENDING;
+
+    private long totalAppointments;
+
+    private long appointmentsDeleted;
+
+    private long prescriptionsDeleted;
+
+    // Keyset cursor: every appointment of the doctor up to this id is deleted
+    @JsonIgnore
+    private long lastAppointmentId;
+
+    private LocalDateTime finishedAt;
+
+    // Worker running the job, which holds it until leaseUntil unless it renews the lease
+    @JsonIgnore
+    @Column(length = 36)
+    private String owner;
+
+    @JsonIgnore
+    private LocalDateTime leaseUntil;
+
+    @Column(length = 500)
+    private String error;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public DoctorDeletionJob() {
+    }
+
+    public DoctorDeletionJob(String jobId, Long doctorId) {
+        this.jobId = jobId;
+        this.doctorId = doctorId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // --- Getter Methods ---
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotalAppointments() {
+        return totalAppointments;
+    }
+
+    public long getAppointmentsDeleted() {
+        return appointmentsDeleted;
+    }
+
+    public long getPrescriptionsDeleted() {
+        return prescriptionsDeleted;
+    }
+
+    public long getLastAppointmentId() {
+        return lastAppointmentId;
+    }
+
+    /**
+     * Share of the appointments counted at start that are gone, from 0 to 100.
+     */
+    public int getPercentComplete() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        return totalAppointments == 0 ? 0 : (int) Math.min(99, appointmentsDeleted * 100 / totalAppointments);
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public boolean isFinished() {
+        return !ACTIVE.contains(status);
+    }
+}
@@ -1,17 +1,36 @@
 package com.project.back_end.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * Represents a Prescription stored as a document in MongoDB.
  * This model is used for flexible, unstructured data storage.
  */
 @Document(collection = "prescriptions")
+// Searches read these in (issuedAt, _id) order, so every page is a bounded index walk without a sort:
+// by medication through an equality on a prefix bucket, filtering longer prefixes on the index's
+// medicationKey, and by date alone through a range on issuedAt.
+// The text index on medication and doctorNotes is created by PrescriptionService at startup.
+@CompoundIndex(name = "medication_prefix_issued", def = "{'medicationPrefixes': 1, 'issuedAt': -1, '_id': -1, 'medicationKey': 1}")
+@CompoundIndex(name = "issued", def = "{'issuedAt': -1, '_id': -1}")
 public class Prescription {
 
+    /**
+     * Longest medication prefix, in code points, held in {@link #getMedicationPrefixes()}.
+     */
+    public static final int PREFIX_BUCKET_LENGTH = 3;
+
     @Id // Maps to MongoDB's _id field
     private String id;
 
@@ -21,12 +40,22 @@ public class Prescription {
 
     @NotNull(message = "Appointment ID reference is required")
     // Note: Since this is a reference to a relational entity, it uses the Long ID
+    // Unique so that concurrent or bulk submissions cannot create a second prescription
+    @Indexed(unique = true)
     private Long appointmentId;
 
     @NotNull(message = "Medication name is required")
     @Size(min = 3, max = 100, message = "Medication name must be between 3 and 100 characters")
     private String medication;
 
+    // Trimmed, lower-case copy of medication, kept in step by setMedication; indexed for prefix search
+    @JsonIgnore
+    private String medicationKey;
+
+    // The first 1 to PREFIX_BUCKET_LENGTH code points of medicationKey, kept in step by setMedication
+    @JsonIgnore
+    private List<String> medicationPrefixes;
+
     @NotNull(message = "Dosage details are required")
     @Size(min = 3, max = 20, message = "Dosage must be between 3 and 20 characters")
     private String dosage;
@@ -34,6 +63,9 @@ public class Prescription {
     @Size(max = 200, message = "Doctor notes cannot exceed 200 characters")
     private String doctorNotes; // Optional field
 
+    // Set when the prescription is first saved
+    private LocalDateTime issuedAt;
+
     // Default constructor (required by Spring Data)
     public Prescription() {
     }
@@ -42,7 +74,7 @@ public class Prescription {
     public Prescription(String patientName, Long appointmentId, String medication, String dosage) {
         this.patientName = patientName;
         this.appointmentId = appointmentId;
-        this.medication = medication;
+        setMedication(medication);
         this.dosage = dosage;
     }
 
@@ -78,6 +110,40 @@ public class Prescription {
 
     public void setMedication(String medication) {
         this.medication = medication;
+        this.medicationKey = normalizeMedication(medication);
+        this.medicationPrefixes = medicationKey == null ? null : prefixBuckets(medicationKey);
+    }
+
+    public String getMedicationKey() {
+        return medicationKey;
+    }
+
+    public List<String> getMedicationPrefixes() {
+        return medicationPrefixes;
+    }
+
+    /**
+     * The bucket a normalized medication prefix is searched in: at most its first
+     * {@link #PREFIX_BUCKET_LENGTH} code points.
+     */
+    public static String prefixBucket(String key) {
+        return key.substring(0, key.offsetByCodePoints(0, Math.min(PREFIX_BUCKET_LENGTH, key.codePointCount(0, key.length()))));
+    }
+
+    private static List<String> prefixBuckets(String key) {
+        List<String> buckets = new ArrayList<>(PREFIX_BUCKET_LENGTH);
+        int codePoints = Math.min(PREFIX_BUCKET_LENGTH, key.codePointCount(0, key.length()));
+        for (int length = 1; length <= codePoints; length++) {
+            buckets.add(key.substring(0, key.offsetByCodePoints(0, length)));
+        }
+        return buckets;
+    }
+
+    /**
+     * The form medication names are indexed and searched in.
+     */
+    public static String normalizeMedication(String medication) {
+        return medication == null ? null : medication.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getDosage() {
@@ -95,4 +161,12 @@ public class Prescription {
     public void setDoctorNotes(String doctorNotes) {
         this.doctorNotes = doctorNotes;
     }
-}
\ No newline at end of file
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(LocalDateTime issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+}
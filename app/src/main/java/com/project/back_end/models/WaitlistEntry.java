@@ -0,0 +1,135 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A patient's place on a doctor's waitlist for one day. Entries are served in id order; the
+ * cancellation handing a slot over claims the entry with a row lock, so a withdrawal and a
+ * hand-over cannot both succeed, and no two freed slots go to the same entry.
+ */
+@Entity
+@Table(indexes = {
+        // The claim scans one doctor's day for waiting entries, oldest first
+        @Index(name = "idx_waitlist_doctor_day", columnList = "doctor_id, wait_date, status"),
+        @Index(name = "idx_waitlist_patient", columnList = "patient_id, status")
+})
+public class WaitlistEntry {
+
+    /**
+     * WAITING entries are in their day's queue, until a freed slot is ASSIGNED to them or the
+     * patient has WITHDRAWN.
+     */
+    public enum Status { WAITING, ASSIGNED, WITHDRAWN }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long doctorId;
+
+    @Column(nullable = false)
+    private Long patientId;
+
+    // "date" and "time" are reserved words in MySQL
+    @Column(name = "wait_date", nullable = false)
+    private LocalDate date;
+
+    // Start time the patient wants, or null for any slot of the day
+    @Column(name = "wait_time")
+    private LocalTime time;
+
+    private int durationMinutes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status = Status.WAITING;
+
+    private LocalDateTime createdAt;
+
+    // The appointment booked for the entry once it is ASSIGNED
+    private Long appointmentId;
+
+    private LocalDateTime assignedAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public WaitlistEntry() {
+    }
+
+    public WaitlistEntry(Long doctorId, Long patientId, LocalDate date, LocalTime time, int durationMinutes) {
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.date = date;
+        this.time = time;
+        this.durationMinutes = durationMinutes;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // --- Getter Methods ---
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public LocalDateTime getAssignedAt() {
+        return assignedAt;
+    }
+
+    // --- State changes ---
+
+    public void assigned(Long appointmentId) {
+        this.appointmentId = appointmentId;
+        this.assignedAt = LocalDateTime.now();
+        this.status = Status.ASSIGNED;
+    }
+
+    public void withdrawn() {
+        this.status = Status.WITHDRAWN;
+    }
+}
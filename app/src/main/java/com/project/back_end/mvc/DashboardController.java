@@ -1,41 +1,63 @@
 package com.project.back_end.mvc;
 
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.project.back_end.service.TokenService; // Adjusted package for service dependency
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.TokenService;
+
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller to handle requests for the main application dashboards (Admin and Doctor).
  * Acts as a security gate by validating an authentication token passed in the path.
+ * The data each dashboard shows first is embedded in the page as JSON ("initialData"),
+ * so the first paint needs no follow-up API calls.
  */
 @Controller
 public class DashboardController {
 
     /**
      * Autowire the service responsible for validating JWT tokens.
-     * The validateToken method is expected to return an empty map if validation succeeds.
      */
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Handles access to the Admin Dashboard.
      * Requires a valid token for the 'admin' role.
      *
      * @param token The authentication token provided by the client.
+     * @param model Receives the embedded doctor list.
      * @return The path to the Thymeleaf view, or a redirect to the login page.
      */
     @GetMapping("/adminDashboard/{token}")
-    public String adminDashboard(@PathVariable String token) {
+    public String adminDashboard(@PathVariable String token, Model model) {
         // Validate the token and ensure it is for the 'admin' role.
-        Map<String, Object> validationResult = tokenService.validateToken(token, "admin");
+        Optional<AuthPrincipal> principal = tokenService.authenticate(token, List.of("admin"));
 
-        if (validationResult.isEmpty()) {
-            // Token is valid; return the admin dashboard view.
+        if (principal.isPresent()) {
+            // Served from the in-memory doctor catalogue; no query
+            model.addAttribute("initialData", toScriptJson(Map.of("doctors", doctorService.filterDoctors(null, null, null))));
             return "admin/adminDashboard";
         } else {
             // Token is invalid, expired, or incorrect role; redirect to the homepage/login.
@@ -49,19 +71,36 @@ public class DashboardController {
      * Requires a valid token for the 'doctor' role.
      *
      * @param token The authentication token provided by the client.
+     * @param model Receives today's date and appointments.
      * @return The path to the Thymeleaf view, or a redirect to the login page.
      */
     @GetMapping("/doctorDashboard/{token}")
-    public String doctorDashboard(@PathVariable String token) {
+    public String doctorDashboard(@PathVariable String token, Model model) {
         // Validate the token and ensure it is for the 'doctor' role.
-        Map<String, Object> validationResult = tokenService.validateToken(token, "doctor");
+        Optional<AuthPrincipal> principal = tokenService.authenticate(token, List.of("doctor"));
 
-        if (validationResult.isEmpty()) {
-            // Token is valid; return the doctor dashboard view.
+        if (principal.isPresent()) {
+            LocalDate today = LocalDate.now();
+            model.addAttribute("initialData", toScriptJson(Map.of(
+                    "date", today,
+                    "appointments", appointmentService.getDoctorDay(principal.get().getId(), today))));
             return "doctor/doctorDashboard";
         } else {
             // Token is invalid, expired, or incorrect role; redirect to the homepage/login.
             return "redirect:http://localhost:8080";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Serializes with the application's ObjectMapper (same shape as the REST API) and escapes
+     * every '<' so the JSON cannot close the surrounding script element. '<' only occurs
+     * inside JSON strings, where < is an equivalent escape.
+     */
+    private String toScriptJson(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data).replace("<", "\\u003c");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize dashboard data", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes many appointments with a single JDBC batch.
+ * Hibernate cannot batch inserts for IDENTITY ids, so bulk booking goes through JdbcTemplate;
+ * together with rewriteBatchedStatements on the MySQL URL this becomes one multi-row INSERT.
+ * Joins the surrounding JPA transaction.
+ */
+@Repository
+public class AppointmentBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO appointment (doctor_id, patient_id, appointment_time, status, duration_minutes) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all appointments in one batch and sets the generated ids on them.
+     *
+     * @param appointments The appointments to insert.
+     */
+    public void insertAll(List<Appointment> appointments) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Appointment appointment = appointments.get(i);
+                        ps.setLong(1, appointment.getDoctor().getId());
+                        ps.setLong(2, appointment.getPatient().getId());
+                        ps.setTimestamp(3, Timestamp.valueOf(appointment.getAppointmentTime()));
+                        ps.setInt(4, appointment.getStatus());
+                        ps.setInt(5, appointment.getDurationMinutes());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return appointments.size();
+                    }
+                }, keys);
+        // One key row per inserted row, in order; the column is named differently per driver
+        List<Map<String, Object>> rows = keys.getKeyList();
+        for (int i = 0; i < rows.size() && i < appointments.size(); i++) {
+            appointments.get(i).setId(((Number) rows.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.project.back_end.repo;
 
-import com.project.back_end.model.Appointment;
+import com.project.back_end.models.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -37,6 +39,22 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
+    /**
+     * Retrieves only the scheduling columns of every appointment held by the given doctors
+     * within a time range. Used to build per-doctor-day overlap indexes with a single query.
+     *
+     * @param doctorIds The IDs of the doctors.
+     * @param start The start of the time range (inclusive).
+     * @param end The end of the time range (inclusive).
+     * @return Rows of [doctorId (Long), appointmentId (Long), appointmentTime (LocalDateTime), durationMinutes (Integer)].
+     */
+    @Query("SELECT a.doctor.id, a.id, a.appointmentTime, a.durationMinutes FROM Appointment a " +
+           "WHERE a.doctor.id IN :doctorIds AND a.appointmentTime BETWEEN :start AND :end")
+    List<Object[]> findScheduleRowsByDoctorIdsAndAppointmentTimeBetween(
+            @Param("doctorIds") Collection<Long> doctorIds,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
     /**
      * Filters appointments by doctor ID, partial patient name (case-insensitive), and time range.
      *
@@ -58,14 +76,50 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // --- Delete Operation (Used in Admin/Doctor management) ---
 
     /**
-     * Deletes all appointments associated with a specific doctor ID.
-     * Requires @Modifying and @Transactional annotations.
+     * Deletes all appointments associated with a specific doctor ID in one set-based statement,
+     * without loading the entities. Requires @Modifying and @Transactional annotations.
      *
      * @param doctorId The ID of the doctor whose appointments should be deleted.
+     * @return The number of rows deleted.
      */
     @Modifying
     @Transactional
-    void deleteAllByDoctorId(Long doctorId);
+    @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+
+    /**
+     * Deletes the given appointments in one statement, without loading them.
+     *
+     * @param ids The IDs of the appointments.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Pages through the IDs of a doctor's appointments in ID order, resuming after the last ID seen.
+     *
+     * @param doctorId The ID of the doctor.
+     * @param afterId The last ID of the previous page, or 0.
+     * @return The next IDs, as many as the page allows.
+     */
+    @Query("SELECT a.id FROM Appointment a WHERE a.doctor.id = :doctorId AND a.id > :afterId ORDER BY a.id")
+    List<Long> findIdsByDoctorId(@Param("doctorId") Long doctorId, @Param("afterId") Long afterId, Pageable page);
+
+    long countByDoctorId(Long doctorId);
+
+    // --- Utilization counters ---
+
+    /**
+     * Aggregates every appointment by doctor and calendar day, for rebuilding the utilization counters.
+     *
+     * @return Rows of [doctorId (Long), day (LocalDate), appointments (Long),
+     *         appointments with a duration (Long), sum of durations (Long, null if none)].
+     */
+    @Query("SELECT a.doctor.id, EXTRACT(DATE FROM a.appointmentTime), COUNT(a), COUNT(a.durationMinutes), SUM(a.durationMinutes) " +
+           "FROM Appointment a GROUP BY a.doctor.id, EXTRACT(DATE FROM a.appointmentTime)")
+    List<Object[]> countBookingsByDoctorAndDay();
 
     // --- Queries for Patient Dashboard (Filtering by patient) ---
 
@@ -86,6 +140,81 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
      */
     List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
 
+    /**
+     * Retrieves a patient's appointments that start before a moment, most recent first.
+     * A range scan on (patient_id, appointment_time) rather than a match on the status column.
+     *
+     * @param patientId The ID of the patient.
+     * @param time The boundary, usually now (exclusive).
+     * @return The past appointments with doctor and patient loaded.
+     */
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient p " +
+           "WHERE p.id = :patientId AND a.appointmentTime < :time ORDER BY a.appointmentTime DESC")
+    List<Appointment> findPastByPatientId(@Param("patientId") Long patientId, @Param("time") LocalDateTime time);
+
+    /**
+     * Retrieves a patient's appointments that start at or after a moment, soonest first.
+     *
+     * @param patientId The ID of the patient.
+     * @param time The boundary, usually now (inclusive).
+     * @return The upcoming appointments with doctor and patient loaded.
+     */
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient p " +
+           "WHERE p.id = :patientId AND a.appointmentTime >= :time ORDER BY a.appointmentTime")
+    List<Appointment> findUpcomingByPatientId(@Param("patientId") Long patientId, @Param("time") LocalDateTime time);
+
+    /**
+     * Past appointments of a patient with a doctor whose name contains the given text (case-insensitive).
+     */
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor d JOIN FETCH a.patient p " +
+           "WHERE p.id = :patientId AND a.appointmentTime < :time " +
+           "AND LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) ORDER BY a.appointmentTime DESC")
+    List<Appointment> findPastByPatientIdAndDoctorName(
+            @Param("patientId") Long patientId,
+            @Param("doctorName") String doctorName,
+            @Param("time") LocalDateTime time);
+
+    /**
+     * Upcoming appointments of a patient with a doctor whose name contains the given text (case-insensitive).
+     */
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor d JOIN FETCH a.patient p " +
+           "WHERE p.id = :patientId AND a.appointmentTime >= :time " +
+           "AND LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) ORDER BY a.appointmentTime")
+    List<Appointment> findUpcomingByPatientIdAndDoctorName(
+            @Param("patientId") Long patientId,
+            @Param("doctorName") String doctorName,
+            @Param("time") LocalDateTime time);
+
+    // --- Status transitions (AppointmentStatusJob) ---
+
+    /**
+     * Pages through appointments in a status that started before a moment, in (appointmentTime, id) order,
+     * resuming after the last row of the previous page. Served from the (status, appointment_time,
+     * duration_minutes) index alone.
+     *
+     * @return Rows of [id (Long), appointmentTime (LocalDateTime), durationMinutes (Integer)].
+     */
+    @Query("SELECT a.id, a.appointmentTime, a.durationMinutes FROM Appointment a " +
+           "WHERE a.status = :status AND a.appointmentTime < :before " +
+           "AND (a.appointmentTime > :afterTime OR (a.appointmentTime = :afterTime AND a.id > :afterId)) " +
+           "ORDER BY a.appointmentTime, a.id")
+    List<Object[]> findStatusRowsStartedBefore(
+            @Param("status") int status,
+            @Param("before") LocalDateTime before,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Pageable page);
+
+    /**
+     * Moves the given appointments from one status to another in a single statement.
+     * Rows no longer in the expected status are left alone, so concurrent runs are harmless.
+     *
+     * @return The number of rows changed.
+     */
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to, a.version = a.version + 1 WHERE a.id IN :ids AND a.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") int from, @Param("to") int to);
+
     /**
      * Filters appointments by partial doctor name (case-insensitive) and patient ID.
      *
@@ -0,0 +1,68 @@
+package com.project.back_end.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+/**
+ * Streams the reporting columns of every appointment with plain JDBC, for building the
+ * in-memory reporting snapshot. With MySQL Connector/J a fetch size of Integer.MIN_VALUE
+ * streams rows one by one instead of buffering the whole result in the driver.
+ */
+@Repository
+public class AppointmentSnapshotRepository {
+
+    private static final String SCAN_SQL =
+            "SELECT doctor_id, patient_id, appointment_time, status, id, duration_minutes FROM appointment";
+
+    private static final String SCHEDULE_SQL =
+            "SELECT doctor_id, appointment_time, duration_minutes FROM appointment"
+                    + " WHERE appointment_time >= ? AND appointment_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentSnapshotRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Passes every appointment row to the handler, in no particular order.
+     *
+     * @param fetchSize The JDBC fetch size; Integer.MIN_VALUE for MySQL row streaming.
+     * @param handler Receives rows of (doctor_id, patient_id, appointment_time, status, id, duration_minutes).
+     */
+    public void scan(int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SCAN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, handler);
+    }
+
+    /**
+     * Passes the booked time of every appointment starting in [from, until) to the handler.
+     *
+     * @param doctorId Restricts the scan to one doctor; null for all doctors.
+     * @param handler Receives rows of (doctor_id, appointment_time, duration_minutes).
+     */
+    public void scanSchedule(LocalDateTime from, LocalDateTime until, Long doctorId, int fetchSize,
+                             RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    doctorId == null ? SCHEDULE_SQL : SCHEDULE_SQL + " AND doctor_id = ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, from);
+            statement.setObject(2, until);
+            if (doctorId != null) {
+                statement.setLong(3, doctorId);
+            }
+            return statement;
+        }, handler);
+    }
+}
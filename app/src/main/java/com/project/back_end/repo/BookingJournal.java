@@ -0,0 +1,450 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of appointment events in fixed-size binary records on memory-mapped
+ * segment files (clinic.journal.dir/journal-NNNNNNNN.log, clinic.journal.segment-bytes each).
+ *
+ * A record's offset is its sequence number, so readers can tail the journal by remembering the
+ * offset returned by {@link #replay}. Appending writes primitives straight into the mapping and
+ * allocates nothing; pages are flushed every clinic.journal.force-interval-ms and on shutdown.
+ *
+ * Events are appended after the database change they describe has committed. With
+ * clinic.journal.warm-caches on, every startup writes a fresh baseline (one BASELINE record per
+ * booked appointment) and consumers replay from it: after a clean stop, marked by a SHUTDOWN
+ * record, the baseline is folded from the previous baseline and the events since; otherwise the
+ * tail cannot be trusted and it is read from the database. Segments holding only records before
+ * the new baseline are then deleted, so the journal stays about the size of one baseline plus one
+ * run's events. With warm-caches off nothing replays a baseline, so none is written and startup
+ * only drops the previous runs' segments.
+ *
+ * The journal is local to the instance, which is why clinic.journal.warm-caches is off by default:
+ * with several instances writing to one database, caches must load from the database.
+ */
+@Repository
+public class BookingJournal {
+
+    public static final byte BOOKED = 1;
+    public static final byte RESCHEDULED = 2;
+    public static final byte CANCELLED = 3;
+    public static final byte DOCTOR_DELETED = 4;
+    public static final byte BASELINE_BEGIN = 5;
+    public static final byte BASELINE = 6;
+    public static final byte BASELINE_END = 7;
+    public static final byte SHUTDOWN = 8;
+
+    static final int RECORD_BYTES = 64;
+    // Record layout; the checksum is written last so a torn record is detected on recovery
+    private static final int TYPE = 0;
+    private static final int STATUS = 1;
+    private static final int EPOCH_MINUTE = 4;
+    private static final int APPOINTMENT_ID = 8;
+    private static final int DOCTOR_ID = 16;
+    private static final int PATIENT_ID = 24;
+    private static final int DURATION = 32;
+    private static final int PREVIOUS_EPOCH_MINUTE = 36;
+    private static final int PREVIOUS_DOCTOR_ID = 40;
+    private static final int PREVIOUS_DURATION = 48;
+    private static final int CHECKSUM = 52;
+    private static final int WRITTEN_AT = 56;
+
+    private static final Logger log = LoggerFactory.getLogger(BookingJournal.class);
+
+    private final AppointmentSnapshotRepository snapshotRepository;
+    private final boolean enabled;
+    private final boolean warmCaches;
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final int fetchSize;
+
+    // Segments from firstSegment on; dropping a deleted segment's buffer lets it be unmapped
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int firstSegment;
+    private MappedByteBuffer tail;
+    // Offset of the next record; readers see every record below it
+    private volatile long end;
+    private volatile long baselineOffset = -1;
+    private volatile boolean dirty;
+
+    public BookingJournal(AppointmentSnapshotRepository snapshotRepository,
+                          @Value("${clinic.journal.enabled:true}") boolean enabled,
+                          @Value("${clinic.journal.warm-caches:false}") boolean warmCaches,
+                          @Value("${clinic.journal.dir:journal}") String dir,
+                          @Value("${clinic.journal.segment-bytes:67108864}") int segmentBytes,
+                          @Value("${clinic.snapshot.fetch-size:-2147483648}") int fetchSize) {
+        this.snapshotRepository = snapshotRepository;
+        this.enabled = enabled;
+        this.warmCaches = warmCaches;
+        this.dir = Path.of(dir);
+        this.recordsPerSegment = Math.max(1, segmentBytes / RECORD_BYTES);
+        this.fetchSize = fetchSize;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        firstSegment = firstSegmentIndex();
+        for (int index = firstSegment; Files.exists(segmentPath(index)); index++) {
+            segments.add(map(index));
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(firstSegment));
+        }
+        tail = segments.get(segments.size() - 1);
+        int position = 0;
+        while (position < recordsPerSegment && isValid(tail, position * RECORD_BYTES)) {
+            position++;
+        }
+        end = (long) (firstSegment + segments.size() - 1) * recordsPerSegment + position;
+
+        Path baselineFile = dir.resolve("baseline");
+        long records = end - (long) firstSegment * recordsPerSegment;
+        if (!warmCaches) {
+            // The next startup with warm-caches on must not trust a baseline older than these events
+            Files.deleteIfExists(baselineFile);
+            int deleted = deleteSegmentsBefore(end);
+            log.info("Booking journal at {} held {} records; {} segments deleted, no baseline written", dir, records, deleted);
+            return;
+        }
+        long previousBaseline = Files.exists(baselineFile) ? Long.parseLong(Files.readString(baselineFile).trim()) : -1;
+        boolean clean = end > 0 && typeAt(end - 1) == SHUTDOWN
+                && previousBaseline >= (long) firstSegment * recordsPerSegment && previousBaseline < end;
+        if (clean) {
+            writeBaseline(previousBaseline);
+        } else {
+            writeBaseline();
+        }
+        Path written = dir.resolve("baseline.tmp");
+        Files.writeString(written, Long.toString(baselineOffset));
+        Files.move(written, baselineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        int deleted = deleteSegmentsBefore(baselineOffset);
+        log.info("Booking journal at {} held {} records; baseline rewritten at {} from the {}, {} segments deleted",
+                dir, records, baselineOffset, clean ? "journal" : "database after an unclean stop", deleted);
+    }
+
+    /**
+     * True when consumers may rebuild their state by replaying from {@link #baselineOffset()}.
+     */
+    public boolean canWarmCaches() {
+        return enabled && warmCaches && baselineOffset >= 0;
+    }
+
+    public long baselineOffset() {
+        return baselineOffset;
+    }
+
+    public long endOffset() {
+        return end;
+    }
+
+    public void booked(Appointment appointment) {
+        append(BOOKED, appointment, null);
+    }
+
+    public void rescheduled(Appointment before, Appointment after) {
+        append(RESCHEDULED, after, before);
+    }
+
+    public void cancelled(Appointment appointment) {
+        append(CANCELLED, appointment, null);
+    }
+
+    public void doctorDeleted(Long doctorId) {
+        if (enabled) {
+            write(DOCTOR_DELETED, 0, 0, doctorId, 0, 0, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Passes every record from {@code fromOffset} up to the current end to the visitor, in order.
+     * The record handed over is a view that is only valid during the call.
+     *
+     * @return The offset to pass next time to continue tailing.
+     */
+    public long replay(long fromOffset, Visitor visitor) {
+        long until = end;
+        JournalRecord record = new JournalRecord();
+        long first;
+        synchronized (this) {
+            first = (long) firstSegment * recordsPerSegment;
+        }
+        for (long offset = Math.max(first, fromOffset); offset < until; offset++) {
+            int position = (int) (offset % recordsPerSegment);
+            if (record.buffer == null || position == 0) {
+                record.buffer = segment(offset);
+            }
+            record.base = position * RECORD_BYTES;
+            record.offset = offset;
+            visitor.accept(record);
+        }
+        return until;
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(JournalRecord record);
+    }
+
+    /**
+     * Read-only view of one record, reused across a replay.
+     */
+    public static final class JournalRecord {
+        private MappedByteBuffer buffer;
+        private int base;
+        private long offset;
+
+        public long offset() { return offset; }
+        public byte type() { return buffer.get(base + TYPE); }
+        public int status() { return buffer.get(base + STATUS); }
+        public long appointmentId() { return buffer.getLong(base + APPOINTMENT_ID); }
+        public long doctorId() { return buffer.getLong(base + DOCTOR_ID); }
+        public long patientId() { return buffer.getLong(base + PATIENT_ID); }
+        public int epochMinute() { return buffer.getInt(base + EPOCH_MINUTE); }
+        public int durationMinutes() { return buffer.getInt(base + DURATION); }
+        public long previousDoctorId() { return buffer.getLong(base + PREVIOUS_DOCTOR_ID); }
+        public int previousEpochMinute() { return buffer.getInt(base + PREVIOUS_EPOCH_MINUTE); }
+        public int previousDurationMinutes() { return buffer.getInt(base + PREVIOUS_DURATION); }
+        public long writtenAtMillis() { return buffer.getLong(base + WRITTEN_AT); }
+    }
+
+    /**
+     * Minutes since the epoch, as stored in a record's int fields. The booking horizon keeps
+     * appointments far inside that range (which ends in year 6053); beyond it values saturate
+     * rather than wrap around.
+     */
+    public static int epochMinute(LocalDateTime time) {
+        long minutes = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60L);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, minutes));
+    }
+
+    public static LocalDateTime timeOf(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    @Scheduled(fixedDelayString = "${clinic.journal.force-interval-ms:1000}")
+    public void flush() {
+        if (dirty) {
+            dirty = false;
+            synchronized (this) {
+                tail.force();
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (enabled && tail != null) {
+            write(SHUTDOWN, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    private void append(byte type, Appointment current, Appointment previous) {
+        if (!enabled || current.getId() == null || current.getDoctor() == null || current.getAppointmentTime() == null) {
+            return;
+        }
+        long previousDoctor = 0;
+        int previousMinute = 0;
+        int previousDuration = 0;
+        if (previous != null && previous.getDoctor() != null && previous.getAppointmentTime() != null) {
+            previousDoctor = previous.getDoctor().getId();
+            previousMinute = epochMinute(previous.getAppointmentTime());
+            previousDuration = previous.getDurationMinutes();
+        }
+        write(type, current.getStatus(), current.getId(), current.getDoctor().getId(),
+                current.getPatient() != null ? current.getPatient().getId() : 0,
+                epochMinute(current.getAppointmentTime()), current.getDurationMinutes(),
+                previousDoctor, previousMinute, previousDuration);
+    }
+
+    private synchronized void write(byte type, int status, long appointmentId, long doctorId, long patientId,
+                                    int epochMinute, int duration, long previousDoctorId, int previousEpochMinute,
+                                    int previousDuration) {
+        long offset = end;
+        int position = (int) (offset % recordsPerSegment);
+        if (position == 0 && offset > 0 && offset / recordsPerSegment == firstSegment + segments.size()) {
+            tail.force();
+            try {
+                tail = map(firstSegment + segments.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not extend the booking journal", e);
+            }
+            segments.add(tail);
+        }
+        int base = position * RECORD_BYTES;
+        long writtenAt = System.currentTimeMillis();
+        tail.put(base + TYPE, type);
+        tail.put(base + STATUS, (byte) status);
+        tail.putInt(base + EPOCH_MINUTE, epochMinute);
+        tail.putLong(base + APPOINTMENT_ID, appointmentId);
+        tail.putLong(base + DOCTOR_ID, doctorId);
+        tail.putLong(base + PATIENT_ID, patientId);
+        tail.putInt(base + DURATION, duration);
+        tail.putInt(base + PREVIOUS_EPOCH_MINUTE, previousEpochMinute);
+        tail.putLong(base + PREVIOUS_DOCTOR_ID, previousDoctorId);
+        tail.putInt(base + PREVIOUS_DURATION, previousDuration);
+        tail.putLong(base + WRITTEN_AT, writtenAt);
+        tail.putInt(base + CHECKSUM, checksum(tail, base));
+        end = offset + 1;
+        dirty = true;
+    }
+
+    /**
+     * Writes the appointments booked as of the end of the journal: the baseline at {@code from} with
+     * the later events applied. Only the events are held in memory, as the last state of each
+     * appointment they touch ({doctorId, patientId, epochMinute, duration, status}, or null once
+     * cancelled); the previous baseline is copied straight through, skipping the appointments the
+     * events changed and those of deleted doctors.
+     */
+    private void writeBaseline(long from) {
+        Map<Long, long[]> changed = new LinkedHashMap<>();
+        Set<Long> deletedDoctors = new HashSet<>();
+        replay(from, record -> {
+            switch (record.type()) {
+                case BOOKED, RESCHEDULED -> changed.put(record.appointmentId(), new long[]{record.doctorId(),
+                        record.patientId(), record.epochMinute(), record.durationMinutes(), record.status()});
+                case CANCELLED -> changed.put(record.appointmentId(), null);
+                case DOCTOR_DELETED -> {
+                    deletedDoctors.add(record.doctorId());
+                    changed.replaceAll((id, appointment) ->
+                            appointment != null && appointment[0] == record.doctorId() ? null : appointment);
+                }
+                default -> { }
+            }
+        });
+
+        long begin = end;
+        write(BASELINE_BEGIN, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        long[] rows = {0};
+        replay(from, record -> {
+            if (record.type() == BASELINE && !changed.containsKey(record.appointmentId())
+                    && !deletedDoctors.contains(record.doctorId())) {
+                write(BASELINE, record.status(), record.appointmentId(), record.doctorId(), record.patientId(),
+                        record.epochMinute(), record.durationMinutes(), 0, 0, 0);
+                rows[0]++;
+            }
+        });
+        for (Map.Entry<Long, long[]> entry : changed.entrySet()) {
+            long[] appointment = entry.getValue();
+            if (appointment != null) {
+                write(BASELINE, (int) appointment[4], entry.getKey(), appointment[0], appointment[1],
+                        (int) appointment[2], (int) appointment[3], 0, 0, 0);
+                rows[0]++;
+            }
+        }
+        write(BASELINE_END, 0, rows[0], 0, 0, 0, 0, 0, 0, 0);
+        tail.force();
+        baselineOffset = begin;
+    }
+
+    private void writeBaseline() {
+        long begin = end;
+        write(BASELINE_BEGIN, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        long[] rows = {0};
+        snapshotRepository.scan(fetchSize, rs -> {
+            write(BASELINE, rs.getInt(4), rs.getLong(5), rs.getLong(1), rs.getLong(2),
+                    epochMinute(rs.getObject(3, LocalDateTime.class)),
+                    rs.getObject(6) != null ? rs.getInt(6) : Appointment.DEFAULT_DURATION_MINUTES, 0, 0, 0);
+            rows[0]++;
+        });
+        write(BASELINE_END, 0, rows[0], 0, 0, 0, 0, 0, 0, 0);
+        tail.force();
+        baselineOffset = begin;
+    }
+
+    /**
+     * Deletes the segments holding only records before {@code offset}, oldest first so that the
+     * remaining files stay contiguous if this is interrupted.
+     */
+    private synchronized int deleteSegmentsBefore(long offset) throws IOException {
+        int keepFrom = (int) (offset / recordsPerSegment);
+        int deleted = 0;
+        while (firstSegment < keepFrom) {
+            segments.remove(0);
+            Files.delete(segmentPath(firstSegment));
+            firstSegment++;
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private int firstSegmentIndex() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("journal-\\d{8}\\.log"))
+                    .mapToInt(name -> Integer.parseInt(name.substring(8, 16)))
+                    .min().orElse(0);
+        }
+    }
+
+    private boolean isValid(MappedByteBuffer buffer, int base) {
+        return buffer.get(base + TYPE) != 0 && buffer.getInt(base + CHECKSUM) == checksum(buffer, base);
+    }
+
+    private byte typeAt(long offset) {
+        return segment(offset).get((int) (offset % recordsPerSegment) * RECORD_BYTES + TYPE);
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        int index = (int) (offset / recordsPerSegment);
+        synchronized (this) {
+            return segments.get(index - firstSegment);
+        }
+    }
+
+    // Mixes every field except the checksum itself; cheap, allocation-free, and enough to spot torn writes
+    private static int checksum(MappedByteBuffer buffer, int base) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int field = 0; field < RECORD_BYTES; field += 8) {
+            long word = buffer.getLong(base + field);
+            if (field == PREVIOUS_DURATION) {
+                word &= 0xFFFFFFFF00000000L; // big-endian: the low half of this word is the checksum
+            }
+            hash = (hash ^ word) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private Path segmentPath(int index) {
+        return dir.resolve(String.format("journal-%08d.log", index));
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.back_end.repo;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The cache_change table: an append-only list of small deltas (what changed, not the new state)
+ * that every instance polls to keep its in-process caches coherent with the others. Lives in the
+ * application database so no other infrastructure is needed; created on startup if missing.
+ */
+@Repository
+public class CacheChangeRepository {
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS cache_change ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "origin BIGINT NOT NULL, "
+            + "kind TINYINT NOT NULL, "
+            + "doctor_id BIGINT, "
+            + "appointment_id BIGINT, "
+            + "starts_at DATETIME, "
+            + "minutes INT, "
+            + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_change (origin, kind, doctor_id, appointment_id, starts_at, minutes) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String COLUMNS = "SELECT id, origin, kind, doctor_id, appointment_id, starts_at, minutes FROM cache_change";
+
+    /**
+     * One row of the table.
+     */
+    public record Change(long id, long origin, int kind, Long doctorId, Long appointmentId, LocalDateTime startsAt,
+                         Integer minutes) {
+    }
+
+    private static final RowMapper<Change> MAPPER = (rs, rowNum) -> new Change(
+            rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getObject(4, Long.class), rs.getObject(5, Long.class),
+            rs.getObject(6, LocalDateTime.class), rs.getObject(7, Integer.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CacheChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_SQL);
+    }
+
+    /**
+     * Appends changes in one batch; joins the surrounding transaction, if any.
+     */
+    public void append(List<Change> changes) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setLong(1, change.origin());
+            ps.setInt(2, change.kind());
+            ps.setObject(3, change.doctorId());
+            ps.setObject(4, change.appointmentId());
+            ps.setObject(5, change.startsAt() != null ? Timestamp.valueOf(change.startsAt()) : null);
+            ps.setObject(6, change.minutes());
+        });
+    }
+
+    /**
+     * Returns up to limit changes with an id above afterId, in id order.
+     */
+    public List<Change> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query(COLUMNS + " WHERE id > ? ORDER BY id LIMIT ?", MAPPER, afterId, limit);
+    }
+
+    /**
+     * Returns the changes with the given ids that exist, in id order.
+     */
+    public List<Change> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(COLUMNS + " WHERE id IN (" + placeholders + ") ORDER BY id", MAPPER, ids.toArray());
+    }
+
+    public long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cache_change", Long.class);
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Deletes changes older than the cutoff, by the database clock.
+     *
+     * @return The number of rows deleted.
+     */
+    public int deleteOlderThanSeconds(long seconds) {
+        return jdbcTemplate.update("DELETE FROM cache_change WHERE created_at < TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP)",
+                -seconds);
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.models.DoctorDeletionJob.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DoctorDeletionJobRepository extends JpaRepository<DoctorDeletionJob, String> {
+
+    Optional<DoctorDeletionJob> findFirstByDoctorIdAndStatusIn(Long doctorId, Collection<Status> statuses);
+
+    List<DoctorDeletionJob> findByStatusInOrderByCreatedAtAsc(Collection<Status> statuses);
+
+    /**
+     * Gives the job to a worker if no other worker holds an unexpired lease on it. The holder keeps
+     * the lease by renewing it with every chunk; a worker that stops renewing, e.g. because its
+     * instance died, loses the job to the next one that claims it.
+     *
+     * @return 1 if claimed, 0 if finished or leased to another worker.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DoctorDeletionJob j SET j.owner = :owner, j.leaseUntil = :leaseUntil WHERE j.jobId = :jobId " +
+           "AND j.status IN :active AND (j.owner IS NULL OR j.leaseUntil < :now)")
+    int claim(@Param("jobId") String jobId, @Param("owner") String owner, @Param("active") Collection<Status> active,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Moves a pending job to RUNNING with the number of appointments to delete; a job already
+     * running, i.e. being resumed, keeps its count.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DoctorDeletionJob j SET j.status = com.project.back_end.models.DoctorDeletionJob.Status.RUNNING, " +
+           "j.totalAppointments = :total WHERE j.jobId = :jobId " +
+           "AND j.status = com.project.back_end.models.DoctorDeletionJob.Status.PENDING")
+    int started(@Param("jobId") String jobId, @Param("total") long total);
+
+    /**
+     * Adds a deleted chunk to the job's progress and renews the owner's lease. Call it in the
+     * transaction that deleted the chunk, so the cursor never runs ahead of the database.
+     *
+     * @return 1, or 0 if the owner has lost the job; the chunk must then be rolled back.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DoctorDeletionJob j SET j.appointmentsDeleted = j.appointmentsDeleted + :appointments, " +
+           "j.prescriptionsDeleted = j.prescriptionsDeleted + :prescriptions, " +
+           "j.lastAppointmentId = GREATEST(j.lastAppointmentId, :lastId), j.leaseUntil = :leaseUntil " +
+           "WHERE j.jobId = :jobId AND j.owner = :owner")
+    int chunkDeleted(@Param("jobId") String jobId, @Param("owner") String owner, @Param("appointments") long appointments,
+                     @Param("prescriptions") long prescriptions, @Param("lastId") long lastId,
+                     @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * @return 1, or 0 if the owner has lost the job.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DoctorDeletionJob j SET j.status = :status, j.error = :error, j.finishedAt = :finishedAt " +
+           "WHERE j.jobId = :jobId AND j.owner = :owner")
+    int finished(@Param("jobId") String jobId, @Param("owner") String owner, @Param("status") Status status,
+                 @Param("error") String error, @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DoctorDeletionJob j WHERE j.finishedAt < :before")
+    int deleteByFinishedAtBefore(@Param("before") LocalDateTime before);
+}
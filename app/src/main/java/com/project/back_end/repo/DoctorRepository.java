@@ -1,11 +1,15 @@
 package com.project.back_end.repo;
 
-import com.project.back_end.model.Doctor;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorDeletionJob;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -59,4 +63,53 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
      * @return A list of matching Doctor entities.
      */
     List<Doctor> findBySpecialtyIgnoreCase(String specialty);
+
+    /**
+     * Loads every doctor together with their available time slots in a single query.
+     * Used to build the in-memory filter catalogue without one extra query per doctor.
+     *
+     * @return All Doctor entities with availableTimes initialised.
+     */
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.availableTimes")
+    List<Doctor> findAllWithAvailableTimes();
+
+    /**
+     * Loads one doctor together with their available time slots, for refreshing the catalogue entry.
+     *
+     * @param id The ID of the doctor.
+     * @return An Optional containing the Doctor with availableTimes initialised, if found.
+     */
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.availableTimes WHERE d.id = :id")
+    Optional<Doctor> findByIdWithAvailableTimes(@Param("id") Long id);
+
+    /**
+     * Reads a doctor with SELECT ... FOR UPDATE, serializing bookings of that doctor until the
+     * current transaction ends. Must run inside a transaction.
+     *
+     * @param id The ID of the doctor.
+     * @return An Optional containing the locked Doctor, if found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id")
+    Optional<Doctor> lockById(@Param("id") Long id);
+
+    /**
+     * Like {@link #lockById}, but only for a doctor that may take bookings: one with no
+     * deletion queued or running. A deletion's last step locks the row as well, so a booking
+     * either commits before it, and is deleted with the doctor, or finds the doctor gone.
+     *
+     * @param id The ID of the doctor.
+     * @return An Optional containing the locked Doctor, if found and not being deleted.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id AND NOT EXISTS (SELECT j FROM DoctorDeletionJob j " +
+           "WHERE j.doctorId = d.id AND j.status IN :active)")
+    Optional<Doctor> lockBookableById(@Param("id") Long id, @Param("active") Collection<DoctorDeletionJob.Status> active);
+
+    /**
+     * Reads a doctor that may take bookings, without locking it; see {@link #lockBookableById}.
+     */
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id AND NOT EXISTS (SELECT j FROM DoctorDeletionJob j " +
+           "WHERE j.doctorId = d.id AND j.status IN :active)")
+    Optional<Doctor> findBookableById(@Param("id") Long id, @Param("active") Collection<DoctorDeletionJob.Status> active);
 }
@@ -0,0 +1,49 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Prescription;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking repository for Prescription documents stored in MongoDB.
+ * Used by the prescription API so that slow Mongo round trips never hold a request thread.
+ */
+@Repository
+public interface ReactivePrescriptionRepository extends ReactiveMongoRepository<Prescription, String> {
+
+    /**
+     * Streams the prescriptions associated with a specific appointment ID.
+     *
+     * @param appointmentId The ID of the appointment.
+     * @return A Flux of matching Prescription documents.
+     */
+    Flux<Prescription> findByAppointmentId(Long appointmentId);
+
+    /**
+     * Streams the prescriptions of several appointments with a single query.
+     *
+     * @param appointmentIds The IDs of the appointments.
+     * @return A Flux of matching Prescription documents.
+     */
+    Flux<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
+
+    /**
+     * Checks whether a prescription already exists for an appointment.
+     *
+     * @param appointmentId The ID of the appointment.
+     * @return A Mono emitting true if one exists.
+     */
+    Mono<Boolean> existsByAppointmentId(Long appointmentId);
+
+    /**
+     * Deletes the prescriptions of several appointments with a single command.
+     *
+     * @param appointmentIds The IDs of the appointments.
+     * @return A Mono emitting the number of documents removed.
+     */
+    Mono<Long> deleteByAppointmentIdIn(Collection<Long> appointmentIds);
+}
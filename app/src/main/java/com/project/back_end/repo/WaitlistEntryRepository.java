@@ -0,0 +1,55 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.WaitlistEntry;
+import com.project.back_end.models.WaitlistEntry.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Locks the waiting entries of a doctor's day, oldest first, until the transaction ends.
+     * Entries another transaction holds (being withdrawn or claimed) are skipped, not waited for.
+     */
+    @Query(value = "SELECT * FROM waitlist_entry WHERE doctor_id = :doctorId AND wait_date = :date " +
+                   "AND status = 'WAITING' ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WaitlistEntry> lockWaiting(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    long countByDoctorIdAndDateAndStatus(Long doctorId, LocalDate date, Status status);
+
+    long countByPatientIdAndStatus(Long patientId, Status status);
+
+    boolean existsByDoctorIdAndPatientIdAndDateAndStatus(Long doctorId, Long patientId, LocalDate date, Status status);
+
+    List<WaitlistEntry> findByPatientIdOrderByIdAsc(Long patientId);
+
+    /**
+     * Withdraws a waiting entry of the patient. Waits for a hand-over holding the entry, and then
+     * finds it no longer waiting.
+     *
+     * @return 1 if withdrawn, 0 otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry e SET e.status = com.project.back_end.models.WaitlistEntry.Status.WITHDRAWN " +
+           "WHERE e.id = :id AND e.patientId = :patientId AND e.status = com.project.back_end.models.WaitlistEntry.Status.WAITING")
+    int withdraw(@Param("id") Long id, @Param("patientId") Long patientId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WaitlistEntry e WHERE e.doctorId = :doctorId")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WaitlistEntry e WHERE e.date < :date")
+    int deleteByDateBefore(@Param("date") LocalDate date);
+}
@@ -3,13 +3,27 @@ package com.project.back_end.services;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Patient;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.WaitlistEntry;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.PatientRepository;
 import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.BookingJournal;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.BatchBooking;
+import com.project.back_end.DTO.WaitlistRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,6 +32,15 @@ import java.util.*;
 
 @Service
 public class AppointmentService {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+    private static final int MAX_BATCH_SIZE = 52;
+    // What a patient may change on an existing appointment; whose it is and its status are not theirs to edit
+    private static final EditableFields<Appointment> EDITABLE = new EditableFields<Appointment>(Appointment::new)
+            .reference("doctor", Appointment::getDoctor, Appointment::setDoctor, Doctor::getId)
+            .field("appointmentTime", Appointment::getAppointmentTime, Appointment::setAppointmentTime)
+            .field("durationMinutes", a -> a.hasDurationMinutes() ? a.getDurationMinutes() : null,
+                    Appointment::setDurationMinutes);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
     @Autowired
@@ -26,35 +49,283 @@ public class AppointmentService {
     private DoctorRepository doctorRepository;
     @Autowired
     private TokenService tokenService;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorScheduleIndex doctorScheduleIndex;
+    @Autowired
+    private AppointmentBatchRepository appointmentBatchRepository;
+    @Autowired
+    private UtilizationCounters utilizationCounters;
+    @Autowired
+    private BookingJournal bookingJournal;
+    @Autowired
+    private ScheduleHorizon scheduleHorizon;
+    @Autowired
+    private CacheChangeLog cacheChangeLog;
+    @Autowired
+    private Waitlist waitlist;
+    @Autowired
+    private SlotGrid slotGrid;
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
+    /**
+     * Books one appointment. The slot is re-checked against the database with the doctor's row
+     * locked, so two instances (or threads) cannot both take it.
+     *
+     * @return 1 if booked, 0 if the slot or the doctor is no longer available, -1 on error.
+     */
     public int bookAppointment(Appointment appointment) {
         try {
-            appointmentRepository.save(appointment);
+            Appointment saved = transactionTemplate.execute(status -> {
+                Optional<Doctor> doctor = doctorService.lockSchedule(appointment.getDoctor().getId());
+                if (!doctor.isPresent() || !doctorService.isSlotBookable(doctor.get(), appointment)) {
+                    return null;
+                }
+                // The request names the doctor by id only; a detached copy without its version cannot be saved
+                appointment.setDoctor(doctor.get());
+                Appointment booked = appointmentRepository.save(appointment);
+                // Same transaction, so other instances see the change row exactly when the booking commits
+                cacheChangeLog.booked(List.of(booked));
+                return booked;
+            });
+            if (saved == null) {
+                return 0;
+            }
+            doctorScheduleIndex.add(saved);
+            scheduleHorizon.add(saved);
+            utilizationCounters.add(saved);
+            bookingJournal.booked(saved);
             return 1;
         } catch (Exception e) {
-            return 0;
+            return -1;
         }
     }
 
-    public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment) {
-        Map<String, String> response = new HashMap<>();
-        Optional<Appointment> existing = appointmentRepository.findById(appointment.getId());
-        if (!existing.isPresent()) {
-            response.put("message", "Appointment not found");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    /**
+     * Books a list (or recurrence) of appointments atomically: the doctors involved are locked,
+     * every item is validated in one pass against their stored schedules and against the other
+     * items, and either all rows are inserted with a single JDBC batch or none are. The response
+     * carries a result per item.
+     */
+    @Transactional
+    public ResponseEntity<Map<String, Object>> bookAppointments(BatchBooking batch) {
+        Map<String, Object> response = new HashMap<>();
+        List<Appointment> appointments = expand(batch);
+        if (appointments.isEmpty() || appointments.size() > MAX_BATCH_SIZE) {
+            response.put("message", "A batch must contain between 1 and " + MAX_BATCH_SIZE + " appointments");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        // Add validation logic here if needed
-        try {
-            appointmentRepository.save(appointment);
-            response.put("message", "Appointment updated successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            response.put("message", "Failed to update appointment");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+
+        Set<Long> doctorIds = new HashSet<>();
+        LocalDate firstDay = null;
+        LocalDate lastDay = null;
+        for (Appointment appointment : appointments) {
+            if (appointment.getDoctor() != null && appointment.getDoctor().getId() != null) {
+                doctorIds.add(appointment.getDoctor().getId());
+            }
+            if (appointment.getAppointmentTime() != null) {
+                LocalDate day = appointment.getAppointmentDate();
+                firstDay = firstDay == null || day.isBefore(firstDay) ? day : firstDay;
+                lastDay = lastDay == null || day.isAfter(lastDay) ? day : lastDay;
+            }
+        }
+        // Locked in id order, so two batches sharing doctors cannot deadlock; the schedules read
+        // below then stay as they are until this transaction commits
+        Map<Long, Doctor> doctors = new HashMap<>();
+        for (Long doctorId : new TreeSet<>(doctorIds)) {
+            doctorService.lockSchedule(doctorId).ifPresent(doctor -> doctors.put(doctor.getId(), doctor));
+        }
+        if (firstDay != null) {
+            doctorScheduleIndex.reload(doctors.keySet(), firstDay, lastDay);
+        }
+
+        // Items of the same batch must not overlap each other either
+        Map<String, IntervalTree> batchTrees = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>();
+        boolean invalid = false;
+        boolean conflict = false;
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            result.put("appointmentTime", appointment.getAppointmentTime());
+            Doctor doctor = appointment.getDoctor() == null ? null : doctors.get(appointment.getDoctor().getId());
+            if (doctor == null || appointment.getPatient() == null || appointment.getPatient().getId() == null) {
+                invalid = true;
+                result.put("status", "invalid");
+                result.put("message", doctor == null ? "Invalid doctor ID" : "Invalid patient ID");
+            } else if (appointment.getAppointmentTime() == null || !slotGrid.withinHorizon(appointment.getAppointmentTime())) {
+                invalid = true;
+                result.put("status", "invalid");
+                result.put("message", "Appointment time must be between now and " + slotGrid.lastBookableDate());
+            } else if (!doctorService.isSlotAvailable(doctor, appointment)) {
+                // Reloaded under the locks above, so the index answers for the stored schedule
+                conflict = true;
+                result.put("status", "conflict");
+                result.put("message", "Appointment slot unavailable");
+            } else {
+                IntervalTree tree = batchTrees.computeIfAbsent(
+                        doctor.getId() + "@" + appointment.getAppointmentDate(), k -> new IntervalTree());
+                long from = appointment.getAppointmentTimeOnly().toSecondOfDay() / 60;
+                long to = from + appointment.getDurationMinutes();
+                if (tree.overlaps(from, to, null)) {
+                    conflict = true;
+                    result.put("status", "conflict");
+                    result.put("message", "Overlaps another appointment in this batch");
+                } else {
+                    tree.insert(from, to, i);
+                    result.put("status", "ok");
+                }
+            }
+            results.add(result);
+        }
+        response.put("results", results);
+        if (invalid || conflict) {
+            response.put("message", "No appointments were booked");
+            return ResponseEntity.status(invalid ? HttpStatus.BAD_REQUEST : HttpStatus.CONFLICT).body(response);
+        }
+
+        appointmentBatchRepository.insertAll(appointments);
+        // Same transaction, so other instances see the change rows exactly when the bookings commit
+        cacheChangeLog.booked(appointments);
+        // Reload the touched days only once the rows are visible to other transactions
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Appointment appointment : appointments) {
+                    doctorScheduleIndex.invalidate(appointment.getDoctor().getId(), appointment.getAppointmentDate());
+                    scheduleHorizon.add(appointment);
+                    utilizationCounters.add(appointment);
+                    bookingJournal.booked(appointment);
+                }
+            }
+        });
+        for (Map<String, Object> result : results) {
+            result.put("status", "booked");
+        }
+        response.put("message", appointments.size() + " appointments booked successfully");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    private List<Appointment> expand(BatchBooking batch) {
+        if (batch.getAppointments() != null && !batch.getAppointments().isEmpty()) {
+            return batch.getAppointments();
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        Appointment first = batch.getFirst();
+        if (first == null || first.getAppointmentTime() == null || batch.getOccurrences() == null) {
+            return appointments;
+        }
+        int occurrences = Math.min(batch.getOccurrences(), MAX_BATCH_SIZE + 1);
+        int intervalDays = batch.getIntervalDays() != null ? batch.getIntervalDays() : 7;
+        for (int i = 0; i < occurrences; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(first.getDoctor());
+            appointment.setPatient(first.getPatient());
+            appointment.setAppointmentTime(first.getAppointmentTime().plusDays((long) i * intervalDays));
+            appointment.setStatus(first.getStatus());
+            appointment.setDurationMinutes(first.getDurationMinutes());
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    /**
+     * Applies a patient's edit to one of their appointments with optimistic concurrency. An edit carrying an older version than
+     * the stored one is refused with 409 and the current state. If another save lands between this
+     * one's read and write, the edit is replayed on the newer state when the two changed different
+     * fields, and refused the same way when they did not.
+     */
+    public ResponseEntity<Map<String, Object>> updateAppointment(Appointment appointment, Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+        Appointment base = null;
+        Set<String> edited = null;
+        for (int attempt = 1; ; attempt++) {
+            Optional<Appointment> existing = appointmentRepository.findById(appointment.getId());
+            if (!existing.isPresent()) {
+                response.put("message", "Appointment not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            Appointment current = existing.get();
+            if (!current.getPatient().getId().equals(patientId)) {
+                response.put("message", "Unauthorized access");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+            if (base == null) {
+                if (appointment.getVersion() != null && !appointment.getVersion().equals(current.getVersion())) {
+                    return changedElsewhere(response, current);
+                }
+                base = current;
+                edited = EDITABLE.changed(base, appointment);
+            } else if (!Collections.disjoint(edited, EDITABLE.changed(base, current))) {
+                return changedElsewhere(response, current);
+            }
+            Appointment updated = EDITABLE.copy(current);
+            updated.setId(current.getId());
+            updated.setVersion(current.getVersion());
+            updated.setPatient(current.getPatient());
+            updated.setStatus(current.getStatus());
+            EDITABLE.apply(appointment, updated, edited);
+
+            Optional<Doctor> doctorOpt = updated.getDoctor() == null ? Optional.empty()
+                    : doctorRepository.findById(updated.getDoctor().getId());
+            if (!doctorOpt.isPresent()) {
+                response.put("message", "Invalid doctor ID");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+            if (!doctorService.isSlotAvailable(doctorOpt.get(), updated)) {
+                response.put("message", "Appointment slot unavailable");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            try {
+                Appointment saved = transactionTemplate.execute(status -> {
+                    Optional<Doctor> locked = doctorService.lockSchedule(updated.getDoctor().getId());
+                    if (!locked.isPresent() || !doctorService.isSlotBookable(locked.get(), updated)) {
+                        return null;
+                    }
+                    updated.setDoctor(locked.get());
+                    Appointment rescheduled = appointmentRepository.save(updated);
+                    cacheChangeLog.rescheduled(current, rescheduled);
+                    return rescheduled;
+                });
+                if (saved == null) {
+                    response.put("message", "Appointment slot unavailable");
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+                }
+                doctorScheduleIndex.remove(current);
+                doctorScheduleIndex.add(saved);
+                scheduleHorizon.remove(current);
+                scheduleHorizon.add(saved);
+                utilizationCounters.remove(current);
+                utilizationCounters.add(saved);
+                bookingJournal.rescheduled(current, saved);
+                response.put("message", "Appointment updated successfully");
+                response.put("version", saved.getVersion());
+                return ResponseEntity.ok(response);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt == EditableFields.MAX_SAVE_ATTEMPTS) {
+                    return changedElsewhere(response, appointmentRepository.findById(appointment.getId()).orElse(current));
+                }
+            } catch (Exception e) {
+                response.put("message", "Failed to update appointment");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
         }
     }
 
-    public ResponseEntity<Map<String, String>> cancelAppointment(long id, String token) {
+    private static ResponseEntity<Map<String, Object>> changedElsewhere(Map<String, Object> response, Appointment current) {
+        response.put("message", "Appointment was changed by someone else; review the current version and try again");
+        response.put("current", new AppointmentDTO(current));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    public ResponseEntity<Map<String, String>> cancelAppointment(long id, Long patientId) {
         Map<String, String> response = new HashMap<>();
         Optional<Appointment> appointmentOpt = appointmentRepository.findById(id);
         if (!appointmentOpt.isPresent()) {
@@ -62,9 +333,27 @@ public class AppointmentService {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
         Appointment appointment = appointmentOpt.get();
-        // Validate patient by token if needed
+        if (!appointment.getPatient().getId().equals(patientId)) {
+            response.put("message", "Unauthorized access");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
         try {
-            appointmentRepository.delete(appointment);
+            Appointment successor = transactionTemplate.execute(status -> {
+                appointmentRepository.delete(appointment);
+                cacheChangeLog.cancelled(appointment);
+                return handOverToWaitlist(appointment);
+            });
+            if (successor != null) {
+                // Added before the cancelled one is removed, so the slot never reads as free
+                doctorScheduleIndex.add(successor);
+                scheduleHorizon.add(successor);
+                utilizationCounters.add(successor);
+                bookingJournal.booked(successor);
+            }
+            doctorScheduleIndex.remove(appointment);
+            scheduleHorizon.remove(appointment);
+            utilizationCounters.remove(appointment);
+            bookingJournal.cancelled(appointment);
             response.put("message", "Appointment cancelled successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -73,10 +362,128 @@ public class AppointmentService {
         }
     }
 
-    public Map<String, Object> getAppointment(String pname, LocalDate date, String token) {
+    /**
+     * Gives the slot of an appointment being cancelled to the longest-waiting patient of the
+     * doctor's day whose request it fits. Runs in the cancellation's transaction with the doctor
+     * locked, so the slot is never seen free in between and pollers cannot take it first.
+     *
+     * @return The new appointment, or null when nobody fits.
+     */
+    private Appointment handOverToWaitlist(Appointment cancelled) {
+        if (!cancelled.getAppointmentTime().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        Optional<Doctor> doctor = doctorService.lockSchedule(cancelled.getDoctor().getId());
+        if (!doctor.isPresent()) {
+            return null;
+        }
+        LocalDate day = cancelled.getAppointmentDate();
+        // Under the lock, so the index answers for the stored schedule below
+        doctorScheduleIndex.reload(List.of(doctor.get().getId()), day, day);
+        Optional<WaitlistEntry> claimed = waitlist.claim(doctor.get().getId(), day, entry -> fitsFreedSlot(entry, cancelled));
+        if (!claimed.isPresent()) {
+            return null;
+        }
+        WaitlistEntry entry = claimed.get();
+        Optional<Patient> patient = patientRepository.findById(entry.getPatientId());
+        if (!patient.isPresent()) {
+            log.warn("Waitlist entry {} belongs to a deleted patient; withdrawing it", entry.getId());
+            entry.withdrawn();
+            return null;
+        }
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor.get());
+        appointment.setPatient(patient.get());
+        appointment.setAppointmentTime(startFor(entry, cancelled));
+        appointment.setDurationMinutes(entry.getDurationMinutes());
+        appointment.setStatus(Appointment.STATUS_SCHEDULED);
+        Appointment saved = appointmentRepository.save(appointment);
+        cacheChangeLog.booked(List.of(saved));
+        waitlist.assigned(entry, saved.getId());
+        return saved;
+    }
+
+    private boolean fitsFreedSlot(WaitlistEntry entry, Appointment cancelled) {
+        LocalDateTime start = startFor(entry, cancelled);
+        Doctor doctor = cancelled.getDoctor();
+        return !entry.getPatientId().equals(cancelled.getPatient().getId())
+                && !start.isBefore(cancelled.getAppointmentTime())
+                && start.isBefore(cancelled.getEndTime())
+                && start.isAfter(LocalDateTime.now())
+                && slotGrid.accepts(doctor, start.toLocalTime(), entry.getDurationMinutes())
+                && !doctorScheduleIndex.overlaps(doctor.getId(), start, entry.getDurationMinutes(), cancelled.getId());
+    }
+
+    private static LocalDateTime startFor(WaitlistEntry entry, Appointment cancelled) {
+        return entry.getTime() != null ? entry.getDate().atTime(entry.getTime()) : cancelled.getAppointmentTime();
+    }
+
+    /**
+     * Puts the patient on a doctor's waitlist for a day, or for one time of that day. Refused when
+     * what was asked for can be booked right away.
+     */
+    public ResponseEntity<Map<String, Object>> joinWaitlist(WaitlistRequest request, Long patientId) {
+        Map<String, Object> response = new HashMap<>();
+        if (request.getDoctorId() == null || request.getDate() == null || request.getDate().isBefore(LocalDate.now())
+                || request.getDate().isAfter(waitlist.lastDate())) {
+            response.put("message", "A doctor and a date between today and " + waitlist.lastDate() + " are required");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        Optional<Doctor> doctorOpt = doctorRepository.findById(request.getDoctorId());
+        if (!doctorOpt.isPresent()) {
+            response.put("message", "Invalid doctor ID");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        Doctor doctor = doctorOpt.get();
+        int minutes = request.getDurationMinutes() != null ? request.getDurationMinutes() : Appointment.DEFAULT_DURATION_MINUTES;
+        if (request.getTime() != null) {
+            LocalDateTime start = request.getDate().atTime(request.getTime());
+            if (!start.isAfter(LocalDateTime.now()) || !slotGrid.accepts(doctor, request.getTime(), minutes)) {
+                response.put("message", "Time is not one of the doctor's future slots");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+            if (!doctorScheduleIndex.overlaps(doctor.getId(), start, minutes, null)) {
+                response.put("message", "Appointment slot is available; book it instead");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+        } else if (!doctorService.getDoctorAvailability(doctor.getId(), request.getDate()).isEmpty()) {
+            response.put("message", "The doctor has free slots that day; book one instead");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        // Joins of one doctor are serialized like bookings, so the waitlist limits hold exactly
+        Optional<WaitlistEntry> entry = transactionTemplate.execute(status -> doctorService.lockSchedule(doctor.getId())
+                .flatMap(locked -> waitlist.join(locked.getId(), patientId, request.getDate(), request.getTime(), minutes)));
+        if (!entry.isPresent()) {
+            response.put("message", "Already waiting for this day or for too many days, or the waitlist is full");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        response.put("message", "Added to the waitlist");
+        response.put("entry", entry.get());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    public Map<String, Object> getWaitlist(Long patientId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("entries", waitlist.entriesOf(patientId));
+        return result;
+    }
+
+    public ResponseEntity<Map<String, String>> leaveWaitlist(long entryId, Long patientId) {
+        Map<String, String> response = new HashMap<>();
+        int left = waitlist.withdraw(entryId, patientId);
+        if (left == -1) {
+            response.put("message", "Waitlist entry not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } else if (left == 0) {
+            response.put("message", "A slot has been or is being assigned to this entry");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        response.put("message", "Left the waitlist");
+        return ResponseEntity.ok(response);
+    }
+
+    public Map<String, Object> getAppointment(String pname, LocalDate date, Long doctorId) {
         Map<String, Object> result = new HashMap<>();
-        // Extract doctorId from token if needed
-        Long doctorId = tokenService.extractDoctorId(token);
         LocalDateTime start = date.atStartOfDay();
         LocalDateTime end = date.atTime(LocalTime.MAX);
         List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
@@ -86,5 +493,23 @@ public class AppointmentService {
         result.put("appointments", appointments);
         return result;
     }
+
+    /**
+     * Lists a doctor's appointments for one day as DTOs, in time order.
+     * Used to embed the doctor dashboard's initial table in the page; one fetch-join query.
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentDTO> getDoctorDay(Long doctorId, LocalDate date) {
+        List<AppointmentDTO> day = new ArrayList<>();
+        for (Appointment a : appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
+                doctorId, date.atStartOfDay(), date.atTime(LocalTime.MAX))) {
+            Patient p = a.getPatient();
+            day.add(new AppointmentDTO(a.getId(), doctorId, a.getDoctor().getName(), p.getId(), p.getName(),
+                    p.getEmail(), p.getPhone(), p.getAddress(), a.getAppointmentTime(), a.getStatus(),
+                    a.getDurationMinutes(), a.getVersion()));
+        }
+        day.sort(Comparator.comparing(AppointmentDTO::getAppointmentTime));
+        return day;
+    }
 }
 
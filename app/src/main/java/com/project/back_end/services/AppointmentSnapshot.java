@@ -0,0 +1,387 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.AppointmentSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar, read-only copy of the appointment table for admin reports, so ad-hoc group-bys never
+ * compete with bookings in MySQL. Every clinic.snapshot.refresh-ms the table is streamed once into
+ * primitive arrays (doctor, patient, start as epoch minute, status) and swapped in whole; reports
+ * then filter and count over those arrays in parallel chunks on the common fork-join pool.
+ *
+ * Loading runs on a thread of its own, first once the application is ready and then every
+ * refresh, whether or not clinic.scheduling.enabled is set: a scan of a large table must neither
+ * hold up the shared @Scheduled thread nor run inside a request. Until the first load completes,
+ * {@link #report} has nothing to answer with.
+ *
+ * Doctors are dictionary-encoded, so grouping by doctor counts into a dense array. A row costs
+ * 17 bytes, about 170 MB for 10M appointments, twice that while a refresh is being built.
+ */
+@Component
+public class AppointmentSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSnapshot.class);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Rows per parallel task; small enough to balance, large enough to amortise the task
+    private static final int CHUNK_ROWS = 1 << 16;
+
+    public enum GroupBy { STATUS, DOCTOR, WEEKDAY, HOUR }
+
+    private final AppointmentSnapshotRepository snapshotRepository;
+    private final int fetchSize;
+    private final long refreshMillis;
+    private final long initialDelayMillis;
+    private volatile Columns columns;
+    // A load is queued or running on the loader
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "appointment-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AppointmentSnapshot(AppointmentSnapshotRepository snapshotRepository,
+                               @Value("${clinic.snapshot.fetch-size:-2147483648}") int fetchSize,
+                               @Value("${clinic.snapshot.refresh-ms:300000}") long refreshMillis,
+                               @Value("${clinic.snapshot.initial-delay-ms:0}") long initialDelayMillis) {
+        this.snapshotRepository = snapshotRepository;
+        this.fetchSize = fetchSize;
+        this.refreshMillis = refreshMillis;
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRefreshing() {
+        if (refreshMillis > 0) {
+            loader.scheduleWithFixedDelay(this::load, initialDelayMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        } else {
+            loadInBackground();
+        }
+    }
+
+    /**
+     * Queues a load on the loader thread unless one is already queued or running.
+     */
+    public void loadInBackground() {
+        if (loading.compareAndSet(false, true)) {
+            loader.execute(this::load);
+        }
+    }
+
+    private void load() {
+        loading.set(true);
+        // An exception escaping here would cancel every later refresh
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Loading the appointment snapshot failed", e);
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    public void refresh() {
+        long started = System.nanoTime();
+        Columns.Builder builder = new Columns.Builder();
+        snapshotRepository.scan(fetchSize, rs -> builder.add(rs.getLong(1), rs.getLong(2),
+                rs.getObject(3, LocalDateTime.class), rs.getInt(4)));
+        columns = builder.build(LocalDateTime.now());
+        log.info("Loaded appointment snapshot of {} rows in {} ms", columns.size, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Counts the appointments matching the filter, grouped by one dimension.
+     *
+     * @return "rows" (key and count, ordered by key, empty groups left out), "total",
+     *         "snapshotAt" and "snapshotRows"; or empty if the snapshot has not been loaded yet,
+     *         in which case a load is queued if none is under way.
+     */
+    public Optional<Map<String, Object>> report(GroupBy groupBy, Filter filter) {
+        Columns current = columns;
+        if (current == null) {
+            loadInBackground();
+            return Optional.empty();
+        }
+        long[] counts = current.count(groupBy, filter);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long total = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", current.keyOf(groupBy, bucket));
+            row.put("count", counts[bucket]);
+            rows.add(row);
+            total += counts[bucket];
+        }
+        if (groupBy == GroupBy.DOCTOR || groupBy == GroupBy.STATUS) {
+            rows.sort((a, b) -> Long.compare(((Number) a.get("key")).longValue(), ((Number) b.get("key")).longValue()));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("groupBy", groupBy);
+        result.put("rows", rows);
+        result.put("total", total);
+        result.put("snapshotAt", current.loadedAt);
+        result.put("snapshotRows", current.size);
+        return Optional.of(result);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Optional conditions of a report; a null field does not filter. The time range is [from, to).
+     */
+    public static class Filter {
+        Long doctorId;
+        Long patientId;
+        Integer status;
+        LocalDateTime from;
+        LocalDateTime to;
+        DayOfWeek weekday;
+        Integer hour;
+
+        public Filter doctorId(Long doctorId) {
+            this.doctorId = doctorId;
+            return this;
+        }
+
+        public Filter patientId(Long patientId) {
+            this.patientId = patientId;
+            return this;
+        }
+
+        public Filter status(Integer status) {
+            this.status = status;
+            return this;
+        }
+
+        public Filter between(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public Filter weekday(DayOfWeek weekday) {
+            this.weekday = weekday;
+            return this;
+        }
+
+        public Filter hour(Integer hour) {
+            this.hour = hour;
+            return this;
+        }
+    }
+
+    /**
+     * One immutable snapshot. Row i of every array describes the same appointment.
+     */
+    static final class Columns {
+        final int size;
+        final int[] doctor;
+        final long[] patient;
+        final int[] minute;
+        final byte[] status;
+        final long[] doctorIds;
+        final LocalDateTime loadedAt;
+
+        private Columns(int size, int[] doctor, long[] patient, int[] minute, byte[] status, long[] doctorIds,
+                        LocalDateTime loadedAt) {
+            this.size = size;
+            this.doctor = doctor;
+            this.patient = patient;
+            this.minute = minute;
+            this.status = status;
+            this.doctorIds = doctorIds;
+            this.loadedAt = loadedAt;
+        }
+
+        long[] count(GroupBy groupBy, Filter filter) {
+            int buckets = switch (groupBy) {
+                case STATUS -> 256;
+                case DOCTOR -> doctorIds.length;
+                case WEEKDAY -> 7;
+                case HOUR -> 24;
+            };
+            int doctorCode = -1;
+            if (filter.doctorId != null) {
+                doctorCode = codeOf(filter.doctorId);
+                if (doctorCode < 0) {
+                    return new long[buckets];
+                }
+            }
+            Predicate predicate = new Predicate(doctorCode, filter);
+            int chunks = Math.max(1, (size + CHUNK_ROWS - 1) / CHUNK_ROWS);
+            if (chunks == 1 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+                return countRange(groupBy, predicate, 0, size, buckets);
+            }
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> countRange(groupBy, predicate, chunk * CHUNK_ROWS,
+                            Math.min(size, (chunk + 1) * CHUNK_ROWS), buckets))
+                    .reduce(Columns::add)
+                    .orElseGet(() -> new long[buckets]);
+        }
+
+        private long[] countRange(GroupBy groupBy, Predicate p, int from, int to, int buckets) {
+            long[] counts = new long[buckets];
+            for (int i = from; i < to; i++) {
+                int m = minute[i];
+                if ((p.doctor >= 0 && doctor[i] != p.doctor)
+                        || (p.filterPatient && patient[i] != p.patient)
+                        || (p.filterStatus && status[i] != p.status)
+                        || m < p.fromMinute || m >= p.toMinute
+                        || (p.weekday >= 0 && weekdayOf(m) != p.weekday)
+                        || (p.hour >= 0 && hourOf(m) != p.hour)) {
+                    continue;
+                }
+                switch (groupBy) {
+                    case STATUS -> counts[status[i] & 0xFF]++;
+                    case DOCTOR -> counts[doctor[i]]++;
+                    case WEEKDAY -> counts[weekdayOf(m)]++;
+                    case HOUR -> counts[hourOf(m)]++;
+                }
+            }
+            return counts;
+        }
+
+        Object keyOf(GroupBy groupBy, int bucket) {
+            return switch (groupBy) {
+                case STATUS -> (int) (byte) bucket;
+                case DOCTOR -> doctorIds[bucket];
+                case WEEKDAY -> DayOfWeek.of(bucket + 1);
+                case HOUR -> bucket;
+            };
+        }
+
+        private int codeOf(long doctorId) {
+            for (int code = 0; code < doctorIds.length; code++) {
+                if (doctorIds[code] == doctorId) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+
+        private static long[] add(long[] a, long[] b) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        }
+
+        // 0 = Monday; epoch day 0 (1970-01-01) was a Thursday
+        static int weekdayOf(int epochMinute) {
+            return (int) Math.floorMod(Math.floorDiv(epochMinute, MINUTES_PER_DAY) + 3L, 7L);
+        }
+
+        static int hourOf(int epochMinute) {
+            return Math.floorMod(epochMinute, MINUTES_PER_DAY) / 60;
+        }
+
+        // Saturates outside the int range, so a filter bound in year 9999 means "no bound"
+        static int epochMinute(LocalDateTime time) {
+            long minutes = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60L);
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, minutes));
+        }
+
+        /**
+         * Appends rows into growing arrays; not thread-safe.
+         */
+        static final class Builder {
+            private int size;
+            private int[] doctor = new int[1024];
+            private long[] patient = new long[1024];
+            private int[] minute = new int[1024];
+            private byte[] status = new byte[1024];
+            private final Map<Long, Integer> doctorCodes = new HashMap<>();
+            private long[] doctorIds = new long[16];
+
+            void add(long doctorId, long patientId, LocalDateTime time, int appointmentStatus) {
+                if (size == doctor.length) {
+                    int capacity = size * 2;
+                    doctor = Arrays.copyOf(doctor, capacity);
+                    patient = Arrays.copyOf(patient, capacity);
+                    minute = Arrays.copyOf(minute, capacity);
+                    status = Arrays.copyOf(status, capacity);
+                }
+                Integer code = doctorCodes.get(doctorId);
+                if (code == null) {
+                    code = doctorCodes.size();
+                    doctorCodes.put(doctorId, code);
+                    if (code == doctorIds.length) {
+                        doctorIds = Arrays.copyOf(doctorIds, code * 2);
+                    }
+                    doctorIds[code] = doctorId;
+                }
+                doctor[size] = code;
+                patient[size] = patientId;
+                minute[size] = epochMinute(time);
+                status[size] = (byte) appointmentStatus;
+                size++;
+            }
+
+            Columns build(LocalDateTime loadedAt) {
+                // Trim so a refresh does not keep up to twice the memory it needs
+                return new Columns(size, Arrays.copyOf(doctor, size), Arrays.copyOf(patient, size),
+                        Arrays.copyOf(minute, size), Arrays.copyOf(status, size),
+                        Arrays.copyOf(doctorIds, doctorCodes.size()), loadedAt);
+            }
+        }
+    }
+
+    /**
+     * A filter resolved to primitives, so the scan loop does no boxing or date arithmetic.
+     */
+    private static final class Predicate {
+        final int doctor;
+        final boolean filterPatient;
+        final long patient;
+        final boolean filterStatus;
+        final byte status;
+        final int fromMinute;
+        final int toMinute;
+        final int weekday;
+        final int hour;
+
+        Predicate(int doctorCode, Filter filter) {
+            this.doctor = doctorCode;
+            this.filterPatient = filter.patientId != null;
+            this.patient = filterPatient ? filter.patientId : 0;
+            this.filterStatus = filter.status != null;
+            this.status = filterStatus ? filter.status.byteValue() : 0;
+            this.fromMinute = filter.from != null ? Columns.epochMinute(filter.from) : Integer.MIN_VALUE;
+            this.toMinute = filter.to != null ? Columns.epochMinute(filter.to) : Integer.MAX_VALUE;
+            this.weekday = filter.weekday != null ? filter.weekday.getValue() - 1 : -1;
+            this.hour = filter.hour != null ? filter.hour : -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marks appointments as completed once they have ended, so the status column follows the clock.
+ * Runs every clinic.status-job.interval-ms and works in chunks of clinic.status-job.chunk-size:
+ * each chunk is one covered index scan plus one bulk UPDATE in its own short transaction.
+ * Bulk updates skip entity validation, which matters because appointmentTime is @Future.
+ */
+@Component
+public class AppointmentStatusJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatusJob.class);
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public AppointmentStatusJob(AppointmentRepository appointmentRepository, PlatformTransactionManager transactionManager,
+                                @Value("${clinic.status-job.chunk-size:500}") int chunkSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${clinic.status-job.interval-ms:60000}",
+               initialDelayString = "${clinic.status-job.initial-delay-ms:30000}")
+    public void completeElapsedAppointments() {
+        int completed = completeEndedBefore(LocalDateTime.now());
+        if (completed > 0) {
+            log.info("Marked {} elapsed appointments as completed", completed);
+        }
+    }
+
+    /**
+     * Completes every scheduled appointment whose end is at or before the given moment.
+     * Candidates are those that started before it; ones still in progress are skipped by the
+     * keyset and picked up by a later run.
+     *
+     * @return The number of appointments changed.
+     */
+    public int completeEndedBefore(LocalDateTime now) {
+        LocalDateTime afterTime = BEGINNING;
+        Long afterId = 0L;
+        int total = 0;
+        while (true) {
+            List<Object[]> rows = appointmentRepository.findStatusRowsStartedBefore(
+                    Appointment.STATUS_SCHEDULED, now, afterTime, afterId, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                return total;
+            }
+            List<Long> ended = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                LocalDateTime start = (LocalDateTime) row[1];
+                int minutes = row[2] != null ? (Integer) row[2] : Appointment.DEFAULT_DURATION_MINUTES;
+                if (!start.plusMinutes(minutes).isAfter(now)) {
+                    ended.add((Long) row[0]);
+                }
+            }
+            if (!ended.isEmpty()) {
+                Integer changed = transactionTemplate.execute(status -> appointmentRepository.updateStatus(
+                        ended, Appointment.STATUS_SCHEDULED, Appointment.STATUS_COMPLETED));
+                total += changed != null ? changed : 0;
+            }
+            if (rows.size() < chunkSize) {
+                return total;
+            }
+            Object[] last = rows.get(rows.size() - 1);
+            afterTime = (LocalDateTime) last[1];
+            afterId = (Long) last[0];
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.CacheChangeRepository;
+import com.project.back_end.repo.CacheChangeRepository.Change;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes what this instance changed to the cache_change table, for {@link CacheSync} on the
+ * other instances. Rows are written in the caller's transaction when there is one, so they become
+ * visible together with the change, and a failed write fails the transaction: no change commits
+ * unannounced. Outside a transaction a failed write is logged rather than thrown, since the change
+ * has already happened; other instances then serve the old entry until it is written again or
+ * they reload everything (only after missing more than a retention period of polls).
+ */
+@Component
+public class CacheChangeLog {
+
+    public static final int DOCTOR_SAVED = 1;
+    public static final int DOCTOR_DELETED = 2;
+    public static final int BOOKED = 3;
+    public static final int CANCELLED = 4;
+    public static final int PRESCRIPTIONS_CHANGED = 5;
+
+    private static final Logger log = LoggerFactory.getLogger(CacheChangeLog.class);
+
+    private final CacheChangeRepository cacheChangeRepository;
+    private final boolean enabled;
+    // Identifies this instance's rows, which its own poller skips
+    private final long origin = new SecureRandom().nextLong();
+    private final AtomicBoolean prescriptionsChanged = new AtomicBoolean();
+
+    public CacheChangeLog(CacheChangeRepository cacheChangeRepository,
+                          @Value("${clinic.cache-sync.enabled:true}") boolean enabled) {
+        this.cacheChangeRepository = cacheChangeRepository;
+        this.enabled = enabled;
+    }
+
+    public long origin() {
+        return origin;
+    }
+
+    public void doctorSaved(Long doctorId) {
+        append(List.of(new Change(0, origin, DOCTOR_SAVED, doctorId, null, null, null)));
+    }
+
+    public void doctorDeleted(Long doctorId) {
+        append(List.of(new Change(0, origin, DOCTOR_DELETED, doctorId, null, null, null)));
+    }
+
+    public void booked(List<Appointment> appointments) {
+        List<Change> changes = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            changes.add(change(BOOKED, appointment));
+        }
+        append(changes);
+    }
+
+    public void cancelled(Appointment appointment) {
+        append(List.of(change(CANCELLED, appointment)));
+    }
+
+    public void rescheduled(Appointment before, Appointment after) {
+        append(List.of(change(CANCELLED, before), change(BOOKED, after)));
+    }
+
+    /**
+     * Notes that prescriptions changed. Called from reactive callbacks, so nothing is written
+     * here; {@link #flushPrescriptionChanges()} writes one row for all changes since its last run.
+     */
+    public void prescriptionsChanged() {
+        prescriptionsChanged.set(true);
+    }
+
+    /**
+     * Run by {@link CacheSync} before each poll.
+     */
+    public void flushPrescriptionChanges() {
+        if (enabled && prescriptionsChanged.getAndSet(false)) {
+            try {
+                cacheChangeRepository.append(List.of(new Change(0, origin, PRESCRIPTIONS_CHANGED, null, null, null, null)));
+            } catch (DataAccessException e) {
+                // Retried on the next run
+                prescriptionsChanged.set(true);
+                log.warn("Could not publish the prescription change", e);
+            }
+        }
+    }
+
+    private Change change(int kind, Appointment appointment) {
+        return new Change(0, origin, kind, appointment.getDoctor().getId(), appointment.getId(),
+                appointment.getAppointmentTime(), appointment.getDurationMinutes());
+    }
+
+    private void append(List<Change> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            cacheChangeRepository.append(changes);
+            return;
+        }
+        try {
+            cacheChangeRepository.append(changes);
+        } catch (DataAccessException e) {
+            log.warn("Could not publish {} cache change(s); other instances keep the old entries", changes.size(), e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.CacheChangeRepository;
+import com.project.back_end.repo.CacheChangeRepository.Change;
+import com.project.back_end.repo.DoctorRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the changes other instances publish through {@link CacheChangeLog} to this instance's
+ * caches: the doctor catalogue, the schedule index and horizon, the utilization counters and the
+ * prescription search cache. Polls every clinic.cache-sync.poll-ms, which bounds how long a cache
+ * here can trail a write elsewhere. The polls, and the publishing of this instance's prescription
+ * changes, run on a thread of their own rather than on the shared @Scheduled one: batch jobs there
+ * can run for minutes, and instances with clinic.scheduling.enabled=false must follow other
+ * writers all the same.
+ *
+ * Auto-increment ids are handed out at insert but become visible at commit, so a lower id can
+ * appear after a higher one. Ids skipped over are remembered as gaps and looked up again on each
+ * poll until they show up or clinic.cache-sync.gap-timeout-ms passes (the insert was rolled back).
+ * An instance that has not polled for longer than the table's retention may have missed pruned
+ * rows, and reloads every cache from the database instead.
+ */
+@Component
+public class CacheSync {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSync.class);
+    // Beyond this many open gaps the oldest are given up, to bound the lookup query
+    private static final int MAX_GAPS = 1000;
+
+    private final CacheChangeRepository cacheChangeRepository;
+    private final CacheChangeLog cacheChangeLog;
+    private final DoctorRepository doctorRepository;
+    private final DoctorFilterEngine doctorFilterEngine;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final ScheduleHorizon scheduleHorizon;
+    private final UtilizationCounters utilizationCounters;
+    private final PrescriptionSearchCache prescriptionSearchCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long retentionSeconds;
+    private final long pollMillis;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Highest id read so far, and the lower ids not yet seen with when they were first missed
+    private long highestId;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long lastPolledAt;
+
+    public CacheSync(CacheChangeRepository cacheChangeRepository, CacheChangeLog cacheChangeLog,
+                     DoctorRepository doctorRepository, DoctorFilterEngine doctorFilterEngine,
+                     DoctorScheduleIndex doctorScheduleIndex, ScheduleHorizon scheduleHorizon,
+                     UtilizationCounters utilizationCounters, PrescriptionSearchCache prescriptionSearchCache,
+                     @Value("${clinic.cache-sync.enabled:true}") boolean enabled,
+                     @Value("${clinic.cache-sync.batch-size:500}") int batchSize,
+                     @Value("${clinic.cache-sync.gap-timeout-ms:10000}") long gapTimeoutMillis,
+                     @Value("${clinic.cache-sync.retention-seconds:3600}") long retentionSeconds,
+                     @Value("${clinic.cache-sync.poll-ms:1000}") long pollMillis) {
+        this.cacheChangeRepository = cacheChangeRepository;
+        this.cacheChangeLog = cacheChangeLog;
+        this.doctorRepository = doctorRepository;
+        this.doctorFilterEngine = doctorFilterEngine;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.scheduleHorizon = scheduleHorizon;
+        this.utilizationCounters = utilizationCounters;
+        this.prescriptionSearchCache = prescriptionSearchCache;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionSeconds = retentionSeconds;
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Starts after the current end of the table: the caches are built from the database after
+     * this, so they already include everything before it.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (enabled) {
+            highestId = cacheChangeRepository.maxId();
+            lastPolledAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Starts polling once the caches are loaded. A poll-ms of 0 leaves polling to the caller.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPolling() {
+        if (enabled && pollMillis > 0) {
+            poller.scheduleWithFixedDelay(this::tick, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        // An exception escaping here would cancel every later run
+        try {
+            cacheChangeLog.flushPrescriptionChanges();
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Cache sync poll failed; retrying in {} ms", pollMillis, e);
+        }
+    }
+
+    @PreDestroy
+    void stopPolling() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Applies every change published by other instances since the last poll.
+     *
+     * @return The number of changes applied.
+     */
+    public synchronized int poll() {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastPolledAt > retentionSeconds * 1000) {
+            resync();
+        }
+        lastPolledAt = now;
+        int applied = 0;
+        if (!gaps.isEmpty()) {
+            for (Change change : cacheChangeRepository.findByIds(gaps.keySet())) {
+                gaps.remove(change.id());
+                applied += apply(change);
+            }
+            gaps.values().removeIf(firstMissed -> now - firstMissed >= gapTimeoutMillis);
+        }
+        List<Change> changes;
+        do {
+            changes = cacheChangeRepository.findAfter(highestId, batchSize);
+            for (Change change : changes) {
+                for (long missing = Math.max(highestId + 1, change.id() - MAX_GAPS); missing < change.id(); missing++) {
+                    gaps.put(missing, now);
+                }
+                highestId = change.id();
+                applied += apply(change);
+            }
+            trimGaps();
+        } while (changes.size() == batchSize);
+        return applied;
+    }
+
+    @Scheduled(fixedDelayString = "${clinic.cache-sync.prune-ms:600000}")
+    public void prune() {
+        if (enabled) {
+            cacheChangeRepository.deleteOlderThanSeconds(retentionSeconds);
+        }
+    }
+
+    private int apply(Change change) {
+        if (change.origin() == cacheChangeLog.origin()) {
+            return 0;
+        }
+        switch (change.kind()) {
+            case CacheChangeLog.DOCTOR_SAVED -> {
+                Optional<Doctor> doctor = doctorRepository.findByIdWithAvailableTimes(change.doctorId());
+                if (doctor.isPresent()) {
+                    doctorFilterEngine.put(doctor.get());
+                    scheduleHorizon.track(doctor.get());
+                } else {
+                    evictDoctor(change.doctorId());
+                }
+            }
+            case CacheChangeLog.DOCTOR_DELETED -> evictDoctor(change.doctorId());
+            case CacheChangeLog.BOOKED -> {
+                Appointment appointment = appointmentOf(change);
+                doctorScheduleIndex.invalidate(change.doctorId(), appointment.getAppointmentDate());
+                scheduleHorizon.add(appointment);
+                utilizationCounters.add(appointment);
+            }
+            case CacheChangeLog.CANCELLED -> {
+                Appointment appointment = appointmentOf(change);
+                doctorScheduleIndex.invalidate(change.doctorId(), appointment.getAppointmentDate());
+                scheduleHorizon.remove(appointment);
+                utilizationCounters.remove(appointment);
+            }
+            case CacheChangeLog.PRESCRIPTIONS_CHANGED -> prescriptionSearchCache.invalidateAll();
+            default -> {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    private void evictDoctor(Long doctorId) {
+        doctorFilterEngine.remove(doctorId);
+        doctorScheduleIndex.evictDoctor(doctorId);
+        scheduleHorizon.evictDoctor(doctorId);
+        utilizationCounters.evictDoctor(doctorId);
+    }
+
+    private void trimGaps() {
+        Iterator<Long> oldest = gaps.keySet().iterator();
+        while (gaps.size() > MAX_GAPS && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void resync() {
+        log.warn("No cache sync for over {} s; changes may have been pruned, reloading every cache", retentionSeconds);
+        highestId = cacheChangeRepository.maxId();
+        gaps.clear();
+        List<Doctor> doctors = doctorRepository.findAllWithAvailableTimes();
+        doctorFilterEngine.load(doctors);
+        scheduleHorizon.rebuild(doctors);
+        doctorScheduleIndex.evictAll();
+        utilizationCounters.rebuild();
+        prescriptionSearchCache.invalidateAll();
+    }
+
+    private static Appointment appointmentOf(Change change) {
+        Doctor doctor = new Doctor();
+        doctor.setId(change.doctorId());
+        Appointment appointment = new Appointment();
+        appointment.setId(change.appointmentId());
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentTime(change.startsAt());
+        appointment.setDurationMinutes(change.minutes());
+        return appointment;
+    }
+}
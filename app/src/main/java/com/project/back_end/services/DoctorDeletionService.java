@@ -0,0 +1,284 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.models.DoctorDeletionJob.Status;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.BookingJournal;
+import com.project.back_end.repo.DoctorDeletionJobRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.ReactivePrescriptionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes a doctor and everything that hangs off it as a tracked background job.
+ *
+ * The request records the job in the doctor_deletion_job table and queues it; from then on the
+ * doctor takes no bookings on any instance (see {@link DoctorService#lockSchedule}) and is hidden
+ * from search. The worker deletes the doctor's appointments in chunks of
+ * clinic.doctor-deletion.chunk-size: for each chunk the Mongo prescriptions go first, then one
+ * bulk DELETE in a short transaction that also advances the job's cursor, so no lock is held for
+ * long and a failure never leaves prescriptions without their appointment. The doctor row and any
+ * appointments that were booked before the job started but committed after the first pass are
+ * removed together at the end, under the doctor's row lock.
+ *
+ * Before running a job the worker claims it with a lease of clinic.doctor-deletion.lease-ms, and
+ * renews the lease with every chunk, so no two instances delete for the same job. A job whose
+ * owner stopped renewing, because its instance died or restarted, is claimed by the next instance
+ * that looks for unfinished jobs (at startup and every clinic.doctor-deletion.resume-ms) and
+ * continues from its cursor.
+ */
+@Service
+public class DoctorDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorDeletionService.class);
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ReactivePrescriptionRepository prescriptionRepository;
+    private final DoctorDeletionJobRepository jobRepository;
+    private final DoctorFilterEngine doctorFilterEngine;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final ScheduleHorizon scheduleHorizon;
+    private final UtilizationCounters utilizationCounters;
+    private final Waitlist waitlist;
+    private final BookingJournal bookingJournal;
+    private final PrescriptionSearchCache prescriptionSearchCache;
+    private final CacheChangeLog cacheChangeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration mongoTimeout;
+    private final int keepFinishedDays;
+    private final Duration lease;
+    private final long resumeMillis;
+
+    // This instance's name in the job's owner column
+    private final String owner = UUID.randomUUID().toString();
+    // Jobs waiting for or running on the worker, so the periodic resume does not queue them twice
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    // One worker: deletions are rare, and serialising them keeps load on the database predictable
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "doctor-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DoctorDeletionService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+                                 ReactivePrescriptionRepository prescriptionRepository,
+                                 DoctorDeletionJobRepository jobRepository, DoctorFilterEngine doctorFilterEngine,
+                                 DoctorScheduleIndex doctorScheduleIndex, ScheduleHorizon scheduleHorizon,
+                                 UtilizationCounters utilizationCounters, Waitlist waitlist,
+                                 BookingJournal bookingJournal, PrescriptionSearchCache prescriptionSearchCache,
+                                 CacheChangeLog cacheChangeLog,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${clinic.doctor-deletion.chunk-size:1000}") int chunkSize,
+                                 @Value("${clinic.prescription.timeout-ms:5000}") long mongoTimeoutMs,
+                                 @Value("${clinic.doctor-deletion.keep-finished-days:30}") int keepFinishedDays,
+                                 @Value("${clinic.doctor-deletion.lease-ms:60000}") long leaseMs,
+                                 @Value("${clinic.doctor-deletion.resume-ms:60000}") long resumeMillis) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.jobRepository = jobRepository;
+        this.doctorFilterEngine = doctorFilterEngine;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.scheduleHorizon = scheduleHorizon;
+        this.utilizationCounters = utilizationCounters;
+        this.waitlist = waitlist;
+        this.bookingJournal = bookingJournal;
+        this.prescriptionSearchCache = prescriptionSearchCache;
+        this.cacheChangeLog = cacheChangeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.mongoTimeout = Duration.ofMillis(mongoTimeoutMs);
+        this.keepFinishedDays = keepFinishedDays;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.resumeMillis = resumeMillis;
+    }
+
+    /**
+     * Queues the deletion of a doctor. Asking again while a deletion of the same doctor is
+     * still queued or running returns that job.
+     *
+     * @param doctorId The ID of the doctor.
+     * @return The job, or empty if no such doctor exists.
+     */
+    public Optional<DoctorDeletionJob> start(Long doctorId) {
+        // Under the doctor's row lock, like a booking: once the job commits, no booking can start, and
+        // a second request for the same doctor, on any instance, waits here and then finds the job
+        boolean[] created = new boolean[1];
+        DoctorDeletionJob job = transactionTemplate.execute(status -> {
+            if (doctorRepository.lockById(doctorId).isEmpty()) {
+                return null;
+            }
+            Optional<DoctorDeletionJob> active = jobRepository.findFirstByDoctorIdAndStatusIn(doctorId, DoctorDeletionJob.ACTIVE);
+            if (active.isPresent()) {
+                return active.get();
+            }
+            created[0] = true;
+            return jobRepository.save(new DoctorDeletionJob(UUID.randomUUID().toString(), doctorId));
+        });
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (created[0]) {
+            doctorFilterEngine.remove(doctorId);
+            queue(job.getJobId());
+        }
+        return Optional.of(job);
+    }
+
+    public Optional<DoctorDeletionJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Looks for unfinished jobs at startup and then every clinic.doctor-deletion.resume-ms, on the
+     * worker's own thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startResuming() {
+        if (resumeMillis > 0) {
+            worker.scheduleWithFixedDelay(this::resumeUnfinished, 0, resumeMillis, TimeUnit.MILLISECONDS);
+        } else {
+            resumeUnfinished();
+        }
+    }
+
+    /**
+     * Queues the unfinished jobs, oldest first. The worker runs only those it can claim: a job
+     * another live instance is running stays with that instance.
+     */
+    public void resumeUnfinished() {
+        try {
+            for (DoctorDeletionJob job : jobRepository.findByStatusInOrderByCreatedAtAsc(DoctorDeletionJob.ACTIVE)) {
+                doctorFilterEngine.remove(job.getDoctorId());
+                queue(job.getJobId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Looking for unfinished doctor deletions failed", e);
+        }
+    }
+
+    /**
+     * Deletes the jobs that finished more than clinic.doctor-deletion.keep-finished-days ago.
+     */
+    @Scheduled(fixedDelayString = "${clinic.doctor-deletion.prune-ms:3600000}")
+    public void prune() {
+        jobRepository.deleteByFinishedAtBefore(LocalDateTime.now().minusDays(keepFinishedDays));
+    }
+
+    private void queue(String jobId) {
+        if (queued.add(jobId)) {
+            worker.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    queued.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(String jobId) {
+        if (jobRepository.claim(jobId, owner, DoctorDeletionJob.ACTIVE, LocalDateTime.now(), leaseEnd()) == 0) {
+            return;
+        }
+        // Read after the claim, so the cursor is the one the previous owner last committed
+        DoctorDeletionJob job = jobRepository.findById(jobId).get();
+        Long doctorId = job.getDoctorId();
+        if (job.getStatus() == Status.RUNNING) {
+            log.info("Resuming deletion of doctor {} after appointment {}", doctorId, job.getLastAppointmentId());
+        }
+        try {
+            jobRepository.started(jobId, appointmentRepository.countByDoctorId(doctorId));
+            Long afterId = job.getLastAppointmentId();
+            List<Long> ids;
+            while (!(ids = appointmentRepository.findIdsByDoctorId(doctorId, afterId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                deleteChunk(jobId, ids);
+                afterId = ids.get(ids.size() - 1);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                doctorRepository.lockById(doctorId);
+                // Bookings that locked the doctor before the job existed may have committed after the pass above
+                List<Long> late;
+                while (!(late = appointmentRepository.findIdsByDoctorId(doctorId, 0L, PageRequest.of(0, chunkSize))).isEmpty()) {
+                    deleteChunk(jobId, late);
+                }
+                doctorRepository.deleteById(doctorId);
+                waitlist.evictDoctor(doctorId);
+                cacheChangeLog.doctorDeleted(doctorId);
+                if (jobRepository.finished(jobId, owner, Status.COMPLETED, null, LocalDateTime.now()) == 0) {
+                    throw new LeaseLostException();
+                }
+            });
+            doctorScheduleIndex.evictDoctor(doctorId);
+            scheduleHorizon.evictDoctor(doctorId);
+            utilizationCounters.evictDoctor(doctorId);
+            bookingJournal.doctorDeleted(doctorId);
+            prescriptionSearchCache.invalidateAll();
+        } catch (LeaseLostException e) {
+            // The chunk was rolled back; the instance that took the job over carries on from the cursor
+            log.warn("Lost the deletion of doctor {} to another instance", doctorId);
+        } catch (RuntimeException e) {
+            log.error("Deleting doctor {} failed", doctorId, e);
+            jobRepository.finished(jobId, owner, Status.FAILED, truncate(e.getMessage()), LocalDateTime.now());
+            // The doctor still exists; make it visible again so the catalogue matches the database
+            doctorRepository.findById(doctorId).ifPresent(doctorFilterEngine::put);
+        }
+    }
+
+    /**
+     * Deletes the prescriptions, then the appointments, of a chunk and records it in the job, in the
+     * caller's transaction if there is one. Recording the chunk renews the lease; if this instance no
+     * longer holds it, the appointments are kept for the new owner, which finds their prescriptions
+     * already gone.
+     */
+    private void deleteChunk(String jobId, List<Long> ids) {
+        Long prescriptions = prescriptionRepository.deleteByAppointmentIdIn(ids).block(mongoTimeout);
+        transactionTemplate.executeWithoutResult(status -> {
+            int appointments = appointmentRepository.deleteAllByIdIn(ids);
+            if (jobRepository.chunkDeleted(jobId, owner, appointments, prescriptions != null ? prescriptions : 0,
+                    ids.get(ids.size() - 1), leaseEnd()) == 0) {
+                throw new LeaseLostException();
+            }
+        });
+    }
+
+    private LocalDateTime leaseEnd() {
+        return LocalDateTime.now().plus(lease);
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,332 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory catalogue of doctors answering any combination of the name, specialty
+ * and AM/PM filters with bitmap intersections instead of one database query per combination.
+ *
+ * Every doctor occupies a slot; each index maps a key to the {@link BitSet} of slots
+ * carrying it. Names are indexed by character trigrams so that a "contains" search
+ * only verifies the candidates left after intersecting the trigram bitmaps.
+ *
+ * Slots stay dense: removing a doctor moves the last one into its slot. A BitSet never
+ * gives back the words it has grown, so once the catalogue has shrunk to half its
+ * largest size every bitmap is copied down to its current length.
+ */
+@Component
+public class DoctorFilterEngine {
+
+    private static final int TRIGRAM = 3;
+    private static final int NOON = 12;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slot-aligned columns over slots 0..size-1
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> specialties = new ArrayList<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    private BitSet am = new BitSet();
+    private BitSet pm = new BitSet();
+    private final Map<String, BitSet> bySpecialty = new HashMap<>();
+    private final Map<String, BitSet> byTrigram = new HashMap<>();
+
+    // Largest number of slots since the bitmaps were last trimmed
+    private int highWater;
+
+    /**
+     * Replaces the whole catalogue with the given doctors.
+     *
+     * @param all Every doctor currently stored in the database.
+     */
+    public void load(Collection<Doctor> all) {
+        lock.writeLock().lock();
+        try {
+            doctors.clear();
+            names.clear();
+            specialties.clear();
+            slotById.clear();
+            am = new BitSet();
+            pm = new BitSet();
+            bySpecialty.clear();
+            byTrigram.clear();
+            highWater = 0;
+            for (Doctor doctor : all) {
+                insert(doctor);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the doctor to the catalogue, replacing any previous entry with the same id.
+     *
+     * @param doctor The saved or updated doctor.
+     */
+    public void put(Doctor doctor) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(doctor.getId());
+            if (slot != null) {
+                evict(slot);
+            }
+            insert(doctor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the doctor with the given id, if present.
+     *
+     * @param doctorId The ID of the deleted doctor.
+     */
+    public void remove(Long doctorId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(doctorId);
+            if (slot != null) {
+                evict(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the doctors matching every supplied filter. A filter that is null, blank
+     * or the literal "null" sent by the frontend is ignored.
+     *
+     * @param name Partial doctor name (case-insensitive).
+     * @param specialty Exact specialty (case-insensitive).
+     * @param amOrPm "AM" or "PM" to require at least one slot in that half of the day.
+     * @return The matching doctors in catalogue order.
+     */
+    public List<Doctor> filter(String name, String specialty, String amOrPm) {
+        String nameKey = normalize(name);
+        String specialtyKey = normalize(specialty);
+        String period = normalize(amOrPm);
+
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet(doctors.size());
+            result.set(0, doctors.size());
+            if (specialtyKey != null) {
+                intersect(result, bySpecialty.get(specialtyKey));
+            }
+            if ("am".equals(period)) {
+                result.and(am);
+            } else if ("pm".equals(period)) {
+                result.and(pm);
+            }
+            if (nameKey != null) {
+                for (String trigram : trigrams(nameKey)) {
+                    if (result.isEmpty()) {
+                        break;
+                    }
+                    intersect(result, byTrigram.get(trigram));
+                }
+            }
+
+            List<Doctor> matches = new ArrayList<>(result.cardinality());
+            for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+                // Trigrams only narrow the candidates; confirm the substring itself
+                if (nameKey == null || names.get(slot).contains(nameKey)) {
+                    matches.add(doctors.get(slot));
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the catalogued doctor with the given id, if present.
+     */
+    public Optional<Doctor> find(Long doctorId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(doctorId);
+            return slot != null ? Optional.of(doctors.get(slot)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Slots in use; equal to {@link #size()} since slots are kept dense.
+     */
+    int slots() {
+        lock.readLock().lock();
+        try {
+            return doctors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bits allocated by the largest bitmap, to check that removals give memory back.
+     */
+    int bitmapCapacity() {
+        lock.readLock().lock();
+        try {
+            int capacity = Math.max(am.size(), pm.size());
+            for (BitSet bits : bySpecialty.values()) {
+                capacity = Math.max(capacity, bits.size());
+            }
+            for (BitSet bits : byTrigram.values()) {
+                capacity = Math.max(capacity, bits.size());
+            }
+            return capacity;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Doctor doctor) {
+        String name = doctor.getName() == null ? "" : doctor.getName().toLowerCase(Locale.ROOT);
+        String specialty = doctor.getSpecialty() == null ? "" : doctor.getSpecialty().toLowerCase(Locale.ROOT);
+        int slot = doctors.size();
+        doctors.add(doctor);
+        names.add(name);
+        specialties.add(specialty);
+        highWater = Math.max(highWater, doctors.size());
+        slotById.put(doctor.getId(), slot);
+        bySpecialty.computeIfAbsent(specialty, k -> new BitSet()).set(slot);
+        for (String trigram : trigrams(name)) {
+            byTrigram.computeIfAbsent(trigram, k -> new BitSet()).set(slot);
+        }
+        if (doctor.getAvailableTimes() != null) {
+            for (String time : doctor.getAvailableTimes()) {
+                int hour = Integer.parseInt(time.trim().split(":")[0]);
+                if (hour < NOON) {
+                    am.set(slot);
+                } else {
+                    pm.set(slot);
+                }
+            }
+        }
+    }
+
+    private void evict(int slot) {
+        slotById.remove(doctors.get(slot).getId());
+        clearBits(slot);
+        int last = doctors.size() - 1;
+        if (slot != last) {
+            move(last, slot);
+        }
+        doctors.remove(last);
+        names.remove(last);
+        specialties.remove(last);
+        if (doctors.size() <= highWater / 2) {
+            trim();
+        }
+    }
+
+    /**
+     * Clears every bit of a slot, dropping the keys no other slot carries.
+     */
+    private void clearBits(int slot) {
+        am.clear(slot);
+        pm.clear(slot);
+        clearBit(bySpecialty, specialties.get(slot), slot);
+        for (String trigram : trigrams(names.get(slot))) {
+            clearBit(byTrigram, trigram, slot);
+        }
+    }
+
+    /**
+     * Moves the doctor in slot {@code from} to the empty slot {@code to}.
+     */
+    private void move(int from, int to) {
+        moveBit(am, from, to);
+        moveBit(pm, from, to);
+        moveBit(bySpecialty.get(specialties.get(from)), from, to);
+        for (String trigram : trigrams(names.get(from))) {
+            moveBit(byTrigram.get(trigram), from, to);
+        }
+        Doctor doctor = doctors.get(from);
+        doctors.set(to, doctor);
+        names.set(to, names.get(from));
+        specialties.set(to, specialties.get(from));
+        slotById.put(doctor.getId(), to);
+    }
+
+    private static void moveBit(BitSet bits, int from, int to) {
+        if (bits.get(from)) {
+            bits.clear(from);
+            bits.set(to);
+        }
+    }
+
+    /**
+     * Copies every bitmap down to its current length; {@link BitSet#clone()} allocates no more.
+     */
+    private void trim() {
+        am = (BitSet) am.clone();
+        pm = (BitSet) pm.clone();
+        bySpecialty.replaceAll((key, bits) -> (BitSet) bits.clone());
+        byTrigram.replaceAll((key, bits) -> (BitSet) bits.clone());
+        highWater = doctors.size();
+    }
+
+    private static void clearBit(Map<String, BitSet> index, String key, int slot) {
+        BitSet bits = index.get(key);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static void intersect(BitSet result, BitSet bits) {
+        if (bits == null) {
+            result.clear();
+        } else {
+            result.and(bits);
+        }
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + TRIGRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String filter) {
+        if (filter == null || filter.isBlank() || "null".equalsIgnoreCase(filter.trim())) {
+            return null;
+        }
+        return filter.trim().toLowerCase(Locale.ROOT);
+    }
+}
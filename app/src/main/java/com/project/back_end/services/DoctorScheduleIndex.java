@@ -0,0 +1,210 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps one {@link IntervalTree} of booked minutes per doctor and day, loaded lazily
+ * from the database and kept current by the booking, reschedule and cancel paths.
+ * Intervals are stored as minute-of-day, so visits of any length can be checked for overlap.
+ *
+ * A read-path cache: it answers availability listings and fast rejections, but may lag behind
+ * other instances, so bookings are decided by {@link #overlapsStored} under the doctor's row lock.
+ * At most clinic.schedule-index.max-days doctor-days are held, least recently used first out.
+ */
+@Component
+public class DoctorScheduleIndex {
+
+    private record Day(Long doctorId, LocalDate date) {
+    }
+
+    private final AppointmentRepository appointmentRepository;
+    private final LinkedHashMap<Day, IntervalTree> trees;
+
+    public DoctorScheduleIndex(AppointmentRepository appointmentRepository,
+                               @Value("${clinic.schedule-index.max-days:50000}") int maxDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Day, IntervalTree> eldest) {
+                return size() > maxDays;
+            }
+        };
+    }
+
+    /**
+     * Checks whether [start, start + minutes) overlaps any booked appointment of the doctor.
+     *
+     * @param ignoreAppointmentId Appointment to skip, used when rescheduling; may be null.
+     */
+    public boolean overlaps(Long doctorId, LocalDateTime start, int minutes, Long ignoreAppointmentId) {
+        IntervalTree tree = tree(doctorId, start.toLocalDate());
+        long from = minuteOfDay(start);
+        synchronized (tree) {
+            return tree.overlaps(from, from + minutes, ignoreAppointmentId);
+        }
+    }
+
+    /**
+     * Same check as {@link #overlaps}, but read from the database rather than the cache; the
+     * cached day is replaced by what was read. Call it inside the booking transaction after
+     * locking the doctor (see {@link DoctorService#lockSchedule}), so the answer holds until commit.
+     */
+    public boolean overlapsStored(Long doctorId, LocalDateTime start, int minutes, Long ignoreAppointmentId) {
+        Day day = new Day(doctorId, start.toLocalDate());
+        IntervalTree tree = load(day);
+        synchronized (this) {
+            trees.put(day, tree);
+        }
+        long from = minuteOfDay(start);
+        synchronized (tree) {
+            return tree.overlaps(from, from + minutes, ignoreAppointmentId);
+        }
+    }
+
+    /**
+     * Loads the trees of many doctors over a date range with a single query.
+     * Trees that are already present are left untouched.
+     */
+    public void preload(Collection<Long> doctorIds, LocalDate firstDay, LocalDate lastDay) {
+        load(doctorIds, firstDay, lastDay, false);
+    }
+
+    /**
+     * Like {@link #preload}, but replaces the cached trees with what is stored, so that
+     * {@link #overlaps} answers for the range as {@link #overlapsStored} would. Call it inside the
+     * booking transaction after locking the doctors.
+     */
+    public void reload(Collection<Long> doctorIds, LocalDate firstDay, LocalDate lastDay) {
+        load(doctorIds, firstDay, lastDay, true);
+    }
+
+    private void load(Collection<Long> doctorIds, LocalDate firstDay, LocalDate lastDay, boolean replace) {
+        if (doctorIds.isEmpty()) {
+            return;
+        }
+        Map<Day, IntervalTree> loaded = new HashMap<>();
+        for (Long doctorId : doctorIds) {
+            for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                loaded.put(new Day(doctorId, day), new IntervalTree());
+            }
+        }
+        for (Object[] row : appointmentRepository.findScheduleRowsByDoctorIdsAndAppointmentTimeBetween(
+                doctorIds, firstDay.atStartOfDay(), lastDay.atTime(LocalTime.MAX))) {
+            LocalDateTime time = (LocalDateTime) row[2];
+            insert(loaded.get(new Day((Long) row[0], time.toLocalDate())), (Long) row[1], time, durationOf(row[3]));
+        }
+        synchronized (this) {
+            if (replace) {
+                trees.putAll(loaded);
+            } else {
+                loaded.forEach(trees::putIfAbsent);
+            }
+        }
+    }
+
+    public void add(Appointment appointment) {
+        IntervalTree tree = cached(new Day(appointment.getDoctor().getId(), appointment.getAppointmentDate()));
+        if (tree != null) {
+            synchronized (tree) {
+                insert(tree, appointment.getId(), appointment.getAppointmentTime(), appointment.getDurationMinutes());
+            }
+        }
+    }
+
+    public void remove(Appointment appointment) {
+        IntervalTree tree = cached(new Day(appointment.getDoctor().getId(), appointment.getAppointmentDate()));
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(minuteOfDay(appointment.getAppointmentTime()), appointment.getId());
+            }
+        }
+    }
+
+    /**
+     * Drops one cached day so it is reloaded from the database on next use.
+     */
+    public synchronized void invalidate(Long doctorId, LocalDate day) {
+        trees.remove(new Day(doctorId, day));
+    }
+
+    /**
+     * Drops every cached day of a doctor, e.g. after the doctor is deleted.
+     */
+    public synchronized void evictDoctor(Long doctorId) {
+        trees.keySet().removeIf(day -> day.doctorId().equals(doctorId));
+    }
+
+    /**
+     * Drops every cached day, e.g. when changes made elsewhere may have been missed.
+     */
+    public synchronized void evictAll() {
+        trees.clear();
+    }
+
+    /**
+     * Drops the cached days that have passed; nothing is booked on them any more.
+     */
+    @Scheduled(fixedDelayString = "${clinic.schedule-index.prune-ms:3600000}")
+    public synchronized void prune() {
+        LocalDate today = LocalDate.now();
+        trees.keySet().removeIf(day -> day.date().isBefore(today));
+    }
+
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    private synchronized IntervalTree cached(Day day) {
+        return trees.get(day);
+    }
+
+    private IntervalTree tree(Long doctorId, LocalDate date) {
+        Day day = new Day(doctorId, date);
+        IntervalTree tree = cached(day);
+        if (tree != null) {
+            return tree;
+        }
+        // Loaded outside the lock; if another thread loaded the day meanwhile, its tree wins
+        tree = load(day);
+        synchronized (this) {
+            IntervalTree raced = trees.putIfAbsent(day, tree);
+            return raced != null ? raced : tree;
+        }
+    }
+
+    private IntervalTree load(Day day) {
+        IntervalTree tree = new IntervalTree();
+        List<Object[]> rows = appointmentRepository.findScheduleRowsByDoctorIdsAndAppointmentTimeBetween(
+                List.of(day.doctorId()), day.date().atStartOfDay(), day.date().atTime(LocalTime.MAX));
+        for (Object[] row : rows) {
+            insert(tree, (Long) row[1], (LocalDateTime) row[2], durationOf(row[3]));
+        }
+        return tree;
+    }
+
+    private static void insert(IntervalTree tree, Long appointmentId, LocalDateTime start, int minutes) {
+        long from = minuteOfDay(start);
+        tree.insert(from, from + minutes, appointmentId);
+    }
+
+    private static int durationOf(Object column) {
+        return column != null ? (Integer) column : Appointment.DEFAULT_DURATION_MINUTES;
+    }
+
+    private static long minuteOfDay(LocalDateTime time) {
+        return time.toLocalTime().toSecondOfDay() / 60;
+    }
+}
@@ -2,96 +2,327 @@ package com.project.back_end.services;
 
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Login;
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.DTO.Login;
+import com.project.back_end.DTO.AvailableSlotDTO;
+import com.project.back_end.DTO.UtilizationDTO;
 import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.AppointmentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 @Service
 public class DoctorService {
+    // What an admin may change on an existing doctor
+    private static final EditableFields<Doctor> EDITABLE = new EditableFields<Doctor>(Doctor::new)
+            .field("name", Doctor::getName, Doctor::setName)
+            .field("specialty", Doctor::getSpecialty, Doctor::setSpecialty)
+            .field("email", Doctor::getEmail, Doctor::setEmail)
+            .field("password", Doctor::getPassword, Doctor::setPassword)
+            .field("phone", Doctor::getPhone, Doctor::setPhone)
+            .field("availableTimes", d -> d.getAvailableTimes() == null ? null : new ArrayList<>(d.getAvailableTimes()),
+                    Doctor::setAvailableTimes)
+            .field("slotMinutes", Doctor::getSlotMinutes, Doctor::setSlotMinutes)
+            .field("workdayStart", Doctor::getWorkdayStart, Doctor::setWorkdayStart)
+            .field("workdayEnd", Doctor::getWorkdayEnd, Doctor::setWorkdayEnd);
+
     private final DoctorRepository doctorRepository;
-    private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
+    private final DoctorFilterEngine doctorFilterEngine;
+    private final SlotGrid slotGrid;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final UtilizationCounters utilizationCounters;
+    private final ScheduleHorizon scheduleHorizon;
+    private final CacheChangeLog cacheChangeLog;
 
-    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    public DoctorService(DoctorRepository doctorRepository, TokenService tokenService,
+                         DoctorFilterEngine doctorFilterEngine, SlotGrid slotGrid, DoctorScheduleIndex doctorScheduleIndex,
+                         UtilizationCounters utilizationCounters, ScheduleHorizon scheduleHorizon,
+                         CacheChangeLog cacheChangeLog) {
         this.doctorRepository = doctorRepository;
-        this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.doctorFilterEngine = doctorFilterEngine;
+        this.slotGrid = slotGrid;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.utilizationCounters = utilizationCounters;
+        this.scheduleHorizon = scheduleHorizon;
+        this.cacheChangeLog = cacheChangeLog;
     }
 
-    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadDoctorCatalog() {
+        List<Doctor> doctors = doctorRepository.findAllWithAvailableTimes();
+        doctorFilterEngine.load(doctors);
+        scheduleHorizon.rebuild(doctors);
+    }
+
+    /**
+     * Lists the doctor's free slots on the given day. Within the schedule horizon this reads
+     * only the catalogue and the off-heap bitmasks; other days go through the schedule index.
+     */
+    @Transactional(readOnly = true)
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        List<String> allSlots = Arrays.asList("09:00", "10:00", "11:00", "12:00", "13:00", "14:00", "15:00", "16:00");
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(LocalTime.MAX);
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
-        Set<String> bookedSlots = new HashSet<>();
-        for (Appointment appt : appointments) {
-            bookedSlots.add(appt.getAppointmentTime().toLocalTime().toString().substring(0,5));
-        }
         List<String> availableSlots = new ArrayList<>();
-        for (String slot : allSlots) {
-            if (!bookedSlots.contains(slot)) {
-                availableSlots.add(slot);
+        Optional<Doctor> doctorOpt = doctorFilterEngine.find(doctorId);
+        if (!doctorOpt.isPresent()) {
+            doctorOpt = doctorRepository.findById(doctorId);
+        }
+        if (!doctorOpt.isPresent()) {
+            return availableSlots;
+        }
+        Doctor doctor = doctorOpt.get();
+        int slotMinutes = slotGrid.slotMinutes(doctor);
+        for (LocalTime slot : slotGrid.slotsFor(doctor)) {
+            if (isSlotFree(doctorId, date.atTime(slot), slotMinutes)) {
+                availableSlots.add(slot.toString());
             }
         }
         return availableSlots;
     }
 
+    /**
+     * Checks that the appointment starts within the booking horizon and on the doctor's slot grid,
+     * ends within the working day and does not overlap any other booking of the doctor, whatever
+     * the durations involved.
+     * Answered from the schedule index, so it may miss a booking made elsewhere a moment ago;
+     * writes re-check with {@link #isSlotBookable}.
+     */
+    public boolean isSlotAvailable(Doctor doctor, Appointment appointment) {
+        LocalDateTime start = appointment.getAppointmentTime();
+        int minutes = appointment.getDurationMinutes();
+        return slotGrid.withinHorizon(start) && slotGrid.accepts(doctor, start.toLocalTime(), minutes)
+                && !doctorScheduleIndex.overlaps(doctor.getId(), start, minutes, appointment.getId());
+    }
+
+    /**
+     * Locks the doctor's row until the surrounding transaction ends, so bookings of the doctor
+     * made by any instance are checked and written one at a time.
+     *
+     * @return The locked doctor, or empty if it no longer exists or is being deleted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Doctor> lockSchedule(Long doctorId) {
+        return doctorRepository.lockBookableById(doctorId, DoctorDeletionJob.ACTIVE);
+    }
+
+    /**
+     * The check of {@link #isSlotAvailable} against the stored appointments. Call it after
+     * {@link #lockSchedule} in the transaction that writes the appointment.
+     */
+    public boolean isSlotBookable(Doctor doctor, Appointment appointment) {
+        LocalDateTime start = appointment.getAppointmentTime();
+        int minutes = appointment.getDurationMinutes();
+        return slotGrid.withinHorizon(start) && slotGrid.accepts(doctor, start.toLocalTime(), minutes)
+                && !doctorScheduleIndex.overlapsStored(doctor.getId(), start, minutes, appointment.getId());
+    }
+
+    /**
+     * Returns the earliest free slots across every doctor of a specialty, merging the
+     * per-doctor chronological slot streams with a priority queue (k-way merge).
+     * Doctors the schedule horizon cannot answer for are preloaded into the schedule index with one query.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSlotDTO> findNextAvailableSlots(String specialty, String amOrPm, int count, int horizonDays) {
+        List<Doctor> doctors = doctorFilterEngine.filter(null, specialty, amOrPm);
+        List<AvailableSlotDTO> slots = new ArrayList<>();
+        if (doctors.isEmpty() || count <= 0 || horizonDays <= 0) {
+            return slots;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate firstDay = now.toLocalDate();
+        LocalDate lastDay = firstDay.plusDays(horizonDays - 1L);
+
+        List<Long> doctorIds = new ArrayList<>();
+        boolean inHorizon = scheduleHorizon.covers(firstDay) && scheduleHorizon.covers(lastDay);
+        for (Doctor doctor : doctors) {
+            if (!inHorizon || !scheduleHorizon.tracks(doctor.getId())) {
+                doctorIds.add(doctor.getId());
+            }
+        }
+        doctorScheduleIndex.preload(doctorIds, firstDay, lastDay);
+
+        PriorityQueue<SlotCursor> heap = new PriorityQueue<>();
+        for (Doctor doctor : doctors) {
+            List<LocalTime> grid = new ArrayList<>();
+            for (LocalTime time : slotGrid.slotsFor(doctor)) {
+                if ((!"AM".equalsIgnoreCase(amOrPm) || time.getHour() < 12)
+                        && (!"PM".equalsIgnoreCase(amOrPm) || time.getHour() >= 12)) {
+                    grid.add(time);
+                }
+            }
+            SlotCursor cursor = new SlotCursor(doctor, grid, slotGrid.slotMinutes(doctor), this::isSlotFree, now, firstDay, lastDay);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        while (slots.size() < count && !heap.isEmpty()) {
+            SlotCursor cursor = heap.poll();
+            Doctor doctor = cursor.doctor;
+            slots.add(new AvailableSlotDTO(doctor.getId(), doctor.getName(), doctor.getSpecialty(), cursor.current));
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Reports booked against offered time per doctor and per specialty over [from, to], as one row
+     * per doctor (or specialty) and bucket. Doctors come from the in-memory catalogue and bookings
+     * from the utilization counters, so no appointment is read.
+     *
+     * @param granularity "day", "week" (ISO weeks, clipped to the range) or anything else for one bucket.
+     */
+    public Map<String, Object> getUtilization(LocalDate from, LocalDate to, String granularity) {
+        List<LocalDate[]> buckets = new ArrayList<>();
+        for (LocalDate start = from; !start.isAfter(to); ) {
+            LocalDate end = "day".equalsIgnoreCase(granularity) ? start
+                    : "week".equalsIgnoreCase(granularity) ? start.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY))
+                    : to;
+            end = end.isAfter(to) ? to : end;
+            buckets.add(new LocalDate[] {start, end});
+            start = end.plusDays(1);
+        }
+
+        List<UtilizationDTO> doctorRows = new ArrayList<>();
+        // Per specialty and bucket: {appointments, bookedMinutes, offeredMinutes, offeredSlots}
+        Map<String, long[][]> specialtyTotals = new TreeMap<>();
+        for (Doctor doctor : doctorFilterEngine.filter(null, null, null)) {
+            long slotsPerDay = slotGrid.slotsFor(doctor).size();
+            long minutesPerDay = slotsPerDay * slotGrid.slotMinutes(doctor);
+            for (int b = 0; b < buckets.size(); b++) {
+                LocalDate[] bucket = buckets.get(b);
+                long days = ChronoUnit.DAYS.between(bucket[0], bucket[1]) + 1;
+                long[] booked = utilizationCounters.totals(doctor.getId(), bucket[0], bucket[1]);
+                doctorRows.add(new UtilizationDTO(doctor.getId(), doctor.getName(), doctor.getSpecialty(), bucket[0], bucket[1],
+                        booked[0], booked[1], days * minutesPerDay, days * slotsPerDay));
+                long[] totals = specialtyTotals.computeIfAbsent(String.valueOf(doctor.getSpecialty()),
+                        k -> new long[buckets.size()][4])[b];
+                totals[0] += booked[0];
+                totals[1] += booked[1];
+                totals[2] += days * minutesPerDay;
+                totals[3] += days * slotsPerDay;
+            }
+        }
+        List<UtilizationDTO> specialtyRows = new ArrayList<>();
+        specialtyTotals.forEach((specialty, perBucket) -> {
+            for (int b = 0; b < buckets.size(); b++) {
+                long[] totals = perBucket[b];
+                specialtyRows.add(new UtilizationDTO(null, null, specialty, buckets.get(b)[0], buckets.get(b)[1],
+                        totals[0], totals[1], totals[2], totals[3]));
+            }
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("doctors", doctorRows);
+        result.put("specialties", specialtyRows);
+        return result;
+    }
+
     public int saveDoctor(Doctor doctor) {
         if (doctorRepository.findByEmail(doctor.getEmail()).isPresent()) {
             return -1;
         }
         try {
-            doctorRepository.save(doctor);
+            Doctor saved = doctorRepository.save(doctor);
+            doctorFilterEngine.put(saved);
+            scheduleHorizon.track(saved);
+            cacheChangeLog.doctorSaved(saved.getId());
             return 1;
         } catch (Exception e) {
             return 0;
         }
     }
 
-    public int updateDoctor(Doctor doctor) {
-        Optional<Doctor> existing = doctorRepository.findById(doctor.getId());
-        if (!existing.isPresent()) {
-            return -1;
-        }
-        try {
-            doctorRepository.save(doctor);
-            return 1;
-        } catch (Exception e) {
-            return 0;
+    /**
+     * Applies an admin's edit with optimistic concurrency, the same way as appointment updates:
+     * a stale version gets 409 with the current doctor, and a save that loses a race is replayed
+     * on the newer state when the two edits changed different fields.
+     */
+    public ResponseEntity<Map<String, Object>> updateDoctor(Doctor doctor) {
+        Map<String, Object> response = new HashMap<>();
+        Doctor base = null;
+        Set<String> edited = null;
+        for (int attempt = 1; ; attempt++) {
+            Optional<Doctor> existing = doctorRepository.findByIdWithAvailableTimes(doctor.getId());
+            if (!existing.isPresent()) {
+                response.put("message", "Doctor not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            Doctor current = existing.get();
+            if (base == null) {
+                if (doctor.getVersion() != null && !doctor.getVersion().equals(current.getVersion())) {
+                    return changedElsewhere(response, current);
+                }
+                base = current;
+                // Passwords are never sent to clients, so an edit without one keeps the stored password
+                edited = EDITABLE.changed(base, doctor);
+            } else if (!Collections.disjoint(edited, EDITABLE.changed(base, current))) {
+                return changedElsewhere(response, current);
+            }
+            Doctor updated = EDITABLE.copy(current);
+            updated.setId(current.getId());
+            updated.setVersion(current.getVersion());
+            EDITABLE.apply(doctor, updated, edited);
+            try {
+                Doctor saved = doctorRepository.save(updated);
+                doctorFilterEngine.put(saved);
+                scheduleHorizon.track(saved);
+                cacheChangeLog.doctorSaved(saved.getId());
+                response.put("message", "Doctor updated");
+                response.put("version", saved.getVersion());
+                return ResponseEntity.ok(response);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt == EditableFields.MAX_SAVE_ATTEMPTS) {
+                    return changedElsewhere(response, doctorRepository.findByIdWithAvailableTimes(doctor.getId()).orElse(current));
+                }
+            } catch (Exception e) {
+                response.put("message", "Some internal error occurred");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
         }
     }
 
+    private static ResponseEntity<Map<String, Object>> changedElsewhere(Map<String, Object> response, Doctor current) {
+        response.put("message", "Doctor was changed by someone else; review the current version and try again");
+        response.put("current", current);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
     @Transactional
     public List<Doctor> getDoctors() {
-        return doctorRepository.findAll();
+        return getDoctors(true);
     }
 
-    public int deleteDoctor(long id) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(id);
-        if (!doctorOpt.isPresent()) {
-            return -1;
-        }
-        try {
-            appointmentRepository.deleteAllByDoctorId(id);
-            doctorRepository.deleteById(id);
-            return 1;
-        } catch (Exception e) {
-            return 0;
-        }
+    /**
+     * Lists every doctor, loading the available times only when they will be sent.
+     *
+     * @param withAvailableTimes False when the caller leaves availableTimes out of the response.
+     */
+    @Transactional
+    public List<Doctor> getDoctors(boolean withAvailableTimes) {
+        // Fetch-join availableTimes so serialising the list costs one query, not one per doctor
+        return withAvailableTimes ? doctorRepository.findAllWithAvailableTimes() : doctorRepository.findAll();
     }
 
     public ResponseEntity<Map<String, String>> validateDoctor(Login login) {
         Map<String, String> response = new HashMap<>();
-        Optional<Doctor> doctorOpt = doctorRepository.findByEmail(login.getEmail());
+        Optional<Doctor> doctorOpt = doctorRepository.findByEmail(login.getIdentifier());
         if (!doctorOpt.isPresent()) {
             response.put("message", "Doctor not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
@@ -101,7 +332,7 @@ public class DoctorService {
             response.put("message", "Invalid password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
-        String token = tokenService.generateTokenForDoctor(doctor);
+        String token = tokenService.generateToken(doctor.getEmail());
         response.put("token", token);
         return ResponseEntity.ok(response);
     }
@@ -114,70 +345,93 @@ public class DoctorService {
         return result;
     }
 
-    @Transactional
+    // Every name/specialty/AM-PM combination is answered by the same in-memory engine
+    public List<Doctor> filterDoctors(String name, String specialty, String amOrPm) {
+        return doctorFilterEngine.filter(name, specialty, amOrPm);
+    }
+
     public Map<String, Object> filterDoctorsByNameSpecilityandTime(String name, String specialty, String amOrPm) {
-        Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-        doctors = filterDoctorByTime(doctors, amOrPm);
-        result.put("doctors", doctors);
-        return result;
+        return doctorsResult(filterDoctors(name, specialty, amOrPm));
     }
 
-    @Transactional
     public Map<String, Object> filterDoctorByNameAndTime(String name, String amOrPm) {
-        Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCase(name);
-        doctors = filterDoctorByTime(doctors, amOrPm);
-        result.put("doctors", doctors);
-        return result;
+        return doctorsResult(filterDoctors(name, null, amOrPm));
     }
 
-    @Transactional
     public Map<String, Object> filterDoctorByNameAndSpecility(String name, String specialty) {
-        Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-        result.put("doctors", doctors);
-        return result;
+        return doctorsResult(filterDoctors(name, specialty, null));
     }
 
-    @Transactional
     public Map<String, Object> filterDoctorByTimeAndSpecility(String specialty, String amOrPm) {
-        Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-        doctors = filterDoctorByTime(doctors, amOrPm);
-        result.put("doctors", doctors);
-        return result;
+        return doctorsResult(filterDoctors(null, specialty, amOrPm));
     }
 
-    @Transactional
     public Map<String, Object> filterDoctorBySpecility(String specialty) {
-        Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-        result.put("doctors", doctors);
-        return result;
+        return doctorsResult(filterDoctors(null, specialty, null));
     }
 
-    @Transactional
     public Map<String, Object> filterDoctorsByTime(String amOrPm) {
+        return doctorsResult(filterDoctors(null, null, amOrPm));
+    }
+
+    private Map<String, Object> doctorsResult(List<Doctor> doctors) {
         Map<String, Object> result = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findAll();
-        doctors = filterDoctorByTime(doctors, amOrPm);
         result.put("doctors", doctors);
         return result;
     }
 
-    private List<Doctor> filterDoctorByTime(List<Doctor> doctors, String amOrPm) {
-        List<Doctor> filtered = new ArrayList<>();
-        for (Doctor doctor : doctors) {
-            List<String> times = doctor.getAvailableTimes();
-            for (String time : times) {
-                int hour = Integer.parseInt(time.split(":")[0]);
-                if (("AM".equalsIgnoreCase(amOrPm) && hour < 12) || ("PM".equalsIgnoreCase(amOrPm) && hour >= 12)) {
-                    filtered.add(doctor);
-                    break;
+    private boolean isSlotFree(Long doctorId, LocalDateTime start, int minutes) {
+        int free = scheduleHorizon.isFree(doctorId, start, minutes);
+        return free >= 0 ? free == 1 : !doctorScheduleIndex.overlaps(doctorId, start, minutes, null);
+    }
+
+    @FunctionalInterface
+    private interface SlotCheck {
+        boolean isFree(Long doctorId, LocalDateTime start, int minutes);
+    }
+
+    // Walks one doctor's free slots in chronological order for the k-way merge
+    private static final class SlotCursor implements Comparable<SlotCursor> {
+        private final Doctor doctor;
+        private final List<LocalTime> grid;
+        private final int slotMinutes;
+        private final SlotCheck schedule;
+        private final LocalDateTime notBefore;
+        private final LocalDate lastDay;
+        private LocalDate day;
+        private int index = -1;
+        private LocalDateTime current;
+
+        private SlotCursor(Doctor doctor, List<LocalTime> grid, int slotMinutes, SlotCheck schedule,
+                           LocalDateTime notBefore, LocalDate firstDay, LocalDate lastDay) {
+            this.doctor = doctor;
+            this.grid = grid;
+            this.slotMinutes = slotMinutes;
+            this.schedule = schedule;
+            this.notBefore = notBefore;
+            this.day = firstDay;
+            this.lastDay = lastDay;
+        }
+
+        private boolean advance() {
+            while (!day.isAfter(lastDay)) {
+                while (++index < grid.size()) {
+                    LocalDateTime candidate = day.atTime(grid.get(index));
+                    if (candidate.isAfter(notBefore) && schedule.isFree(doctor.getId(), candidate, slotMinutes)) {
+                        current = candidate;
+                        return true;
+                    }
                 }
+                day = day.plusDays(1);
+                index = -1;
             }
+            return false;
+        }
+
+        @Override
+        public int compareTo(SlotCursor other) {
+            int byTime = current.compareTo(other.current);
+            return byTime != 0 ? byTime : doctor.getId().compareTo(other.doctor.getId());
         }
-        return filtered;
     }
 }
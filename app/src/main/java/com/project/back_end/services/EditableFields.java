@@ -0,0 +1,96 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The fields a client may edit on a versioned entity, for three-way merges under optimistic
+ * concurrency. When a save loses the race to another save of the same row, the edit is replayed
+ * on the newer state if the two changed different fields; otherwise the caller reports a conflict.
+ */
+final class EditableFields<T> {
+
+    /**
+     * Saves tried for one edit before a lost race is reported as a conflict.
+     */
+    static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private record Field<T>(String name, Function<T, ?> value, BiConsumer<T, T> copy) {
+    }
+
+    private final Supplier<T> factory;
+    private final List<Field<T>> fields = new ArrayList<>();
+
+    EditableFields(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Adds a field compared and copied by value. Lists are compared by their elements.
+     */
+    <V> EditableFields<T> field(String name, Function<T, V> getter, BiConsumer<T, V> setter) {
+        fields.add(new Field<T>(name, entity -> comparable(getter.apply(entity)),
+                (from, to) -> setter.accept(to, getter.apply(from))));
+        return this;
+    }
+
+    /**
+     * Adds a reference to another entity, compared by the given key (its id) and copied as is.
+     */
+    <V> EditableFields<T> reference(String name, Function<T, V> getter, BiConsumer<T, V> setter,
+                                    Function<V, ?> key) {
+        fields.add(new Field<T>(name, entity -> {
+            V target = getter.apply(entity);
+            return target == null ? null : key.apply(target);
+        }, (from, to) -> setter.accept(to, getter.apply(from))));
+        return this;
+    }
+
+    /**
+     * Names of the fields whose values differ between the two states. Fields the second state
+     * leaves null count as unchanged: a client omits what it does not edit.
+     */
+    Set<String> changed(T from, T to) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Field<T> field : fields) {
+            Object value = field.value().apply(to);
+            if (value != null && !Objects.equals(field.value().apply(from), value)) {
+                names.add(field.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * A new, detached instance holding every editable field of the source; ids and versions are left to the caller.
+     */
+    T copy(T source) {
+        T copy = factory.get();
+        for (Field<T> field : fields) {
+            field.copy().accept(source, copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the named fields from one state onto another.
+     */
+    void apply(T from, T to, Set<String> names) {
+        for (Field<T> field : fields) {
+            if (names.contains(field.name())) {
+                field.copy().accept(from, to);
+            }
+        }
+    }
+
+    private static Object comparable(Object value) {
+        // Hibernate's collection wrappers do not compare by content
+        return value instanceof List<?> list ? new ArrayList<>(list) : value;
+    }
+}
@@ -0,0 +1,183 @@
+package com.project.back_end.services;
+
+/**
+ * Balanced (AVL) interval tree over half-open intervals [start, end) tagged with an id.
+ * Each node keeps the largest end in its subtree, so an overlap query can skip
+ * every subtree that ends before the probe starts and runs in O(log n).
+ *
+ * Not thread-safe; callers synchronize on the tree instance.
+ */
+public class IntervalTree {
+
+    private static final class Node {
+        private final long start;
+        private final long end;
+        private final long id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Inserts the interval [start, end) tagged with the given id.
+     */
+    public void insert(long start, long end, long id) {
+        root = insert(root, new Node(start, end, id));
+        size++;
+    }
+
+    /**
+     * Removes the interval with the given start and id.
+     *
+     * @return true if an interval was removed.
+     */
+    public boolean remove(long start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Checks whether any stored interval other than {@code ignoreId} overlaps [start, end).
+     *
+     * @param ignoreId Id to skip, e.g. the appointment being rescheduled; null to check all.
+     */
+    public boolean overlaps(long start, long end, Long ignoreId) {
+        return overlaps(root, start, end, ignoreId);
+    }
+
+    private static boolean overlaps(Node node, long start, long end, Long ignoreId) {
+        if (node == null || node.maxEnd <= start) {
+            return false;
+        }
+        if (node.start < end && node.end > start && (ignoreId == null || node.id != ignoreId)) {
+            return true;
+        }
+        if (overlaps(node.left, start, end, ignoreId)) {
+            return true;
+        }
+        // Everything to the right starts at or after node.start
+        return node.start < end && overlaps(node.right, start, end, ignoreId);
+    }
+
+    private static int compare(long startA, long idA, long startB, long idB) {
+        int byStart = Long.compare(startA, startB);
+        return byStart != 0 ? byStart : Long.compare(idA, idB);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node.start, node.id) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.start, node.id);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.start, successor.end, successor.id);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long max = node.end;
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.maxEnd);
+        }
+        node.maxEnd = max;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
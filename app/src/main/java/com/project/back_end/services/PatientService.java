@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -33,16 +34,10 @@ public class PatientService {
     }
 
     @Transactional
-    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token) {
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, Long callerId) {
         Map<String, Object> response = new HashMap<>();
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = patientRepository.findById(id);
-        if (!patientOpt.isPresent()) {
-            response.put("message", "Patient not found");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-        }
-        Patient patient = patientOpt.get();
-        if (!patient.getEmail().equals(email)) {
+        // The caller was resolved from the token already; no need to load the patient again
+        if (!id.equals(callerId)) {
             response.put("message", "Unauthorized access");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
@@ -55,7 +50,7 @@ public class PatientService {
         return ResponseEntity.ok(response);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> filterByCondition(String condition, Long id) {
         Map<String, Object> response = new HashMap<>();
         Optional<Patient> patientOpt = patientRepository.findById(id);
@@ -63,21 +58,18 @@ public class PatientService {
             response.put("message", "Patient not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
-        int status;
+        // Past and future are decided by the clock, not by the status column
+        LocalDateTime now = LocalDateTime.now();
+        List<Appointment> appointments;
         if ("past".equalsIgnoreCase(condition)) {
-            status = 1;
+            appointments = appointmentRepository.findPastByPatientId(id, now);
         } else if ("future".equalsIgnoreCase(condition)) {
-            status = 0;
+            appointments = appointmentRepository.findUpcomingByPatientId(id, now);
         } else {
             response.put("message", "Invalid condition");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        List<Appointment> appointments = appointmentRepository.findByPatientIdAndStatus(id, status);
-        List<AppointmentDTO> dtos = new ArrayList<>();
-        for (Appointment appt : appointments) {
-            dtos.add(new AppointmentDTO(appt));
-        }
-        response.put("appointments", dtos);
+        response.put("appointments", toDtos(appointments));
         return ResponseEntity.ok(response);
     }
 
@@ -89,7 +81,7 @@ public class PatientService {
             response.put("message", "Patient not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
-        List<Appointment> appointments = appointmentRepository.findByPatientIdAndDoctorName(patientId, name);
+        List<Appointment> appointments = appointmentRepository.filterByDoctorNameAndPatientId(name, patientId);
         List<AppointmentDTO> dtos = new ArrayList<>();
         for (Appointment appt : appointments) {
             dtos.add(new AppointmentDTO(appt));
@@ -98,7 +90,7 @@ public class PatientService {
         return ResponseEntity.ok(response);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> filterByDoctorAndCondition(String condition, String name, long patientId) {
         Map<String, Object> response = new HashMap<>();
         Optional<Patient> patientOpt = patientRepository.findById(patientId);
@@ -106,29 +98,24 @@ public class PatientService {
             response.put("message", "Patient not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
-        int status;
+        LocalDateTime now = LocalDateTime.now();
+        List<Appointment> appointments;
         if ("past".equalsIgnoreCase(condition)) {
-            status = 1;
+            appointments = appointmentRepository.findPastByPatientIdAndDoctorName(patientId, name, now);
         } else if ("future".equalsIgnoreCase(condition)) {
-            status = 0;
+            appointments = appointmentRepository.findUpcomingByPatientIdAndDoctorName(patientId, name, now);
         } else {
             response.put("message", "Invalid condition");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        List<Appointment> appointments = appointmentRepository.findByPatientIdAndDoctorNameAndStatus(patientId, name, status);
-        List<AppointmentDTO> dtos = new ArrayList<>();
-        for (Appointment appt : appointments) {
-            dtos.add(new AppointmentDTO(appt));
-        }
-        response.put("appointments", dtos);
+        response.put("appointments", toDtos(appointments));
         return ResponseEntity.ok(response);
     }
 
     @Transactional
-    public ResponseEntity<Map<String, Object>> getPatientDetails(String token) {
+    public ResponseEntity<Map<String, Object>> getPatientDetails(Long patientId) {
         Map<String, Object> response = new HashMap<>();
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = patientRepository.findByEmail(email);
+        Optional<Patient> patientOpt = patientRepository.findById(patientId);
         if (!patientOpt.isPresent()) {
             response.put("message", "Patient not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
@@ -136,4 +123,12 @@ public class PatientService {
         response.put("patient", patientOpt.get());
         return ResponseEntity.ok(response);
     }
+
+    private static List<AppointmentDTO> toDtos(List<Appointment> appointments) {
+        List<AppointmentDTO> dtos = new ArrayList<>(appointments.size());
+        for (Appointment appt : appointments) {
+            dtos.add(new AppointmentDTO(appt));
+        }
+        return dtos;
+    }
 }
@@ -0,0 +1,72 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used memory of medication search results, so popular searches skip Mongo.
+ * Holds at most clinic.prescription.search.cache-entries results for
+ * clinic.prescription.search.cache-ttl-seconds each. Any prescription write empties it, since
+ * a new or removed document can move between pages of any cached search.
+ */
+@Component
+public class PrescriptionSearchCache {
+
+    private record Cached(Map<String, Object> body, long expiresAt) {
+    }
+
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Cached> entries;
+    // Bumped by every invalidation; results computed before it are not stored
+    private long generation;
+
+    public PrescriptionSearchCache(@Value("${clinic.prescription.search.cache-entries:1000}") int maxEntries,
+                                   @Value("${clinic.prescription.search.cache-ttl-seconds:60}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized Map<String, Object> get(String key) {
+        Cached cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return cached.body();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a result unless the cache was invalidated after the search started.
+     *
+     * @param generation The value of {@link #generation()} read before searching.
+     */
+    public synchronized void put(String key, Map<String, Object> body, long generation) {
+        if (generation == this.generation) {
+            entries.put(key, new Cached(body, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,50 +1,394 @@
 package com.project.back_end.services;
 
 import com.project.back_end.models.Prescription;
-import com.project_back_end.repo.PrescriptionRepository;
+import com.project.back_end.repo.ReactivePrescriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.stereotype.Service;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import org.bson.Document;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
+// Every method returns a Mono; the servlet thread is released while Mongo is working
 @Service
 public class PrescriptionService {
-    private final PrescriptionRepository prescriptionRepository;
+    private static final Logger log = LoggerFactory.getLogger(PrescriptionService.class);
+    private static final int MAX_BULK_SIZE = 500;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Deeper pages mean large skips; narrow the search instead
+    private static final int MAX_PAGE = 50;
+    // Served medication and date searches before the prefix bucket; replaced by the indexes on Prescription
+    private static final List<String> SUPERSEDED_INDEXES = List.of("medication_issued", "issuedAt");
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    private final ReactivePrescriptionRepository prescriptionRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final PrescriptionSearchCache searchCache;
+    private final CacheChangeLog cacheChangeLog;
+    private final Duration timeout;
+
+    public PrescriptionService(ReactivePrescriptionRepository prescriptionRepository,
+                               ReactiveMongoTemplate mongoTemplate,
+                               Validator validator,
+                               PrescriptionSearchCache searchCache,
+                               CacheChangeLog cacheChangeLog,
+                               @Value("${clinic.prescription.timeout-ms:5000}") long timeoutMs) {
         this.prescriptionRepository = prescriptionRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.searchCache = searchCache;
+        this.cacheChangeLog = cacheChangeLog;
+        this.timeout = Duration.ofMillis(timeoutMs);
     }
 
-    public ResponseEntity<Map<String, String>> savePrescription(Prescription prescription) {
-        Map<String, String> response = new HashMap<>();
-        try {
-            Optional<Prescription> existing = prescriptionRepository.findByAppointmentId(prescription.getAppointmentId());
-            if (existing.isPresent()) {
-                response.put("message", "Prescription already exists for this appointment");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    /**
+     * Creates the text index over medication and doctor notes, drops the indexes the search used
+     * to be served by, and fills medicationKey, medicationPrefixes and issuedAt on documents saved
+     * before they existed (issuedAt from the ObjectId timestamp). Runs in the background; every step
+     * is a no-op once done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareSearch() {
+        TextIndexDefinition textIndex = new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .named("medication_notes_text")
+                .onField("medication", 2F)
+                .onField("doctorNotes")
+                .build();
+        Query missing = new Query(new Criteria().orOperator(Criteria.where("medicationKey").exists(false),
+                Criteria.where("medicationPrefixes").exists(false), Criteria.where("issuedAt").exists(false)));
+        AggregationExpression key = StringOperators.ToLower.lowerValueOf(StringOperators.Trim.valueOf("medication"));
+        AggregationUpdate backfill = AggregationUpdate.update()
+                .set("medicationKey").toValue(key)
+                .set("medicationPrefixes").toValue(prefixBuckets(key))
+                .set("issuedAt").toValue(ConditionalOperators.ifNull("issuedAt")
+                        .thenValueOf(ConvertOperators.valueOf("_id").convertToDate()));
+        ReactiveIndexOperations indexes = mongoTemplate.indexOps(Prescription.class);
+        Flux.fromIterable(SUPERSEDED_INDEXES)
+                .concatMap(name -> indexes.dropIndex(name).onErrorResume(e -> Mono.empty()))
+                .then(indexes.ensureIndex(textIndex))
+                .then(mongoTemplate.updateMulti(missing, backfill, Prescription.class))
+                .subscribe(result -> {
+                    if (result.getModifiedCount() > 0) {
+                        log.info("Prepared {} older prescriptions for medication search", result.getModifiedCount());
+                    }
+                }, e -> log.warn("Could not prepare prescriptions for medication search", e));
+    }
+
+    // The distinct first 1..PREFIX_BUCKET_LENGTH code points of a key, as Prescription.setMedication keeps them
+    private static AggregationExpression prefixBuckets(AggregationExpression key) {
+        return context -> {
+            List<Object> buckets = new ArrayList<>();
+            for (int length = 1; length <= Prescription.PREFIX_BUCKET_LENGTH; length++) {
+                buckets.add(StringOperators.valueOf(key).substringCP(0, length).toDocument(context));
+            }
+            Document nonEmpty = new Document("$filter", new Document("input", buckets)
+                    .append("cond", new Document("$ne", List.of("$$this", ""))));
+            return new Document("$setUnion", List.of(nonEmpty));
+        };
+    }
+
+    /**
+     * Saves one prescription, or answers 400 if the appointment already has one: found by the
+     * check up front, or, when another request stores it in between, rejected by the unique index.
+     */
+    public Mono<ResponseEntity<Map<String, String>>> savePrescription(Prescription prescription) {
+        return prescriptionRepository.existsByAppointmentId(prescription.getAppointmentId())
+                .flatMap(exists -> {
+                    if (exists) {
+                        return Mono.just(alreadyExists());
+                    }
+                    if (prescription.getIssuedAt() == null) {
+                        prescription.setIssuedAt(LocalDateTime.now());
+                    }
+                    return prescriptionRepository.save(prescription)
+                            .doOnNext(saved -> prescriptionsChanged())
+                            .map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(message("Prescription saved")));
+                })
+                .timeout(timeout)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(alreadyExists()))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(message("Error saving prescription"))));
+    }
+
+    private static ResponseEntity<Map<String, String>> alreadyExists() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message("Prescription already exists for this appointment"));
+    }
+
+    /**
+     * Validates a list of prescriptions and writes the acceptable ones with one unordered bulk insert.
+     * Each item gets a status: "saved", "invalid", "duplicate" (already stored, repeated in the
+     * request, or rejected by the unique index) or "error".
+     */
+    public Mono<ResponseEntity<Map<String, Object>>> savePrescriptions(List<Prescription> prescriptions) {
+        if (prescriptions == null || prescriptions.isEmpty() || prescriptions.size() > MAX_BULK_SIZE) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(body("message", "A bulk submission must contain between 1 and " + MAX_BULK_SIZE + " prescriptions")));
+        }
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Integer> candidates = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < prescriptions.size(); i++) {
+            Prescription prescription = prescriptions.get(i);
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            result.put("appointmentId", prescription.getAppointmentId());
+            Set<ConstraintViolation<Prescription>> violations = validator.validate(prescription);
+            if (!violations.isEmpty()) {
+                result.put("status", "invalid");
+                result.put("message", violations.iterator().next().getMessage());
+            } else if (!seen.add(prescription.getAppointmentId())) {
+                result.put("status", "duplicate");
+                result.put("message", "Appointment appears more than once in this submission");
+            } else {
+                candidates.add(i);
             }
-            prescriptionRepository.save(prescription);
-            response.put("message", "Prescription saved");
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            response.put("message", "Error saving prescription");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            results.add(result);
+        }
+        if (candidates.isEmpty()) {
+            return Mono.just(bulkResponse(results));
         }
+
+        return prescriptionRepository.findByAppointmentIdIn(seen)
+                .map(Prescription::getAppointmentId)
+                .collect(HashSet<Long>::new, Set::add)
+                .flatMap(existing -> {
+                    List<Integer> toInsert = new ArrayList<>();
+                    for (Integer index : candidates) {
+                        if (existing.contains(prescriptions.get(index).getAppointmentId())) {
+                            results.get(index).put("status", "duplicate");
+                            results.get(index).put("message", "Prescription already exists for this appointment");
+                        } else {
+                            toInsert.add(index);
+                        }
+                    }
+                    if (toInsert.isEmpty()) {
+                        return Mono.just(bulkResponse(results));
+                    }
+                    List<Prescription> documents = new ArrayList<>();
+                    LocalDateTime now = LocalDateTime.now();
+                    for (Integer index : toInsert) {
+                        Prescription document = prescriptions.get(index);
+                        if (document.getIssuedAt() == null) {
+                            document.setIssuedAt(now);
+                        }
+                        documents.add(document);
+                    }
+                    return mongoTemplate.bulkOps(BulkMode.UNORDERED, Prescription.class)
+                            .insert(documents)
+                            .execute()
+                            .doFinally(signal -> prescriptionsChanged())
+                            .map(written -> {
+                                markSaved(results, toInsert);
+                                return bulkResponse(results);
+                            })
+                            .onErrorResume(e -> bulkWriteFailure(e) != null, e -> {
+                                // Unordered: everything not listed as an error was written
+                                markSaved(results, toInsert);
+                                for (BulkWriteError error : bulkWriteFailure(e).getWriteErrors()) {
+                                    Map<String, Object> result = results.get(toInsert.get(error.getIndex()));
+                                    boolean duplicate = error.getCode() == DUPLICATE_KEY;
+                                    result.put("status", duplicate ? "duplicate" : "error");
+                                    result.put("message", duplicate ? "Prescription already exists for this appointment"
+                                            : "Error saving prescription");
+                                }
+                                return Mono.just(bulkResponse(results));
+                            });
+                })
+                .timeout(timeout)
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(body("message", "Error saving prescriptions"))));
     }
 
-    public ResponseEntity<Map<String, Object>> getPrescription(Long appointmentId) {
+    /**
+     * The driver's report of a partly failed bulk write. The template translates it, e.g. into a
+     * DuplicateKeyException when an item hit the unique index, and keeps it as the cause.
+     */
+    private static MongoBulkWriteException bulkWriteFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException failure) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    private static void markSaved(List<Map<String, Object>> results, List<Integer> indexes) {
+        for (Integer index : indexes) {
+            results.get(index).put("status", "saved");
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> bulkResponse(List<Map<String, Object>> results) {
+        long saved = 0;
+        for (Map<String, Object> result : results) {
+            if ("saved".equals(result.get("status"))) {
+                saved++;
+            }
+        }
         Map<String, Object> response = new HashMap<>();
-        try {
-            Optional<Prescription> prescriptionOpt = prescriptionRepository.findByAppointmentId(appointmentId);
-            if (!prescriptionOpt.isPresent()) {
-                response.put("message", "Prescription not found for this appointment");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-            }
-            response.put("prescription", prescriptionOpt.get());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            response.put("message", "Error retrieving prescription");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        response.put("saved", saved);
+        response.put("failed", results.size() - saved);
+        response.put("results", results);
+        HttpStatus status = saved == results.size() ? HttpStatus.CREATED
+                : saved == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    public Mono<ResponseEntity<Map<String, Object>>> getPrescription(Long appointmentId) {
+        return prescriptionRepository.findByAppointmentId(appointmentId)
+                .next()
+                .map(prescription -> ResponseEntity.ok(body("prescription", prescription)))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(body("message", "Prescription not found for this appointment")))
+                .timeout(timeout)
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(body("message", "Error retrieving prescription"))));
+    }
+
+    public Mono<ResponseEntity<Map<String, Object>>> getPrescriptions(Collection<Long> appointmentIds) {
+        return prescriptionRepository.findByAppointmentIdIn(appointmentIds)
+                .collectList()
+                .map(prescriptions -> ResponseEntity.ok(body("prescriptions", prescriptions)))
+                .timeout(timeout)
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(body("message", "Error retrieving prescriptions"))));
+    }
+
+    /**
+     * Pages through prescriptions by medication name prefix (case-insensitive), words in the
+     * medication or doctor notes (Mongo text search) and issue date, newest first. At least one
+     * condition is required. Results are cached per distinct search; see PrescriptionSearchCache.
+     *
+     * @param medication Start of the medication name; served by the (medicationKey, issuedAt) index.
+     * @param text Words to find in medication or notes; served by the text index.
+     * @param from First issue date (inclusive); may be null.
+     * @param to Last issue date (inclusive); may be null.
+     */
+    public Mono<ResponseEntity<Map<String, Object>>> searchPrescriptions(String medication, String text, LocalDate from,
+                                                                         LocalDate to, int page, int size) {
+        String prefix = blankToNull(Prescription.normalizeMedication(medication));
+        String words = blankToNull(text);
+        if ((prefix == null && words == null && from == null && to == null)
+                || page < 0 || page > MAX_PAGE || size < 1 || size > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body("message",
+                    "Give a medication, text or date range; page 0-" + MAX_PAGE + ", size 1-" + MAX_PAGE_SIZE)));
+        }
+        String key = prefix + "|" + (words == null ? null : words.toLowerCase(Locale.ROOT)) + "|" + from + "|" + to
+                + "|" + page + "|" + size;
+        Map<String, Object> cached = searchCache.get(key);
+        if (cached != null) {
+            return Mono.just(ResponseEntity.ok(cached));
+        }
+        long generation = searchCache.generation();
+
+        // One extra document tells whether another page exists without counting the collection
+        Query query = searchQuery(prefix, words, from, to)
+                .skip((long) page * size)
+                .limit(size + 1);
+
+        return mongoTemplate.find(query, Prescription.class)
+                .collectList()
+                .map(found -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("prescriptions", found.size() > size ? List.copyOf(found.subList(0, size)) : found);
+                    response.put("page", page);
+                    response.put("size", size);
+                    response.put("hasNext", found.size() > size);
+                    Map<String, Object> result = Collections.unmodifiableMap(response);
+                    searchCache.put(key, result, generation);
+                    return ResponseEntity.ok(result);
+                })
+                .timeout(timeout)
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(body("message", "Error searching prescriptions"))));
+    }
+
+    /**
+     * The search's conditions, in the order of the index serving them: text words through the text
+     * index; otherwise an equality on the medication's prefix bucket, or a range on issuedAt, read
+     * in (issuedAt, _id) order straight off medication_prefix_issued or issued. A prefix longer
+     * than its bucket is then checked against the index's medicationKey before any document is read.
+     */
+    static Query searchQuery(String prefix, String words, LocalDate from, LocalDate to) {
+        Query query = words != null ? TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(words)) : new Query();
+        if (prefix != null) {
+            String bucket = Prescription.prefixBucket(prefix);
+            query.addCriteria(Criteria.where("medicationPrefixes").is(bucket));
+            if (!bucket.equals(prefix)) {
+                query.addCriteria(Criteria.where("medicationKey").regex("^" + escapeRegex(prefix)));
+            }
+        }
+        if (from != null || to != null) {
+            Criteria issued = Criteria.where("issuedAt");
+            if (from != null) {
+                issued = issued.gte(from.atStartOfDay());
+            }
+            if (to != null) {
+                issued = issued.lt(to.plusDays(1).atStartOfDay());
+            }
+            query.addCriteria(issued);
+        }
+        return query.with(Sort.by(Sort.Order.desc("issuedAt"), Sort.Order.desc("_id")));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() || "null".equals(value) ? null : value.trim();
+    }
+
+    private static String escapeRegex(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length() + 8);
+        for (char c : literal.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
         }
+        return escaped.toString();
+    }
+
+    private static Map<String, String> message(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", message);
+        return response;
+    }
+
+    private static Map<String, Object> body(String key, Object value) {
+        Map<String, Object> response = new HashMap<>();
+        response.put(key, value);
+        return response;
+    }
+
+    private void prescriptionsChanged() {
+        searchCache.invalidateAll();
+        cacheChangeLog.prescriptionsChanged();
     }
 }
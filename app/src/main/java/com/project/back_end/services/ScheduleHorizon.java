@@ -0,0 +1,344 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Booked time of every doctor over a rolling window of clinic.horizon.days days, held off-heap as
+ * fixed-width bitmasks: one bit per clinic.horizon.tick-minutes of each day, set while any
+ * appointment overlaps that tick. The heap holds no per-doctor objects, so GC work does not grow
+ * with the number of doctors; clinic.horizon.max-doctors rows are allocated up front.
+ *
+ * Doctor ids map to rows through an off-heap open-addressing table. Readers take no locks: words
+ * are read with acquire semantics and writers update bits atomically. Only doctors whose slot grid
+ * is aligned to the tick are tracked, which makes a slot's answer exact (a slot is a whole number
+ * of ticks); for anyone else, and for days outside the window, {@link #isFree} answers -1 and
+ * callers fall back to {@link DoctorScheduleIndex}. Booking validation uses the index, then the database.
+ */
+@Component
+public class ScheduleHorizon {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleHorizon.class);
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    // Id table entry: doctor id (long) then row (long, for alignment)
+    private static final int ENTRY_BYTES = 16;
+
+    private final AppointmentSnapshotRepository snapshotRepository;
+    private final DoctorScheduleIndex doctorScheduleIndex;
+    private final SlotGrid slotGrid;
+    private final boolean enabled;
+    private final int days;
+    private final int tickMinutes;
+    private final int ticksPerDay;
+    private final int wordsPerDay;
+    private final int rowBytes;
+    private final int maxDoctors;
+    private final int fetchSize;
+
+    private final ByteBuffer rows;
+    private final ByteBuffer ids;
+    private final int idMask;
+    // Writers only; readers never touch these
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private int nextRow;
+
+    // First epoch day readers may ask about; the window is [firstDay, firstDay + days)
+    private volatile long firstDay = Long.MIN_VALUE / 2;
+    // First epoch day writers keep current; runs ahead of firstDay while new days are loaded
+    private volatile long writeFirstDay = Long.MIN_VALUE / 2;
+
+    public ScheduleHorizon(AppointmentSnapshotRepository snapshotRepository, DoctorScheduleIndex doctorScheduleIndex,
+                           SlotGrid slotGrid,
+                           @Value("${clinic.horizon.enabled:true}") boolean enabled,
+                           @Value("${clinic.horizon.days:30}") int days,
+                           @Value("${clinic.horizon.tick-minutes:15}") int tickMinutes,
+                           @Value("${clinic.horizon.max-doctors:100000}") int maxDoctors,
+                           @Value("${clinic.snapshot.fetch-size:-2147483648}") int fetchSize) {
+        this.snapshotRepository = snapshotRepository;
+        this.doctorScheduleIndex = doctorScheduleIndex;
+        this.slotGrid = slotGrid;
+        this.enabled = enabled;
+        this.days = days;
+        this.tickMinutes = tickMinutes;
+        this.ticksPerDay = MINUTES_PER_DAY / tickMinutes;
+        this.wordsPerDay = (ticksPerDay + 63) / 64;
+        this.rowBytes = days * wordsPerDay * Long.BYTES;
+        this.maxDoctors = enabled ? maxDoctors : 0;
+        this.fetchSize = fetchSize;
+        if (MINUTES_PER_DAY % tickMinutes != 0 || (long) this.maxDoctors * rowBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("clinic.horizon.tick-minutes must divide a day and max-doctors rows must fit in 2 GB");
+        }
+        int idSlots = Integer.highestOneBit(Math.max(1, this.maxDoctors) * 2 - 1) << 1;
+        this.idMask = idSlots - 1;
+        this.rows = allocate(this.maxDoctors * rowBytes);
+        this.ids = allocate(idSlots * ENTRY_BYTES);
+    }
+
+    /**
+     * Whether [start, start + minutes) is free for the doctor.
+     *
+     * @return 1 free, 0 booked, -1 not answerable here (doctor not tracked, day outside the window,
+     *         or a range not aligned to the tick).
+     */
+    public int isFree(Long doctorId, LocalDateTime start, int minutes) {
+        long window = firstDay;
+        long day = start.toLocalDate().toEpochDay();
+        int minute = start.toLocalTime().toSecondOfDay() / 60;
+        if (!enabled || day < window || day >= window + days || minute % tickMinutes != 0
+                || minutes <= 0 || minutes % tickMinutes != 0 || minute + minutes > MINUTES_PER_DAY
+                || start.getSecond() != 0 || start.getNano() != 0) {
+            return -1;
+        }
+        int row = rowOf(doctorId);
+        if (row < 0) {
+            return -1;
+        }
+        boolean busy = anySet(dayOffset(row, day), minute / tickMinutes, (minute + minutes) / tickMinutes);
+        // A roll that started meanwhile may have recycled this day's cell
+        return firstDay != window ? -1 : busy ? 0 : 1;
+    }
+
+    /**
+     * Whether the day lies in the current window.
+     */
+    public boolean covers(LocalDate day) {
+        long epochDay = day.toEpochDay();
+        return enabled && epochDay >= firstDay && epochDay < firstDay + days;
+    }
+
+    public boolean tracks(Long doctorId) {
+        return rowOf(doctorId) >= 0;
+    }
+
+    public void add(Appointment appointment) {
+        int row = rowOf(appointment.getDoctor().getId());
+        long day = appointment.getAppointmentDate().toEpochDay();
+        if (row < 0 || day < writeFirstDay || day >= writeFirstDay + days) {
+            return;
+        }
+        int minute = appointment.getAppointmentTime().toLocalTime().toSecondOfDay() / 60;
+        mark(dayOffset(row, day), minute, minute + appointment.getDurationMinutes());
+    }
+
+    /**
+     * Clears the ticks of a removed appointment, except those another booking still overlaps.
+     * Call after the appointment has left the {@link DoctorScheduleIndex}.
+     */
+    public void remove(Appointment appointment) {
+        Long doctorId = appointment.getDoctor().getId();
+        int row = rowOf(doctorId);
+        LocalDate date = appointment.getAppointmentDate();
+        long day = date.toEpochDay();
+        if (row < 0 || day < writeFirstDay || day >= writeFirstDay + days) {
+            return;
+        }
+        int dayOffset = dayOffset(row, day);
+        int minute = appointment.getAppointmentTime().toLocalTime().toSecondOfDay() / 60;
+        int end = Math.min(MINUTES_PER_DAY, minute + appointment.getDurationMinutes());
+        for (int tick = minute / tickMinutes; tick * tickMinutes < end; tick++) {
+            if (!doctorScheduleIndex.overlaps(doctorId, date.atStartOfDay().plusMinutes((long) tick * tickMinutes),
+                    tickMinutes, appointment.getId())) {
+                int word = dayOffset + (tick >>> 6) * Long.BYTES;
+                LONGS.getAndBitwiseAnd(rows, word, ~(1L << (tick & 63)));
+            }
+        }
+    }
+
+    /**
+     * Starts or stops tracking a saved doctor; a newly tracked doctor's window is loaded from the database.
+     */
+    public synchronized void track(Doctor doctor) {
+        if (!enabled) {
+            return;
+        }
+        boolean aligned = isAligned(doctor);
+        int row = rowOf(doctor.getId());
+        if (!aligned) {
+            evictDoctor(doctor.getId());
+        } else if (row < 0 && register(doctor.getId()) >= 0) {
+            LocalDate first = LocalDate.ofEpochDay(writeFirstDay);
+            load(first, first.plusDays(days), doctor.getId());
+        }
+    }
+
+    public synchronized void evictDoctor(Long doctorId) {
+        int entry = entryOf(doctorId);
+        if (entry < 0) {
+            return;
+        }
+        int row = (int) (long) LONGS.getAcquire(ids, entry + Long.BYTES);
+        LONGS.setRelease(ids, entry, REMOVED);
+        freeRows.push(row);
+    }
+
+    /**
+     * Rebuilds the whole window from the catalogue and one streaming scan of the window's bookings.
+     */
+    public synchronized void rebuild(Collection<Doctor> doctors) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        for (int offset = 0; offset < ids.capacity(); offset += Long.BYTES) {
+            LONGS.setRelease(ids, offset, 0L);
+        }
+        freeRows.clear();
+        nextRow = 0;
+        int tracked = 0;
+        for (Doctor doctor : doctors) {
+            if (isAligned(doctor) && register(doctor.getId()) >= 0) {
+                tracked++;
+            }
+        }
+        LocalDate today = LocalDate.now();
+        writeFirstDay = today.toEpochDay();
+        load(today, today.plusDays(days), null);
+        firstDay = today.toEpochDay();
+        log.info("Schedule horizon tracks {} of {} doctors over {} days ({} KB off-heap), built in {} ms", tracked,
+                doctors.size(), days, (rows.capacity() + ids.capacity()) / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Moves the window to start today: recycles the cells of days that left it and loads the new days.
+     * Readers keep the old window, and fall back for the new days, until they are loaded.
+     */
+    @Scheduled(fixedDelayString = "${clinic.horizon.roll-check-ms:60000}")
+    public synchronized void roll() {
+        long today = LocalDate.now().toEpochDay();
+        long oldFirst = firstDay;
+        if (!enabled || oldFirst < 0 || today <= oldFirst) {
+            return;
+        }
+        long newEnd = today + days;
+        long firstNewDay = Math.max(oldFirst + days, today);
+        for (long day = firstNewDay; day < newEnd; day++) {
+            for (int row = 0; row < nextRow; row++) {
+                int dayOffset = dayOffset(row, day);
+                for (int word = 0; word < wordsPerDay; word++) {
+                    LONGS.setRelease(rows, dayOffset + word * Long.BYTES, 0L);
+                }
+            }
+        }
+        writeFirstDay = today;
+        load(LocalDate.ofEpochDay(firstNewDay), LocalDate.ofEpochDay(newEnd), null);
+        firstDay = today;
+    }
+
+    private void load(LocalDate from, LocalDate until, Long onlyDoctorId) {
+        snapshotRepository.scanSchedule(from.atStartOfDay(), until.atStartOfDay(), onlyDoctorId, fetchSize, rs -> {
+            int row = rowOf(rs.getLong(1));
+            if (row >= 0) {
+                LocalDateTime start = rs.getObject(2, LocalDateTime.class);
+                int minute = start.toLocalTime().toSecondOfDay() / 60;
+                int duration = rs.getObject(3) != null ? rs.getInt(3) : Appointment.DEFAULT_DURATION_MINUTES;
+                mark(dayOffset(row, start.toLocalDate().toEpochDay()), minute, minute + duration);
+            }
+        });
+    }
+
+    private void mark(int dayOffset, int fromMinute, int toMinute) {
+        int end = Math.min(MINUTES_PER_DAY, toMinute);
+        for (int tick = fromMinute / tickMinutes; tick * tickMinutes < end; tick++) {
+            LONGS.getAndBitwiseOr(rows, dayOffset + (tick >>> 6) * Long.BYTES, 1L << (tick & 63));
+        }
+    }
+
+    private boolean anySet(int dayOffset, int fromTick, int toTick) {
+        for (int tick = fromTick; tick < toTick; ) {
+            int wordIndex = tick >>> 6;
+            int last = Math.min(toTick, (wordIndex + 1) << 6);
+            long bits = (long) LONGS.getAcquire(rows, dayOffset + wordIndex * Long.BYTES);
+            int width = last - tick;
+            long mask = (width == 64 ? -1L : (1L << width) - 1) << (tick & 63);
+            if ((bits & mask) != 0) {
+                return true;
+            }
+            tick = last;
+        }
+        return false;
+    }
+
+    private boolean isAligned(Doctor doctor) {
+        int start = slotGrid.workdayStart(doctor).toSecondOfDay() / 60;
+        return start % tickMinutes == 0 && slotGrid.slotMinutes(doctor) % tickMinutes == 0;
+    }
+
+    private int dayOffset(int row, long epochDay) {
+        return row * rowBytes + (int) Math.floorMod(epochDay, (long) days) * wordsPerDay * Long.BYTES;
+    }
+
+    private int register(long doctorId) {
+        int row;
+        if (!freeRows.isEmpty()) {
+            row = freeRows.pop();
+        } else if (nextRow < maxDoctors) {
+            row = nextRow++;
+        } else {
+            log.warn("Schedule horizon is full ({} doctors); doctor {} falls back to the database", maxDoctors, doctorId);
+            return -1;
+        }
+        for (int offset = row * rowBytes; offset < (row + 1) * rowBytes; offset += Long.BYTES) {
+            LONGS.setRelease(rows, offset, 0L);
+        }
+        for (int slot = hash(doctorId); ; slot = (slot + 1) & idMask) {
+            int entry = slot * ENTRY_BYTES;
+            long id = (long) LONGS.getAcquire(ids, entry);
+            if (id == EMPTY || id == REMOVED) {
+                // Row first, so a reader that sees the id also sees its row
+                LONGS.setRelease(ids, entry + Long.BYTES, (long) row);
+                LONGS.setRelease(ids, entry, doctorId);
+                return row;
+            }
+        }
+    }
+
+    private int rowOf(Long doctorId) {
+        int entry = doctorId == null ? -1 : entryOf(doctorId);
+        return entry < 0 ? -1 : (int) (long) LONGS.getAcquire(ids, entry + Long.BYTES);
+    }
+
+    private int entryOf(long doctorId) {
+        if (maxDoctors == 0) {
+            return -1;
+        }
+        for (int slot = hash(doctorId), probes = 0; probes <= idMask; slot = (slot + 1) & idMask, probes++) {
+            long id = (long) LONGS.getAcquire(ids, slot * ENTRY_BYTES);
+            if (id == doctorId) {
+                return slot * ENTRY_BYTES;
+            }
+            if (id == EMPTY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int hash(long doctorId) {
+        long h = doctorId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & idMask;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        // Atomic VarHandle access needs 8-byte aligned addresses
+        return ByteBuffer.allocateDirect(bytes + Long.BYTES).alignedSlice(Long.BYTES).order(ByteOrder.nativeOrder());
+    }
+}
@@ -1,16 +1,26 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.Login;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-@Service
+// Fully qualified: the class itself is called Service
+@org.springframework.stereotype.Service
 public class Service {
     private final TokenService tokenService;
     private final AdminRepository adminRepository;
@@ -18,19 +28,22 @@ public class Service {
     private final PatientRepository patientRepository;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    private final SlotGrid slotGrid;
 
     public Service(TokenService tokenService,
                    AdminRepository adminRepository,
                    DoctorRepository doctorRepository,
                    PatientRepository patientRepository,
                    DoctorService doctorService,
-                   PatientService patientService) {
+                   PatientService patientService,
+                   SlotGrid slotGrid) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
+        this.slotGrid = slotGrid;
     }
 
     // 1. validateToken
@@ -47,7 +60,7 @@ public class Service {
     // 2. validateAdmin
     public ResponseEntity<Map<String, String>> validateAdmin(Admin receivedAdmin) {
         try {
-            Admin admin = adminRepository.findByUsername(receivedAdmin.getUsername());
+            Admin admin = adminRepository.findByUsername(receivedAdmin.getUsername()).orElse(null);
             if (admin != null && admin.getPassword().equals(receivedAdmin.getPassword())) {
                 String token = tokenService.generateToken(admin.getUsername());
                 Map<String, String> response = new HashMap<>();
@@ -67,37 +80,44 @@ public class Service {
 
     // 3. filterDoctor
     public Map<String, Object> filterDoctor(String name, String specialty, String time) {
-        List<Doctor> doctors = doctorService.filterDoctorsByNameSpecilityandTime(name, specialty, time);
+        List<Doctor> doctors = doctorService.filterDoctors(name, specialty, time);
         Map<String, Object> result = new HashMap<>();
         result.put("doctors", doctors);
         return result;
     }
 
-    // 4. validateAppointment
+    // 4. validateAppointment: 1 if bookable, 0 if the slot is taken, -1 for an unknown doctor,
+    // -2 for a time in the past or beyond the booking horizon
     public int validateAppointment(Appointment appointment) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(appointment.getDoctorId());
-        if (!doctorOpt.isPresent()) {
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) {
             return -1;
         }
-        List<TimeSlot> slots = doctorService.getDoctorAvailability(appointment.getDoctorId(), appointment.getDate());
-        for (TimeSlot slot : slots) {
-            if (slot.getStartTime().equals(appointment.getTime())) {
-                return 1;
-            }
+        if (appointment.getAppointmentTime() == null || !slotGrid.withinHorizon(appointment.getAppointmentTime())) {
+            return -2;
+        }
+        // A doctor being deleted takes no bookings
+        Optional<Doctor> doctorOpt = doctorRepository.findBookableById(appointment.getDoctor().getId(), DoctorDeletionJob.ACTIVE);
+        if (!doctorOpt.isPresent()) {
+            return -1;
         }
-        return 0;
+        // Overlap against the doctor's day, so visits of different lengths can coexist
+        return doctorService.isSlotAvailable(doctorOpt.get(), appointment) ? 1 : 0;
+    }
+
+    public LocalDate lastBookableDate() {
+        return slotGrid.lastBookableDate();
     }
 
     // 5. validatePatient
     public boolean validatePatient(Patient patient) {
-        Patient existing = patientRepository.findByEmailOrPhone(patient.getEmail(), patient.getPhone());
+        Patient existing = patientRepository.findByEmailOrPhone(patient.getEmail(), patient.getPhone()).orElse(null);
         return existing == null;
     }
 
     // 6. validatePatientLogin
     public ResponseEntity<Map<String, String>> validatePatientLogin(Login login) {
         try {
-            Patient patient = patientRepository.findByEmail(login.getEmail());
+            Patient patient = patientRepository.findByEmail(login.getIdentifier()).orElse(null);
             if (patient != null && patient.getPassword().equals(login.getPassword())) {
                 String token = tokenService.generateToken(patient.getEmail());
                 Map<String, String> response = new HashMap<>();
@@ -116,20 +136,14 @@ public class Service {
     }
 
     // 7. filterPatient
-    public ResponseEntity<Map<String, Object>> filterPatient(String condition, String name, String token) {
-        String email = tokenService.extractUser(token);
-        Map<String, Object> result = new HashMap<>();
-        List<Appointment> appointments;
+    public ResponseEntity<Map<String, Object>> filterPatient(String condition, String name, Long patientId) {
         if (condition != null && name != null) {
-            appointments = patientService.filterByDoctorAndCondition(email, name, condition);
+            return patientService.filterByDoctorAndCondition(condition, name, patientId);
         } else if (condition != null) {
-            appointments = patientService.filterByCondition(email, condition);
+            return patientService.filterByCondition(condition, patientId);
         } else if (name != null) {
-            appointments = patientService.filterByDoctor(email, name);
-        } else {
-            appointments = patientService.getAllAppointments(email);
+            return patientService.filterByDoctor(name, patientId);
         }
-        result.put("appointments", appointments);
-        return ResponseEntity.ok(result);
+        return patientService.getPatientAppointment(patientId, patientId);
     }
 }
@@ -0,0 +1,87 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the bookable slot grid of a doctor: working-day bounds and slot length,
+ * taken from the doctor when set and from the clinic-wide defaults otherwise.
+ */
+@Component
+public class SlotGrid {
+
+    @Value("${clinic.slot.minutes:60}")
+    private int defaultSlotMinutes;
+
+    @Value("${clinic.workday.start:09:00}")
+    private String defaultWorkdayStart;
+
+    @Value("${clinic.workday.end:17:00}")
+    private String defaultWorkdayEnd;
+
+    @Value("${clinic.booking.max-days-ahead:365}")
+    private int maxDaysAhead;
+
+    public int slotMinutes(Doctor doctor) {
+        return doctor.getSlotMinutes() != null ? doctor.getSlotMinutes() : defaultSlotMinutes;
+    }
+
+    public LocalTime workdayStart(Doctor doctor) {
+        return doctor.getWorkdayStart() != null ? doctor.getWorkdayStart() : LocalTime.parse(defaultWorkdayStart);
+    }
+
+    public LocalTime workdayEnd(Doctor doctor) {
+        return doctor.getWorkdayEnd() != null ? doctor.getWorkdayEnd() : LocalTime.parse(defaultWorkdayEnd);
+    }
+
+    /**
+     * Lists the start times of every full slot that fits in the doctor's working day.
+     */
+    public List<LocalTime> slotsFor(Doctor doctor) {
+        int step = slotMinutes(doctor);
+        int first = workdayStart(doctor).toSecondOfDay() / 60;
+        int last = workdayEnd(doctor).toSecondOfDay() / 60;
+        List<LocalTime> slots = new ArrayList<>();
+        for (int minute = first; minute + step <= last; minute += step) {
+            slots.add(LocalTime.ofSecondOfDay(minute * 60L));
+        }
+        return slots;
+    }
+
+    /**
+     * The last day appointments can be booked for. Bounding it keeps the per-day structures
+     * (schedule index, utilization counters) and the journal's minute fields within range.
+     */
+    public LocalDate lastBookableDate() {
+        return LocalDate.now().plusDays(maxDaysAhead);
+    }
+
+    /**
+     * Checks that a visit starts in the future and no later than {@link #lastBookableDate()}.
+     */
+    public boolean withinHorizon(LocalDateTime start) {
+        return start.isAfter(LocalDateTime.now()) && !start.toLocalDate().isAfter(lastBookableDate());
+    }
+
+    /**
+     * Checks that a visit starts on the doctor's grid and ends within the working day.
+     */
+    public boolean accepts(Doctor doctor, LocalTime start, int durationMinutes) {
+        if (durationMinutes <= 0 || start.getSecond() != 0 || start.getNano() != 0) {
+            return false;
+        }
+        int startMinute = start.toSecondOfDay() / 60;
+        int first = workdayStart(doctor).toSecondOfDay() / 60;
+        int last = workdayEnd(doctor).toSecondOfDay() / 60;
+        return startMinute >= first
+                && startMinute + durationMinutes <= last
+                && (startMinute - first) % slotMinutes(doctor) == 0;
+    }
+}
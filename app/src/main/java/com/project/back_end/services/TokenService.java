@@ -3,13 +3,17 @@ package com.project.back_end.services;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.DTO.AuthPrincipal;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @Component
@@ -21,6 +25,10 @@ public class TokenService {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    // Built once on first use; both are immutable and thread-safe
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
     public TokenService(AdminRepository adminRepository, DoctorRepository doctorRepository, PatientRepository patientRepository) {
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
@@ -39,33 +47,63 @@ public class TokenService {
     }
 
     public String extractIdentifier(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
-    public boolean validateToken(String token, String userType) {
+    /**
+     * Parses the token once and resolves the caller for the first of the given roles it belongs to.
+     *
+     * @param token The JWT from the request.
+     * @param roles Accepted roles, in order of preference.
+     * @return The principal, or empty if the token is invalid, expired or matches none of the roles.
+     */
+    public Optional<AuthPrincipal> authenticate(String token, Collection<String> roles) {
+        String identifier;
         try {
-            String identifier = extractIdentifier(token);
-            switch (userType.toLowerCase()) {
+            identifier = extractIdentifier(token);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        for (String role : roles) {
+            Optional<AuthPrincipal> principal;
+            switch (role.toLowerCase()) {
                 case "admin":
-                    return adminRepository.findByUsername(identifier).isPresent();
+                    principal = adminRepository.findByUsername(identifier)
+                            .map(admin -> new AuthPrincipal("admin", admin.getId(), identifier));
+                    break;
                 case "doctor":
-                    return doctorRepository.findByEmail(identifier).isPresent();
+                    principal = doctorRepository.findByEmail(identifier)
+                            .map(doctor -> new AuthPrincipal("doctor", doctor.getId(), identifier));
+                    break;
                 case "patient":
-                    return patientRepository.findByEmail(identifier).isPresent();
+                    principal = patientRepository.findByEmail(identifier)
+                            .map(patient -> new AuthPrincipal("patient", patient.getId(), identifier));
+                    break;
                 default:
-                    return false;
+                    principal = Optional.empty();
+            }
+            if (principal.isPresent()) {
+                return principal;
             }
-        } catch (Exception e) {
-            return false;
         }
+        return Optional.empty();
+    }
+
+    public boolean validateToken(String token, String userType) {
+        return authenticate(token, List.of(userType)).isPresent();
     }
 
     public SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            signingKey = key;
+        }
+        return key;
     }
 }
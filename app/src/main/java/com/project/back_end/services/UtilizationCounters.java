@@ -0,0 +1,202 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.BookingJournal;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-doctor, per-day booking counters (appointments and booked minutes) for the admin
+ * utilization report. Rebuilt at startup by replaying the booking journal when it can be trusted,
+ * otherwise from one aggregate query, and kept current by the booking, reschedule, cancel and
+ * doctor-deletion paths, so a report never scans appointments.
+ *
+ * Each doctor's days are held in Fenwick trees, so the totals over any date range cost
+ * O(log days) per doctor and an update costs the same.
+ */
+@Component
+public class UtilizationCounters {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final BookingJournal bookingJournal;
+    private final Map<Long, DayCounters> byDoctor = new ConcurrentHashMap<>();
+
+    public UtilizationCounters(AppointmentRepository appointmentRepository, BookingJournal bookingJournal) {
+        this.appointmentRepository = appointmentRepository;
+        this.bookingJournal = bookingJournal;
+    }
+
+    /**
+     * Replaces every counter with the current bookings.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, DayCounters> loaded = new ConcurrentHashMap<>();
+        if (bookingJournal.canWarmCaches()) {
+            bookingJournal.replay(bookingJournal.baselineOffset(), record -> replay(loaded, record));
+        } else {
+            for (Object[] row : appointmentRepository.countBookingsByDoctorAndDay()) {
+                long appointments = ((Number) row[2]).longValue();
+                long withDuration = ((Number) row[3]).longValue();
+                long minutes = row[4] != null ? ((Number) row[4]).longValue() : 0;
+                // Rows without a duration count with the model's default length
+                minutes += (appointments - withDuration) * Appointment.DEFAULT_DURATION_MINUTES;
+                loaded.computeIfAbsent((Long) row[0], id -> new DayCounters())
+                        .add(((LocalDate) row[1]).toEpochDay(), appointments, minutes);
+            }
+        }
+        byDoctor.clear();
+        byDoctor.putAll(loaded);
+    }
+
+    private static void replay(Map<Long, DayCounters> loaded, BookingJournal.JournalRecord record) {
+        switch (record.type()) {
+            case BookingJournal.BASELINE, BookingJournal.BOOKED -> loaded.computeIfAbsent(record.doctorId(), id -> new DayCounters())
+                    .add(dayOf(record.epochMinute()), 1, record.durationMinutes());
+            case BookingJournal.CANCELLED -> loaded.computeIfAbsent(record.doctorId(), id -> new DayCounters())
+                    .add(dayOf(record.epochMinute()), -1, -record.durationMinutes());
+            case BookingJournal.RESCHEDULED -> {
+                loaded.computeIfAbsent(record.previousDoctorId(), id -> new DayCounters())
+                        .add(dayOf(record.previousEpochMinute()), -1, -record.previousDurationMinutes());
+                loaded.computeIfAbsent(record.doctorId(), id -> new DayCounters())
+                        .add(dayOf(record.epochMinute()), 1, record.durationMinutes());
+            }
+            case BookingJournal.DOCTOR_DELETED -> loaded.remove(record.doctorId());
+            default -> { }
+        }
+    }
+
+    private static long dayOf(int epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    public void add(Appointment appointment) {
+        apply(appointment, 1);
+    }
+
+    public void remove(Appointment appointment) {
+        apply(appointment, -1);
+    }
+
+    /**
+     * Drops every counter of a doctor, e.g. after the doctor is deleted.
+     */
+    public void evictDoctor(Long doctorId) {
+        byDoctor.remove(doctorId);
+    }
+
+    /**
+     * Totals of one doctor over [first, last], both inclusive.
+     *
+     * @return {appointments, bookedMinutes}.
+     */
+    public long[] totals(Long doctorId, LocalDate first, LocalDate last) {
+        DayCounters counters = byDoctor.get(doctorId);
+        if (counters == null || last.isBefore(first)) {
+            return new long[] {0, 0};
+        }
+        return counters.sum(first.toEpochDay(), last.toEpochDay());
+    }
+
+    private void apply(Appointment appointment, int sign) {
+        if (appointment.getDoctor() == null || appointment.getAppointmentTime() == null) {
+            return;
+        }
+        byDoctor.computeIfAbsent(appointment.getDoctor().getId(), id -> new DayCounters())
+                .add(appointment.getAppointmentDate().toEpochDay(), sign, (long) sign * appointment.getDurationMinutes());
+    }
+
+    /**
+     * Two Fenwick trees over consecutive days starting at {@code origin}; the covered window
+     * starts small and doubles (the trees are rebuilt in linear time) when a day outside it is
+     * touched, so a doctor costs memory in proportion to the span of their bookings.
+     */
+    static final class DayCounters {
+
+        private static final int INITIAL_DAYS = 16;
+
+        private long origin;
+        private long[] appointments = new long[0];
+        private long[] minutes = new long[0];
+        // Raw per-day values, kept so the trees can be rebuilt when the window grows
+        private long[] dayAppointments = new long[0];
+        private long[] dayMinutes = new long[0];
+
+        synchronized void add(long epochDay, long appointmentDelta, long minuteDelta) {
+            ensureCovers(epochDay);
+            int index = (int) (epochDay - origin);
+            dayAppointments[index] += appointmentDelta;
+            dayMinutes[index] += minuteDelta;
+            for (int i = index + 1; i < appointments.length; i += i & -i) {
+                appointments[i] += appointmentDelta;
+                minutes[i] += minuteDelta;
+            }
+        }
+
+        synchronized long[] sum(long firstDay, long lastDay) {
+            long[] upToLast = prefix(lastDay);
+            long[] beforeFirst = prefix(firstDay - 1);
+            return new long[] {upToLast[0] - beforeFirst[0], upToLast[1] - beforeFirst[1]};
+        }
+
+        // Totals of every day up to and including epochDay
+        private long[] prefix(long epochDay) {
+            long[] total = {0, 0};
+            if (epochDay < origin) {
+                return total;
+            }
+            int count = (int) Math.min(epochDay - origin + 1, dayAppointments.length);
+            for (int i = count; i > 0; i -= i & -i) {
+                total[0] += appointments[i];
+                total[1] += minutes[i];
+            }
+            return total;
+        }
+
+        private void ensureCovers(long epochDay) {
+            int size = dayAppointments.length;
+            if (size > 0 && epochDay >= origin && epochDay < origin + size) {
+                return;
+            }
+            long first = size == 0 ? epochDay : Math.min(origin, epochDay);
+            long end = size == 0 ? epochDay + 1 : Math.max(origin + size, epochDay + 1);
+            int newSize = Math.max(size, INITIAL_DAYS);
+            while (newSize < end - first) {
+                newSize *= 2;
+            }
+            // Leave room on the side that grew, so walking further that way does not rebuild every time
+            long newOrigin = size > 0 && epochDay < origin ? end - newSize : first;
+            long[] newDayAppointments = new long[newSize];
+            long[] newDayMinutes = new long[newSize];
+            if (size > 0) {
+                System.arraycopy(dayAppointments, 0, newDayAppointments, (int) (origin - newOrigin), size);
+                System.arraycopy(dayMinutes, 0, newDayMinutes, (int) (origin - newOrigin), size);
+            }
+            origin = newOrigin;
+            dayAppointments = newDayAppointments;
+            dayMinutes = newDayMinutes;
+            appointments = build(dayAppointments);
+            minutes = build(dayMinutes);
+        }
+
+        private static long[] build(long[] values) {
+            long[] tree = new long[values.length + 1];
+            for (int i = 1; i <= values.length; i++) {
+                tree[i] += values[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= values.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+            return tree;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.WaitlistEntry;
+import com.project.back_end.models.WaitlistEntry.Status;
+import com.project.back_end.repo.WaitlistEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Patients waiting for a slot of a doctor's day, one first-come-first-served queue per doctor and
+ * date, kept in the waitlist_entry table so every instance serves the same queues. A cancellation
+ * claims an entry with a row lock in its own transaction and books the freed slot for it in that
+ * same transaction. Entries stay listed, with their outcome, until their day has passed.
+ */
+@Component
+public class Waitlist {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final int maxPerDay;
+    private final int maxPerPatient;
+    private final int maxDaysAhead;
+
+    public Waitlist(WaitlistEntryRepository waitlistEntryRepository,
+                    @Value("${clinic.waitlist.max-per-day:50}") int maxPerDay,
+                    @Value("${clinic.waitlist.max-per-patient:5}") int maxPerPatient,
+                    @Value("${clinic.waitlist.max-days-ahead:90}") int maxDaysAhead) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.maxPerDay = maxPerDay;
+        this.maxPerPatient = maxPerPatient;
+        this.maxDaysAhead = maxDaysAhead;
+    }
+
+    /**
+     * The last date a patient may wait for.
+     */
+    public LocalDate lastDate() {
+        return LocalDate.now().plusDays(maxDaysAhead);
+    }
+
+    /**
+     * Adds the patient at the end of the doctor's queue for the day. Call it with the doctor locked
+     * (see {@link DoctorService#lockSchedule}), which makes the checks below exact for that doctor.
+     *
+     * @return The new entry, or empty when the patient already waits for that day, waits for as
+     *         many days as allowed, or the queue is full.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<WaitlistEntry> join(Long doctorId, Long patientId, LocalDate date, LocalTime time, int durationMinutes) {
+        if (waitlistEntryRepository.existsByDoctorIdAndPatientIdAndDateAndStatus(doctorId, patientId, date, Status.WAITING)
+                || waitlistEntryRepository.countByPatientIdAndStatus(patientId, Status.WAITING) >= maxPerPatient
+                || waitlistEntryRepository.countByDoctorIdAndDateAndStatus(doctorId, date, Status.WAITING) >= maxPerDay) {
+            return Optional.empty();
+        }
+        return Optional.of(waitlistEntryRepository.save(new WaitlistEntry(doctorId, patientId, date, time, durationMinutes)));
+    }
+
+    /**
+     * Claims the longest-waiting entry of the doctor's day that accepts a freed slot. The entry
+     * stays locked until the caller's transaction ends, in which it books the slot and reports
+     * {@link #assigned}; if that transaction rolls back, the entry is waiting again in its place.
+     *
+     * @param eligible Whether the freed slot suits an entry.
+     * @return The claimed entry, or empty when no waiting entry is eligible.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<WaitlistEntry> claim(Long doctorId, LocalDate date, Predicate<WaitlistEntry> eligible) {
+        // Entries held by another transaction are skipped: they are being withdrawn or handed a slot
+        return waitlistEntryRepository.lockWaiting(doctorId, date).stream().filter(eligible).findFirst();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assigned(WaitlistEntry entry, Long appointmentId) {
+        entry.assigned(appointmentId);
+        waitlistEntryRepository.save(entry);
+    }
+
+    /**
+     * Takes the patient's entry off its queue.
+     *
+     * @return 1 if withdrawn, -1 if no such entry of the patient, 0 if a slot has been assigned to it.
+     */
+    public int withdraw(long entryId, Long patientId) {
+        if (waitlistEntryRepository.withdraw(entryId, patientId) == 1) {
+            return 1;
+        }
+        Optional<WaitlistEntry> entry = waitlistEntryRepository.findById(entryId);
+        if (!entry.isPresent() || !entry.get().getPatientId().equals(patientId)) {
+            return -1;
+        }
+        return entry.get().getStatus() == Status.WITHDRAWN ? 1 : 0;
+    }
+
+    /**
+     * The patient's entries, waiting or not, oldest first.
+     */
+    public List<WaitlistEntry> entriesOf(Long patientId) {
+        return waitlistEntryRepository.findByPatientIdOrderByIdAsc(patientId);
+    }
+
+    /**
+     * Drops every entry of a doctor, e.g. when the doctor is deleted.
+     */
+    public void evictDoctor(Long doctorId) {
+        waitlistEntryRepository.deleteByDoctorId(doctorId);
+    }
+
+    /**
+     * Deletes the entries of past days.
+     */
+    @Scheduled(fixedDelayString = "${clinic.waitlist.prune-ms:3600000}")
+    public void prune() {
+        waitlistEntryRepository.deleteByDateBefore(LocalDate.now());
+    }
+}
@@ -16,8 +16,8 @@ const createDoctorCard = (doctor) => {
         <h3 class="text-xl font-bold text-[#015c5d]">${doctor.name}</h3>
         <p class="text-base text-gray-700">${doctor.specialty}</p>
         <p class="text-sm text-gray-600">Email: ${doctor.email}</p>
-        <p class="text-sm text-gray-600">Mobile: ${doctor.mobile}</p>
-        <p class="text-sm font-semibold text-green-700">Available: ${doctor.availability ? doctor.availability.join(", ") : 'N/A'}</p>
+        <p class="text-sm text-gray-600">Mobile: ${doctor.mobile ?? doctor.phone}</p>
+        <p class="text-sm font-semibold text-green-700">Available: ${(doctor.availability ?? doctor.availableTimes)?.join(", ") || 'N/A'}</p>
     `;
     return card;
 };
@@ -53,9 +53,16 @@ function renderDoctorCards(doctors) {
 
 // --- 3. Initial Load Function ---
 /**
- * Fetches all doctors and renders them on the dashboard on page load.
+ * Renders the doctors on page load: from the list the server embedded in the page when
+ * present, otherwise fetched from the API (e.g. after adding a doctor).
  */
 async function loadDoctorCards() {
+    const initial = takeInitialData();
+    if (initial && initial.doctors) {
+        renderDoctorCards(initial.doctors);
+        return;
+    }
+
     // Authentication is primarily handled by header.js, but we need the token for API calls
     const token = localStorage.getItem("token");
     if (!token) {
@@ -20,9 +20,9 @@ const createPatientRow = (patientData) => {
     row.innerHTML = `
         <td class="px-6 py-3">${patientData.patientId}</td>
         <td class="px-6 py-3 font-medium">${patientData.patientName}</td>
-        <td class="px-6 py-3">${patientData.phone}</td>
-        <td class="px-6 py-3">${patientData.email}</td>
-        <td class="px-6 py-3">${patientData.prescription}</td>
+        <td class="px-6 py-3">${patientData.phone ?? patientData.patientPhone}</td>
+        <td class="px-6 py-3">${patientData.email ?? patientData.patientEmail}</td>
+        <td class="px-6 py-3">${patientData.prescription ?? ''}</td>
         <td class="px-6 py-3">
             <button class="prescription-btn bg-[#017d7e] text-white py-1 px-3 rounded-md hover:filter hover:brightness-110 transition duration-150">
                 Prescribe
@@ -68,27 +68,7 @@ async function loadAppointments() {
     try {
         // Fetch appointments using current state variables
         const appointments = await getAllAppointments(selectedDate, patientName, token);
-
-        // Clear loading state
-        patientTableBody.innerHTML = ""; 
-
-        if (!appointments || appointments.length === 0) {
-            patientTableBody.innerHTML = `
-                <tr>
-                    <td colspan="6" class="noPatientRecord text-center py-4 italic text-gray-600">
-                        No appointments found for ${selectedDate} ${patientName ? `matching "${patientName}"` : ''}.
-                    </td>
-                </tr>
-            `;
-            return;
-        }
-
-        // Render each appointment as a table row
-        appointments.forEach(appointment => {
-            const row = createPatientRow(appointment);
-            patientTableBody.appendChild(row);
-        });
-
+        renderAppointments(appointments);
     } catch (error) {
         console.error("Failed to load appointments:", error);
         patientTableBody.innerHTML = `
@@ -102,6 +82,32 @@ async function loadAppointments() {
 }
 
 
+/**
+ * Replaces the table body with one row per appointment, or an empty-state row.
+ */
+function renderAppointments(appointments) {
+    // Clear loading state
+    patientTableBody.innerHTML = "";
+
+    if (!appointments || appointments.length === 0) {
+        patientTableBody.innerHTML = `
+            <tr>
+                <td colspan="6" class="noPatientRecord text-center py-4 italic text-gray-600">
+                    No appointments found for ${selectedDate} ${patientName ? `matching "${patientName}"` : ''}.
+                </td>
+            </tr>
+        `;
+        return;
+    }
+
+    // Render each appointment as a table row
+    appointments.forEach(appointment => {
+        const row = createPatientRow(appointment);
+        patientTableBody.appendChild(row);
+    });
+}
+
+
 // --- 4. Event Handlers ---
 /**
  * Handles the input event on the search bar to filter by patient name.
@@ -154,13 +160,19 @@ window.onload = function () {
         return;
     }
 
-    // 1. Set initial date for date picker
+    // 1. Use the day the server rendered, if it embedded one
+    const initial = takeInitialData();
+    if (initial && initial.date) {
+        selectedDate = initial.date;
+    }
+
+    // 2. Set initial date for date picker
     if (datePicker) {
         datePicker.value = selectedDate;
         datePicker.addEventListener("change", handleDatePickerChange);
     }
     
-    // 2. Attach filter event listeners
+    // 3. Attach filter event listeners
     if (todayButton) {
         todayButton.addEventListener("click", handleTodayButtonClick);
     }
@@ -168,6 +180,10 @@ window.onload = function () {
         searchBar.addEventListener("input", handleSearchInput);
     }
 
-    // 3. Initial load of today's appointments
-    loadAppointments();
+    // 4. Initial render of today's appointments, without a request when they were embedded
+    if (initial && initial.appointments) {
+        renderAppointments(initial.appointments);
+    } else {
+        loadAppointments();
+    }
 };
@@ -2,7 +2,7 @@
 import { getDoctors } from './services/doctorServices.js';
 import { createDoctorCard } from './components/doctorCard.js';
 import { filterDoctors } from './services/doctorServices.js';
-import { bookAppointment } from './services/appointmentRecordService.js';
+import { bookAppointment, joinWaitlist } from './services/appointmentRecordService.js';
 
 
 document.addEventListener("DOMContentLoaded", () => {
@@ -72,12 +72,19 @@ export function showBookingOverlay(e, doctor, patient) {
     };
 
 
-    const { success, message } = await bookAppointment(appointment, token);
+    const { success, status, message } = await bookAppointment(appointment, token);
 
     if (success) {
       alert("Appointment Booked successfully");
       ripple.remove();
       modalApp.remove();
+    } else if (status === 409 && confirm("This slot is taken. Join the waitlist? You get the slot automatically if it frees up.")) {
+      const joined = await joinWaitlist({ doctorId: doctor.id, date, time: startTime }, token);
+      alert(joined.success ? "You are on the waitlist" : "❌ Could not join the waitlist :: " + joined.message);
+      if (joined.success) {
+        ripple.remove();
+        modalApp.remove();
+      }
     } else {
       alert("❌ Failed to book an appointment :: " + message);
     }
@@ -26,6 +26,7 @@ export async function bookAppointment(appointment, token) {
     const data = await response.json();
     return {
       success: response.ok,
+      status: response.status,
       message: data.message || "Something went wrong"
     };
   } catch (error) {
@@ -37,6 +38,31 @@ export async function bookAppointment(appointment, token) {
   }
 }
 
+// Waits for the slot (or, without a time, any slot of the day); the slot is booked automatically when freed
+export async function joinWaitlist(request, token) {
+  try {
+    const response = await fetch(`${APPOINTMENT_API}/waitlist/${token}`, {
+      method: "POST",
+      headers: {
+        "Content-Type": "application/json"
+      },
+      body: JSON.stringify(request)
+    });
+
+    const data = await response.json();
+    return {
+      success: response.ok,
+      message: data.message || "Something went wrong"
+    };
+  } catch (error) {
+    console.error("Error while joining the waitlist:", error);
+    return {
+      success: false,
+      message: "Network error. Please try again later."
+    };
+  }
+}
+
 export async function updateAppointment(appointment, token) {
   try {
     const response = await fetch(`${APPOINTMENT_API}/${token}`, {
@@ -51,10 +51,15 @@ export async function deleteDoctor(id, token) {
         if (response.status === 204) {
             // Success with No Content (common for DELETE)
             return { success: true, message: `Doctor ID ${id} deleted successfully.` };
-        } 
-        
-        // Handle other responses (e.g., 404 Not Found, 401 Unauthorized)
+        }
+
         const json = await response.json();
+        if (response.status === 202) {
+            // Accepted: the doctor is hidden now, appointments are removed in the background (json.jobId)
+            return { success: true, message: json.message, jobId: json.jobId };
+        }
+
+        // Handle other responses (e.g., 404 Not Found, 401 Unauthorized)
         throw new Error(json.message || `Deletion failed with status: ${response.status}`);
 
 
@@ -14,6 +14,8 @@ async function initializePage() {
   const doctorName = urlParams.get("doctorName");
   const appointmentDate = urlParams.get("appointmentDate");
   const appointmentTime = urlParams.get("appointmentTime");
+  // The version this page was opened with; the server refuses the update if it changed since
+  const version = urlParams.get("version");
 
   console.log(doctorId)
   if (!token || !patientId) {
@@ -63,7 +65,8 @@ async function initializePage() {
           doctor: { id: doctor.id },
           patient: { id: patientId },
           appointmentTime: `${date}T${startTime}:00`,
-          status: 0
+          status: 0,
+          version: version ? Number(version) : null
         };
 
         const updateResponse = await updateAppointment(updatedAppointment, token);
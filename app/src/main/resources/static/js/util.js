@@ -11,3 +11,18 @@
     localStorage.removeItem("userRole");
   }
   
+
+  // Returns the JSON a server-rendered page embedded in <script id="initialData">, once.
+  // Later calls return null so refreshes go to the API.
+  function takeInitialData() {
+    const element = document.getElementById("initialData");
+    if (!element) {
+      return null;
+    }
+    element.remove();
+    try {
+      return JSON.parse(element.textContent);
+    } catch {
+      return null;
+    }
+  }
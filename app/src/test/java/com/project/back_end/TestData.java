@@ -0,0 +1,77 @@
+package com.project.back_end;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Valid, unsaved entities for tests and the load tools. Emails are derived from the names
+ * ("Doctor Sync" becomes doctor.sync@clinic.test) and every entity gets a phone number of its own,
+ * so fixtures only need distinct names.
+ */
+public final class TestData {
+
+	public static final String PASSWORD = "secret1";
+
+	private static final AtomicInteger PHONES = new AtomicInteger();
+
+	private TestData() {
+	}
+
+	/**
+	 * A Cardiology doctor working the given slots.
+	 */
+	public static Doctor doctor(String name, String... availableTimes) {
+		Doctor doctor = new Doctor();
+		doctor.setName(name);
+		doctor.setSpecialty("Cardiology");
+		doctor.setEmail(email(name));
+		doctor.setPassword(PASSWORD);
+		doctor.setPhone(phone());
+		doctor.setAvailableTimes(List.of(availableTimes));
+		return doctor;
+	}
+
+	public static Patient patient(String name) {
+		Patient patient = new Patient();
+		patient.setName(name);
+		patient.setEmail(email(name));
+		patient.setPassword(PASSWORD);
+		patient.setPhone(phone());
+		patient.setAddress("1 " + name + " Street");
+		return patient;
+	}
+
+	/**
+	 * A scheduled appointment of the default duration.
+	 */
+	public static Appointment appointment(Doctor doctor, Patient patient, LocalDateTime time) {
+		Appointment appointment = new Appointment();
+		appointment.setDoctor(doctor);
+		appointment.setPatient(patient);
+		appointment.setAppointmentTime(time);
+		appointment.setStatus(Appointment.STATUS_SCHEDULED);
+		return appointment;
+	}
+
+	/**
+	 * Call before starting an application context by hand: devtools is on the test class path,
+	 * and its restarter would boot every such context twice.
+	 */
+	public static void disableDevtoolsRestart() {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+	}
+
+	private static String email(String name) {
+		return name.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", ".") + "@clinic.test";
+	}
+
+	private static String phone() {
+		return String.format(Locale.ROOT, "555%07d", PHONES.incrementAndGet());
+	}
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.config;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.TestData;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AppointmentStatusJob;
+import com.project.back_end.services.CacheSync;
+import com.project.back_end.services.DoctorFilterEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastStartConfigTest {
+
+	@Test
+	void hotPathAndBackgroundJobsAreCreatedAtStartup() {
+		TestData.disableDevtoolsRestart();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackEndApplication.class)
+				.profiles("test", "fast-start")
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:faststart;MODE=MySQL;DB_CLOSE_DELAY=-1",
+						"--spring.main.banner-mode=off")) {
+			assertTrue(created(context, DoctorFilterEngine.class));
+			assertTrue(created(context, CacheSync.class));
+			assertTrue(created(context, AppointmentStatusJob.class));
+			// Anything else waits for its first use
+			assertFalse(created(context, AppointmentService.class));
+		}
+	}
+
+	private static boolean created(ConfigurableApplicationContext context, Class<?> type) {
+		String[] names = context.getBeanNamesForType(type, false, false);
+		return names.length == 1 && context.getBeanFactory().containsSingleton(names[0]);
+	}
+}
@@ -0,0 +1,152 @@
+package com.project.back_end.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotencyFilterTest {
+
+	private static final String PATH = "/appointments/token-1";
+	private static final String BODY = "{\"doctor\":{\"id\":1}}";
+
+	private final IdempotencyFilter filter = new IdempotencyFilter(new IdempotencyStore(10, 60));
+	private final AtomicInteger handled = new AtomicInteger();
+
+	// Stands in for the controller: echoes the body it was given with a new number each time
+	private final FilterChain booking = (request, response) -> {
+		String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+		((HttpServletResponse) response).setStatus(201);
+		response.setContentType("application/json");
+		response.getWriter().write("{\"run\":" + handled.incrementAndGet() + ",\"body\":" + body + "}");
+	};
+
+	@Test
+	void aRetryGetsTheFirstResponseWithoutRunningAgain() throws Exception {
+		MockHttpServletResponse first = send("key-1", BODY, booking);
+		MockHttpServletResponse retry = send("key-1", BODY, booking);
+
+		assertEquals(1, handled.get());
+		assertEquals(201, retry.getStatus());
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+		assertEquals("{\"run\":1,\"body\":" + BODY + "}", retry.getContentAsString());
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void aKeyReusedWithAnotherBodyIsRefused() throws Exception {
+		send("key-1", BODY, booking);
+		MockHttpServletResponse reused = send("key-1", "{\"doctor\":{\"id\":2}}", booking);
+
+		assertEquals(422, reused.getStatus());
+		assertEquals(1, handled.get());
+	}
+
+	@Test
+	void aRetryWhileTheFirstIsRunningConflictsAndServerErrorsAreNotRemembered() throws Exception {
+		MockHttpServletResponse[] concurrent = new MockHttpServletResponse[1];
+		MockHttpServletResponse first = send("key-1", BODY, (request, response) -> {
+			concurrent[0] = send("key-1", BODY, booking);
+			((HttpServletResponse) response).setStatus(503);
+		});
+
+		assertEquals(409, concurrent[0].getStatus());
+		assertEquals(503, first.getStatus());
+		assertEquals(201, send("key-1", BODY, booking).getStatus());
+		assertEquals(1, handled.get());
+	}
+
+	@Test
+	void aResponseCompletedOnTheAsyncDispatchIsRemembered() throws Exception {
+		MockHttpServletRequest request = request("key-1", BODY);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		// As for a handler returning Mono: the request thread starts async processing and returns
+		filter.doFilter(request, response, (started, startedResponse) -> {
+			WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(started);
+			asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(
+					(HttpServletRequest) started, (HttpServletResponse) startedResponse));
+			try {
+				asyncManager.startDeferredResultProcessing(new DeferredResult<>());
+			} catch (Exception e) {
+				throw new ServletException(e);
+			}
+		});
+		assertEquals(409, send("key-1", BODY, booking).getStatus());
+
+		// The result is ready: the container dispatches the request again with the response it was given
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		filter.doFilter(request, request.getAsyncContext().getResponse(), booking);
+
+		MockHttpServletResponse retry = send("key-1", BODY, booking);
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(201, retry.getStatus());
+		assertEquals(response.getContentAsString(), retry.getContentAsString());
+		assertEquals(1, handled.get());
+	}
+
+	@Test
+	void theBodyCanBeReadWithAReadListener() throws Exception {
+		String[] read = new String[1];
+		MockHttpServletResponse response = send("key-1", BODY, (request, ignored) -> {
+			ServletInputStream input = request.getInputStream();
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			input.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					while (input.isReady() && !input.isFinished()) {
+						buffer.write(input.read());
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					read[0] = buffer.toString(StandardCharsets.UTF_8);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					read[0] = t.toString();
+				}
+			});
+		});
+
+		assertEquals(200, response.getStatus());
+		assertEquals(BODY, read[0]);
+	}
+
+	private MockHttpServletResponse send(String key, String body, FilterChain chain) throws ServletException, IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request(key, body), response, chain);
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String key, String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+		request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		request.setAsyncSupported(true);
+		return request;
+	}
+}
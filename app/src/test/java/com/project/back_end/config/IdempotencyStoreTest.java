@@ -0,0 +1,58 @@
+package com.project.back_end.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+	private static final byte[] BODY = "{\"doctor\":{\"id\":1}}".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] OTHER_BODY = "{\"doctor\":{\"id\":2}}".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void firstRequestClaimsTheKeyAndRetriesSeeItsResponse() {
+		IdempotencyStore store = new IdempotencyStore(10, 60);
+		assertNull(store.begin("k", BODY));
+
+		IdempotencyStore.Entry inFlight = store.begin("k", BODY);
+		assertNotNull(inFlight);
+		assertFalse(inFlight.isComplete());
+
+		byte[] response = "{\"message\":\"Appointment booked successfully\"}".getBytes(StandardCharsets.UTF_8);
+		store.complete("k", 201, "application/json", response);
+		IdempotencyStore.Entry replay = store.begin("k", BODY);
+		assertTrue(replay.isComplete());
+		assertEquals(201, replay.getStatus());
+		assertArrayEquals(response, replay.getBody());
+		assertFalse(replay.matches(OTHER_BODY));
+	}
+
+	@Test
+	void releasedKeysCanBeClaimedAgain() {
+		IdempotencyStore store = new IdempotencyStore(10, 60);
+		store.begin("k", BODY);
+		store.release("k");
+		assertNull(store.begin("k", BODY));
+	}
+
+	@Test
+	void oldestKeysAreDroppedWhenFullOrExpired() {
+		IdempotencyStore bounded = new IdempotencyStore(2, 60);
+		bounded.begin("a", BODY);
+		bounded.begin("b", BODY);
+		bounded.begin("c", BODY);
+		assertEquals(2, bounded.size());
+		assertNull(bounded.begin("a", BODY));
+
+		IdempotencyStore expiring = new IdempotencyStore(10, 0);
+		expiring.begin("a", BODY);
+		assertNull(expiring.begin("a", BODY));
+	}
+}
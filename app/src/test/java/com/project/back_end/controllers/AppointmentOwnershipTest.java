@@ -0,0 +1,112 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AppointmentOwnershipTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private Doctor doctor;
+	private Patient caller;
+	private Patient other;
+	private String token;
+	private LocalDateTime slot;
+
+	@BeforeEach
+	void seed() {
+		doctor = doctorRepository.save(TestData.doctor("Doctor Owner", "10:00", "11:00"));
+		caller = patientRepository.save(TestData.patient("Pat Caller"));
+		other = patientRepository.save(TestData.patient("Pat Other"));
+		token = tokenService.generateToken(caller.getEmail());
+		slot = LocalDate.now().plusDays(2).atTime(10, 0);
+	}
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	@Test
+	void aPatientCannotBookForSomeoneElse() throws Exception {
+		mockMvc.perform(post("/appointments/{token}", token).contentType(MediaType.APPLICATION_JSON)
+						.content(appointment(null, other, slot)))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/appointments/{token}", token).contentType(MediaType.APPLICATION_JSON)
+						.content(appointment(null, caller, slot)))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	void aBatchIsRefusedIfAnyItemIsSomeoneElses() throws Exception {
+		String batch = "{\"appointments\":[" + appointment(null, caller, slot) + ","
+				+ appointment(null, other, slot.plusHours(1)) + "]}";
+		mockMvc.perform(post("/appointments/batch/{token}", token).contentType(MediaType.APPLICATION_JSON).content(batch))
+				.andExpect(status().isForbidden());
+
+		String recurrence = "{\"first\":" + appointment(null, other, slot) + ",\"occurrences\":2}";
+		mockMvc.perform(post("/appointments/batch/{token}", token).contentType(MediaType.APPLICATION_JSON).content(recurrence))
+				.andExpect(status().isForbidden());
+		assertEquals(0, appointmentRepository.count());
+	}
+
+	@Test
+	void aPatientCannotEditSomeoneElsesAppointment() throws Exception {
+		Appointment theirs = appointmentRepository.save(TestData.appointment(doctor, other, slot));
+
+		// Claiming it in the body does not help, and neither does naming oneself
+		mockMvc.perform(put("/appointments/{token}", token).contentType(MediaType.APPLICATION_JSON)
+						.content(appointment(theirs.getId(), other, slot.plusHours(1))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(put("/appointments/{token}", token).contentType(MediaType.APPLICATION_JSON)
+						.content(appointment(theirs.getId(), caller, slot.plusHours(1))))
+				.andExpect(status().isForbidden());
+		assertEquals(slot, appointmentRepository.findById(theirs.getId()).orElseThrow().getAppointmentTime());
+	}
+
+	private String appointment(Long id, Patient patient, LocalDateTime time) {
+		return "{" + (id == null ? "" : "\"id\":" + id + ",") + "\"doctor\":{\"id\":" + doctor.getId() + "},"
+				+ "\"patient\":{\"id\":" + patient.getId() + "},\"appointmentTime\":\"" + time + "\",\"status\":0}";
+	}
+}
@@ -0,0 +1,83 @@
+package com.project.back_end.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project.back_end.TestData;
+import com.project.back_end.repo.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContentNegotiationTest {
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@BeforeEach
+	void seed() {
+		doctorRepository.save(TestData.doctor("Doctor Binary", "09:00"));
+	}
+
+	@AfterEach
+	void clean() {
+		doctorRepository.deleteAll();
+	}
+
+	@Test
+	void jsonIsTheDefault() throws Exception {
+		mockMvc.perform(get("/doctor"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	@Test
+	void cborAndSmileCarryTheSameBody() throws Exception {
+		JsonNode cbor = fetch(MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+		JsonNode smile = fetch(SMILE, new ObjectMapper(new SmileFactory()));
+		assertEquals(cbor, smile);
+		assertEquals("Doctor Binary", cbor.at("/doctors/0/name").asText());
+		assertEquals("09:00", cbor.at("/doctors/0/availableTimes/0").asText());
+		assertTrue(cbor.at("/doctors/0/password").isMissingNode());
+	}
+
+	@Test
+	void sparseFieldsApplyToBinaryEncodings() throws Exception {
+		MvcResult result = mockMvc.perform(get("/doctor").param("fields", "name").accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk())
+				.andReturn();
+		JsonNode doctor = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray()).at("/doctors/0");
+		assertEquals(1, doctor.size());
+		assertEquals("Doctor Binary", doctor.get("name").asText());
+	}
+
+	private JsonNode fetch(MediaType mediaType, ObjectMapper decoder) throws Exception {
+		MvcResult result = mockMvc.perform(get("/doctor").accept(mediaType))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(mediaType))
+				.andReturn();
+		return decoder.readTree(result.getResponse().getContentAsByteArray());
+	}
+}
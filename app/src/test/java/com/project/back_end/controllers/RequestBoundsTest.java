@@ -0,0 +1,131 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Out-of-range and malformed request values are refused with 400 before they reach the services.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RequestBoundsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AdminRepository adminRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private Doctor doctor;
+	private Patient patient;
+	private String adminToken;
+	private String doctorToken;
+	private String patientToken;
+
+	@BeforeEach
+	void seed() {
+		Admin admin = new Admin();
+		admin.setUsername("bounds-admin");
+		admin.setPassword(TestData.PASSWORD);
+		adminRepository.save(admin);
+		adminToken = tokenService.generateToken(admin.getUsername());
+		doctor = doctorRepository.save(TestData.doctor("Doctor Bounds", "10:00"));
+		doctorToken = tokenService.generateToken(doctor.getEmail());
+		patient = patientRepository.save(TestData.patient("Pat Bounds"));
+		patientToken = tokenService.generateToken(patient.getEmail());
+	}
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+		adminRepository.deleteAll();
+	}
+
+	@Test
+	void bookingsBeyondTheHorizonAreRefused() throws Exception {
+		book(LocalDate.now().plusYears(2).atTime(10, 0));
+		book(LocalDateTime.of(9999, 12, 31, 10, 0));
+		assertEquals(0, appointmentRepository.count());
+	}
+
+	@Test
+	void malformedAdminDatesAreRefused() throws Exception {
+		mockMvc.perform(get("/admin/utilization/{from}/{to}/{token}", "last-week", LocalDate.now(), adminToken))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/admin/reports/appointments/{groupBy}/{token}", "status", adminToken).param("from", "2026-13-01T00:00"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void malformedPrescriptionSearchDatesAreRefused() throws Exception {
+		for (String from : new String[]{"yesterday", "2026-02-30"}) {
+			MvcResult search = mockMvc.perform(get("/prescription/search/{token}", doctorToken)
+							.param("medication", "amox").param("from", from))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			mockMvc.perform(asyncDispatch(search)).andExpect(status().isBadRequest());
+		}
+	}
+
+	@Test
+	void nextAvailableSearchesAreBounded() throws Exception {
+		String url = "/doctor/nextAvailable/{user}/{speciality}/{time}/{token}";
+		mockMvc.perform(get(url, "patient", "cardiology", "AM", patientToken).param("count", "50").param("days", "90"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get(url, "patient", "cardiology", "AM", patientToken).param("count", "51"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get(url, "patient", "cardiology", "AM", patientToken).param("days", "91"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get(url, "patient", "cardiology", "AM", patientToken).param("count", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private void book(LocalDateTime time) throws Exception {
+		String body = "{\"doctor\":{\"id\":" + doctor.getId() + "},\"patient\":{\"id\":" + patient.getId() + "},"
+				+ "\"appointmentTime\":\"" + time + "\",\"status\":0}";
+		mockMvc.perform(post("/appointments/{token}", patientToken).contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,64 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.TestData;
+import com.project.back_end.repo.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SparseFieldsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@BeforeEach
+	void seed() {
+		doctorRepository.save(TestData.doctor("Doctor Sparse", "09:00"));
+	}
+
+	@AfterEach
+	void clean() {
+		doctorRepository.deleteAll();
+	}
+
+	@Test
+	void onlyTheRequestedFieldsAreSent() throws Exception {
+		mockMvc.perform(get("/doctor").param("fields", "id,name"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.doctors[0].name").value("Doctor Sparse"))
+				.andExpect(jsonPath("$.doctors[0].id").exists())
+				.andExpect(jsonPath("$.doctors[0].specialty").doesNotExist())
+				.andExpect(jsonPath("$.doctors[0].availableTimes").doesNotExist());
+	}
+
+	@Test
+	void withoutFieldsEverythingIsSent() throws Exception {
+		mockMvc.perform(get("/doctor"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.doctors[0].specialty").value("Cardiology"))
+				.andExpect(jsonPath("$.doctors[0].availableTimes[0]").value("09:00"))
+				.andExpect(jsonPath("$.doctors[0].password").doesNotExist());
+	}
+
+	@Test
+	void unknownAndWriteOnlyFieldsAreRefused() throws Exception {
+		mockMvc.perform(get("/doctor").param("fields", "name,password"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Unknown field: password"));
+	}
+}
@@ -0,0 +1,169 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.TestData;
+import com.project.back_end.config.StatementCountHeaders;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.TokenService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * N+1 regression guard: every endpoint below has a fixed budget of JDBC statements (and Mongo
+ * commands where it uses Mongo), read back from the headers that the "debug" profile adds.
+ * Raise a budget only together with the change that legitimately needs it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "debug"})
+class StatementBudgetTest {
+
+	private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+
+	@DynamicPropertySource
+	static void mongo(DynamicPropertyRegistry registry) {
+		InetSocketAddress address = MONGO.bind();
+		registry.add("spring.data.mongodb.uri",
+				() -> "mongodb://" + address.getHostString() + ":" + address.getPort() + "/prescriptions");
+	}
+
+	@AfterAll
+	static void stopMongo() {
+		MONGO.shutdownNow();
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorService doctorService;
+
+	@Autowired
+	private TokenService tokenService;
+
+	private Doctor doctor;
+	private Patient patient;
+	private String patientToken;
+	private String doctorToken;
+
+	@BeforeEach
+	void seed() {
+		for (int i = 0; i < 5; i++) {
+			doctor = doctorRepository.save(TestData.doctor("Doctor Number " + i, "09:00", "14:00"));
+		}
+		patient = patientRepository.save(TestData.patient("Pat Tester"));
+		patientToken = tokenService.generateToken(patient.getEmail());
+		doctorToken = tokenService.generateToken(doctor.getEmail());
+		doctorService.loadDoctorCatalog();
+	}
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	// --- DoctorController ---
+
+	@Test
+	void doctorListIsOneQueryWhateverTheNumberOfDoctors() throws Exception {
+		expectBudget(get("/doctor"), 1);
+	}
+
+	@Test
+	void doctorFilterIsServedFromMemory() throws Exception {
+		expectBudget(get("/doctor/filter/{name}/{time}/{speciality}", "number", "AM", "cardiology"), 0);
+	}
+
+	@Test
+	void doctorAvailabilityIsTokenDoctorAndScheduleQueries() throws Exception {
+		expectBudget(get("/doctor/availability/{user}/{doctorId}/{date}/{token}",
+				"patient", doctor.getId(), LocalDate.now().plusDays(2), patientToken), 3);
+	}
+
+	// --- PatientController ---
+
+	@Test
+	void patientDetailsAreTokenAndPatientQueries() throws Exception {
+		expectBudget(get("/patient/{token}", patientToken), 2);
+	}
+
+	// --- AppointmentController ---
+
+	@Test
+	void bookingIsTokenDoctorScheduleLockRecheckInsertAndChangeRow() throws Exception {
+		String body = "{\"doctor\":{\"id\":" + doctor.getId() + "},\"patient\":{\"id\":" + patient.getId() + "},"
+				+ "\"appointmentTime\":\"" + LocalDate.now().plusDays(2).atTime(10, 0) + "\",\"status\":0}";
+		expectBudget(post("/appointments/{token}", patientToken).contentType(MediaType.APPLICATION_JSON).content(body), 7);
+	}
+
+	// --- PrescriptionController ---
+
+	@Test
+	void prescriptionSearchIsTokenAndDoctorQueriesAndOneMongoFind() throws Exception {
+		MvcResult result = expectBudget(get("/prescription/search/{token}", doctorToken).param("medication", "amox"), 2);
+		// The driver runs the find on its own thread; a per-thread count would report none
+		assertEquals("1", result.getResponse().getHeader(StatementCountHeaders.MONGO_HEADER));
+	}
+
+	private MvcResult expectBudget(MockHttpServletRequestBuilder request, long budget) throws Exception {
+		MvcResult started = mockMvc.perform(request).andReturn();
+		MvcResult result = started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)).andReturn() : started;
+		String uri = result.getRequest().getRequestURI();
+		int status = result.getResponse().getStatus();
+		// A request refused early issues fewer statements and would pass any budget
+		assertTrue(status >= 200 && status < 300, () -> uri + " answered " + status + ": " + contentOf(result));
+		String header = result.getResponse().getHeader(StatementCountHeaders.SQL_HEADER);
+		assertNotNull(header, "statement counter header missing; is the debug profile active?");
+		long statements = Long.parseLong(header);
+		assertTrue(statements <= budget, () -> uri + " issued " + statements + " JDBC statements, budget is " + budget);
+		return result;
+	}
+
+	private static String contentOf(MvcResult result) {
+		try {
+			return result.getResponse().getContentAsString();
+		} catch (UnsupportedEncodingException e) {
+			return "";
+		}
+	}
+}
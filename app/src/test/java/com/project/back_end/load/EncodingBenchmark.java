@@ -0,0 +1,173 @@
+package com.project.back_end.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.config.JacksonConfig;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares JSON, CBOR and Smile on the bodies of the kiosk endpoints: the doctor list, one day's
+ * availability and a patient's appointment history. Mappers are configured as in the application.
+ * For each body and encoding it prints the size, the size after gzip (what crosses the wire with
+ * server.compression on) and the mean time to encode the body and to decode it into a tree.
+ *
+ * Run with {@code mvn -Pencoding verify}; every knob is a system property:
+ * <ul>
+ *   <li>encoding.doctors (50), encoding.history (20), encoding.slots (16)</li>
+ *   <li>encoding.warmup (20000), encoding.iterations (50000)</li>
+ *   <li>encoding.report ("target/encoding-report.csv")</li>
+ * </ul>
+ */
+public final class EncodingBenchmark {
+
+	enum Format {
+		JSON("application/json", JsonFactory::new),
+		CBOR("application/cbor", CBORFactory::new),
+		SMILE("application/x-jackson-smile", SmileFactory::new);
+
+		final String mediaType;
+		final Supplier<JsonFactory> factory;
+
+		Format(String mediaType, Supplier<JsonFactory> factory) {
+			this.mediaType = mediaType;
+			this.factory = factory;
+		}
+
+		ObjectMapper mapper() {
+			// Spring Boot's defaults plus the application's customizer, as JacksonConfig's converters get them
+			Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+					.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+			new JacksonConfig().serializeAllByDefault().customize(builder);
+			return builder.factory(factory.get()).build();
+		}
+	}
+
+	private EncodingBenchmark() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		int warmup = Integer.getInteger("encoding.warmup", 20_000);
+		int iterations = Integer.getInteger("encoding.iterations", 50_000);
+		Map<String, Object> bodies = new LinkedHashMap<>();
+		bodies.put("doctors", Map.of("doctors", doctors(Integer.getInteger("encoding.doctors", 50))));
+		bodies.put("availability", Map.of("availability", slots(Integer.getInteger("encoding.slots", 16))));
+		bodies.put("history", Map.of("appointments", history(Integer.getInteger("encoding.history", 20))));
+
+		Path csv = Path.of(System.getProperty("encoding.report", "target/encoding-report.csv"));
+		Path parent = csv.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		System.out.printf(Locale.ROOT, "Encoding: %d warm-up and %d measured iterations per body and format%n", warmup, iterations);
+		System.out.printf(Locale.ROOT, "%-13s %-6s %9s %9s %11s %11s%n", "body", "format", "bytes", "gzip", "encode us", "decode us");
+		long sink = 0;
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+			out.println("body,format,media_type,bytes,gzip_bytes,encode_us,decode_us");
+			for (Map.Entry<String, Object> body : bodies.entrySet()) {
+				for (Format format : Format.values()) {
+					ObjectMapper mapper = format.mapper();
+					byte[] encoded = mapper.writeValueAsBytes(body.getValue());
+					sink += encodeLoop(mapper, body.getValue(), warmup) + decodeLoop(mapper, encoded, warmup);
+
+					long start = System.nanoTime();
+					sink += encodeLoop(mapper, body.getValue(), iterations);
+					double encodeMicros = (System.nanoTime() - start) / 1e3 / iterations;
+					start = System.nanoTime();
+					sink += decodeLoop(mapper, encoded, iterations);
+					double decodeMicros = (System.nanoTime() - start) / 1e3 / iterations;
+
+					int gzipped = gzipSize(encoded);
+					System.out.printf(Locale.ROOT, "%-13s %-6s %9d %9d %11.2f %11.2f%n",
+							body.getKey(), format, encoded.length, gzipped, encodeMicros, decodeMicros);
+					out.printf(Locale.ROOT, "%s,%s,%s,%d,%d,%.3f,%.3f%n",
+							body.getKey(), format, format.mediaType, encoded.length, gzipped, encodeMicros, decodeMicros);
+				}
+			}
+		}
+		// Printed so the measured loops cannot be optimised away
+		System.out.println("Report written to " + csv + " (checksum " + sink + ")");
+	}
+
+	private static long encodeLoop(ObjectMapper mapper, Object body, int iterations) throws IOException {
+		long bytes = 0;
+		for (int i = 0; i < iterations; i++) {
+			bytes += mapper.writeValueAsBytes(body).length;
+		}
+		return bytes;
+	}
+
+	private static long decodeLoop(ObjectMapper mapper, byte[] encoded, int iterations) throws IOException {
+		long nodes = 0;
+		for (int i = 0; i < iterations; i++) {
+			JsonNode tree = mapper.readTree(encoded);
+			nodes += tree.size();
+		}
+		return nodes;
+	}
+
+	private static int gzipSize(byte[] encoded) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+			gzip.write(encoded);
+		}
+		return buffer.size();
+	}
+
+	private static List<Doctor> doctors(int count) {
+		String[] specialties = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics"};
+		List<Doctor> doctors = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Doctor doctor = new Doctor();
+			doctor.setId((long) i + 1);
+			doctor.setVersion(0L);
+			doctor.setName("Bench Doctor " + i);
+			doctor.setSpecialty(specialties[i % specialties.length]);
+			doctor.setEmail("doctor" + i + "@bench.test");
+			doctor.setPhone(String.format(Locale.ROOT, "55500%05d", i));
+			doctor.setAvailableTimes(List.of("09:00", "10:00", "11:00", "14:00", "15:00", "16:00"));
+			doctors.add(doctor);
+		}
+		return doctors;
+	}
+
+	private static List<String> slots(int count) {
+		List<String> slots = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			slots.add(String.format(Locale.ROOT, "%02d:%02d", 9 + i / 4, (i % 4) * 15));
+		}
+		return slots;
+	}
+
+	private static List<AppointmentDTO> history(int count) {
+		LocalDateTime first = LocalDate.of(2025, 1, 6).atTime(9, 0);
+		List<AppointmentDTO> history = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			history.add(new AppointmentDTO((long) i + 1, (long) (i % 7) + 1, "Bench Doctor " + (i % 7), 42L,
+					"Bench Patient", "patient@bench.test", "5560000042", "42 Bench Street",
+					first.plusDays(7L * i), Appointment.STATUS_COMPLETED, Appointment.DEFAULT_DURATION_MINUTES, 0L));
+		}
+		return history;
+	}
+}
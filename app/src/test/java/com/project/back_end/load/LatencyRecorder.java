@@ -0,0 +1,60 @@
+package com.project.back_end.load;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Latencies of one endpoint as seen by one worker thread. Workers never share a recorder,
+ * so recording is a plain array append; recorders are merged once the run is over.
+ * Exact percentiles by sorting are affordable at the request counts a single box produces.
+ */
+final class LatencyRecorder {
+
+	private long[] nanos = new long[1024];
+	private int count;
+	private long failures;
+
+	void record(long latencyNanos, boolean success) {
+		if (count == nanos.length) {
+			nanos = Arrays.copyOf(nanos, count * 2);
+		}
+		nanos[count++] = latencyNanos;
+		if (!success) {
+			failures++;
+		}
+	}
+
+	int count() {
+		return count;
+	}
+
+	long failures() {
+		return failures;
+	}
+
+	static LatencyRecorder merge(Collection<LatencyRecorder> recorders) {
+		LatencyRecorder merged = new LatencyRecorder();
+		int total = recorders.stream().mapToInt(LatencyRecorder::count).sum();
+		merged.nanos = new long[Math.max(total, 1)];
+		for (LatencyRecorder recorder : recorders) {
+			System.arraycopy(recorder.nanos, 0, merged.nanos, merged.count, recorder.count);
+			merged.count += recorder.count;
+			merged.failures += recorder.failures;
+		}
+		Arrays.sort(merged.nanos, 0, merged.count);
+		return merged;
+	}
+
+	/**
+	 * Nearest-rank percentile in milliseconds; only valid on a merged (sorted) recorder.
+	 *
+	 * @param quantile e.g. 0.99 for p99.
+	 */
+	double percentileMillis(double quantile) {
+		if (count == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(quantile * count);
+		return nanos[Math.min(Math.max(rank, 1), count) - 1] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,364 @@
+package com.project.back_end.load;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.ReactivePrescriptionRepository;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.TokenService;
+import de.bwaldvogel.mongo.MongoServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline load generator for the booking and browsing flows.
+ *
+ * Boots the application on a random port against H2 (the "test" profile) and an in-process
+ * Mongo wire-protocol server, seeds doctors, patients, appointments and prescriptions, then
+ * drives a closed-loop mix of requests from a fixed number of worker threads over real HTTP.
+ * Prints throughput and p50/p99/p999 per endpoint and writes the same table as CSV.
+ *
+ * Run with {@code mvn -Pload verify}; every knob is a system property:
+ * <ul>
+ *   <li>load.threads (16), load.warmup (10s), load.duration (60s)</li>
+ *   <li>load.mix ("login=5,doctors=30,availability=20,booking=10,history=20,prescription-save=5,prescription-read=10")</li>
+ *   <li>load.doctors (50), load.patients (500), load.prescriptions (1000), load.seed (42)</li>
+ *   <li>load.accept ("application/json"; application/cbor or application/x-jackson-smile for the binary encodings)</li>
+ *   <li>load.mongo-delay-ms (0): added to every Mongo read and write once seeding is done. With a delay of
+ *       a few hundred ms, the MySQL-backed endpoints should keep their latency while the prescription
+ *       endpoints absorb it, because prescription requests release their servlet thread while Mongo answers.</li>
+ *   <li>load.report ("target/load-report.csv")</li>
+ * </ul>
+ */
+public final class LoadHarness {
+
+	enum Endpoint {
+		LOGIN("login"),
+		DOCTORS("doctors"),
+		AVAILABILITY("availability"),
+		BOOKING("booking"),
+		HISTORY("history"),
+		PRESCRIPTION_SAVE("prescription-save"),
+		PRESCRIPTION_READ("prescription-read");
+
+		final String key;
+
+		Endpoint(String key) {
+			this.key = key;
+		}
+
+		static Endpoint of(String key) {
+			for (Endpoint endpoint : values()) {
+				if (endpoint.key.equals(key)) {
+					return endpoint;
+				}
+			}
+			throw new IllegalArgumentException("Unknown endpoint in load.mix: " + key);
+		}
+
+		boolean succeeded(int status) {
+			// A booking that loses the race for a slot is an expected business outcome
+			return (status >= 200 && status < 300) || (this == BOOKING && status == 409);
+		}
+	}
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final String baseUrl;
+	private final String accept = System.getProperty("load.accept", "application/json");
+	private final Endpoint[] cumulative;
+	private final List<Long> doctorIds = new ArrayList<>();
+	private final List<Patient> patients = new ArrayList<>();
+	private final List<String> patientTokens = new ArrayList<>();
+	private final List<String> doctorTokens = new ArrayList<>();
+	private final long seededPrescriptions;
+	private final AtomicLong nextAppointmentId;
+
+	private LoadHarness(String baseUrl, Map<Endpoint, Integer> mix, long seededPrescriptions) {
+		this.baseUrl = baseUrl;
+		this.seededPrescriptions = seededPrescriptions;
+		this.nextAppointmentId = new AtomicLong(seededPrescriptions);
+		List<Endpoint> slots = new ArrayList<>();
+		mix.forEach((endpoint, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				slots.add(endpoint);
+			}
+		});
+		if (slots.isEmpty()) {
+			throw new IllegalArgumentException("load.mix has no positive weights");
+		}
+		this.cumulative = slots.toArray(new Endpoint[0]);
+	}
+
+	public static void main(String[] args) {
+		try {
+			load(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		// Both Mongo clients take Boot's Netty transport, and only one of their event loop groups is
+		// shut down with the context: its non-daemon threads would keep the JVM running
+		System.exit(0);
+	}
+
+	private static void load(String[] args) throws Exception {
+		TestData.disableDevtoolsRestart();
+
+		int threads = Integer.getInteger("load.threads", 16);
+		Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "10s"));
+		Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "60s"));
+		Map<Endpoint, Integer> mix = parseMix(System.getProperty("load.mix",
+				"login=5,doctors=30,availability=20,booking=10,history=20,prescription-save=5,prescription-read=10"));
+		long seed = Long.getLong("load.seed", 42L);
+		long mongoDelayMillis = Long.getLong("load.mongo-delay-ms", 0L);
+
+		SlowMongoBackend mongoBackend = new SlowMongoBackend();
+		MongoServer mongo = new MongoServer(mongoBackend);
+		InetSocketAddress mongoAddress = mongo.bind();
+		// As command-line arguments: default properties would lose to application.properties
+		List<String> arguments = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.data.mongodb.uri=mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/prescriptions",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN"));
+		arguments.addAll(List.of(args));
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(BackEndApplication.class)
+				.profiles("test")
+				.run(arguments.toArray(new String[0]));
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			LoadHarness harness = new LoadHarness("http://localhost:" + port, mix, Long.getLong("load.prescriptions", 1000L));
+			harness.seed(context, Integer.getInteger("load.doctors", 50), Integer.getInteger("load.patients", 500), new SplittableRandom(seed));
+			mongoBackend.setDelayMillis(mongoDelayMillis);
+			System.out.printf(Locale.ROOT, "Load: %d threads, %ss warm-up, %ss measured, mix %s, accept %s, Mongo delay %dms%n",
+					threads, warmup.toSeconds(), duration.toSeconds(), mix, harness.accept, mongoDelayMillis);
+			Map<Endpoint, LatencyRecorder> results = harness.run(threads, warmup, duration, seed);
+			report(results, duration, Path.of(System.getProperty("load.report", "target/load-report.csv")));
+		} finally {
+			context.close();
+			mongo.shutdownNow();
+		}
+	}
+
+	static Map<Endpoint, Integer> parseMix(String spec) {
+		Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+		for (String part : spec.split(",")) {
+			String[] pair = part.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("load.mix entries look like name=weight, got: " + part);
+			}
+			mix.put(Endpoint.of(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+		}
+		return mix;
+	}
+
+	private void seed(ConfigurableApplicationContext context, int doctorCount, int patientCount, SplittableRandom random) {
+		DoctorRepository doctorRepository = context.getBean(DoctorRepository.class);
+		PatientRepository patientRepository = context.getBean(PatientRepository.class);
+		TokenService tokenService = context.getBean(TokenService.class);
+		String[] specialties = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics"};
+
+		List<Doctor> doctors = new ArrayList<>();
+		for (int i = 0; i < doctorCount; i++) {
+			Doctor doctor = TestData.doctor("Load Doctor " + i, "09:00", "10:00", "11:00", "14:00", "15:00", "16:00");
+			doctor.setSpecialty(specialties[i % specialties.length]);
+			doctors.add(doctor);
+		}
+		for (Doctor doctor : doctorRepository.saveAll(doctors)) {
+			doctorIds.add(doctor.getId());
+			doctorTokens.add(tokenService.generateToken(doctor.getEmail()));
+		}
+
+		List<Patient> created = new ArrayList<>();
+		for (int i = 0; i < patientCount; i++) {
+			created.add(TestData.patient("Load Patient " + i));
+		}
+		for (Patient patient : patientRepository.saveAll(created)) {
+			patients.add(patient);
+			patientTokens.add(tokenService.generateToken(patient.getEmail()));
+		}
+
+		// A little history per patient, in the past so it never collides with booking traffic.
+		// Written through the JDBC batch path: JPA validation rejects past appointment times.
+		List<Appointment> history = new ArrayList<>();
+		for (Patient patient : patients) {
+			for (int i = 1; i <= 2; i++) {
+				Appointment appointment = TestData.appointment(doctors.get(random.nextInt(doctors.size())), patient,
+						LocalDate.now().minusDays(7L * i).atTime(9 + random.nextInt(8), 0));
+				appointment.setStatus(Appointment.STATUS_COMPLETED);
+				history.add(appointment);
+			}
+		}
+		context.getBean(AppointmentBatchRepository.class).insertAll(history);
+
+		List<Prescription> prescriptions = new ArrayList<>();
+		for (long id = 1; id <= seededPrescriptions; id++) {
+			prescriptions.add(prescription(id));
+		}
+		context.getBean(ReactivePrescriptionRepository.class).saveAll(prescriptions).blockLast();
+
+		context.getBean(DoctorService.class).loadDoctorCatalog();
+	}
+
+	private Map<Endpoint, LatencyRecorder> run(int threads, Duration warmup, Duration duration, long seed) throws Exception {
+		long measureFrom = System.nanoTime() + warmup.toNanos();
+		long end = measureFrom + duration.toNanos();
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		List<Future<Map<Endpoint, LatencyRecorder>>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			SplittableRandom random = new SplittableRandom(seed + t);
+			futures.add(workers.submit(() -> work(random, measureFrom, end)));
+		}
+		Map<Endpoint, List<LatencyRecorder>> perThread = new EnumMap<>(Endpoint.class);
+		for (Future<Map<Endpoint, LatencyRecorder>> future : futures) {
+			future.get().forEach((endpoint, recorder) -> perThread.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(recorder));
+		}
+		workers.shutdown();
+
+		Map<Endpoint, LatencyRecorder> merged = new EnumMap<>(Endpoint.class);
+		perThread.forEach((endpoint, recorders) -> merged.put(endpoint, LatencyRecorder.merge(recorders)));
+		return merged;
+	}
+
+	private Map<Endpoint, LatencyRecorder> work(SplittableRandom random, long measureFrom, long end) throws InterruptedException {
+		Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+		while (System.nanoTime() < end) {
+			Endpoint endpoint = cumulative[random.nextInt(cumulative.length)];
+			HttpRequest request = request(endpoint, random);
+			long start = System.nanoTime();
+			int status;
+			try {
+				status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+			} catch (IOException e) {
+				status = -1;
+			}
+			long elapsed = System.nanoTime() - start;
+			if (start >= measureFrom) {
+				recorders.computeIfAbsent(endpoint, e -> new LatencyRecorder()).record(elapsed, endpoint.succeeded(status));
+			}
+		}
+		return recorders;
+	}
+
+	private HttpRequest request(Endpoint endpoint, SplittableRandom random) {
+		int p = random.nextInt(patients.size());
+		Patient patient = patients.get(p);
+		String patientToken = patientTokens.get(p);
+		int d = random.nextInt(doctorIds.size());
+		Long doctorId = doctorIds.get(d);
+		LocalDate day = LocalDate.now().plusDays(1 + random.nextInt(30));
+
+		switch (endpoint) {
+			case LOGIN:
+				return post("/patient/login", "{\"identifier\":\"" + patient.getEmail() + "\",\"password\":\"" + TestData.PASSWORD + "\"}");
+			case DOCTORS:
+				return get("/doctor");
+			case AVAILABILITY:
+				return get("/doctor/availability/patient/" + doctorId + "/" + day + "/" + patientToken);
+			case BOOKING:
+				LocalDateTime time = day.atTime(9 + random.nextInt(8), 0);
+				return post("/appointments/" + patientToken, "{\"doctor\":{\"id\":" + doctorId + "},\"patient\":{\"id\":"
+						+ patient.getId() + "},\"appointmentTime\":\"" + time + "\",\"status\":0}");
+			case HISTORY:
+				return get("/patient/" + patient.getId() + "/" + patientToken);
+			case PRESCRIPTION_SAVE:
+				return post("/prescription/" + doctorTokens.get(d), json(prescription(nextAppointmentId.incrementAndGet())));
+			case PRESCRIPTION_READ:
+				long appointmentId = 1 + random.nextLong(Math.max(seededPrescriptions, 1));
+				return get("/prescription/" + appointmentId + "/" + doctorTokens.get(d));
+			default:
+				throw new IllegalStateException(endpoint.name());
+		}
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).header("Accept", accept).GET().build();
+	}
+
+	private HttpRequest post(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private static Prescription prescription(long appointmentId) {
+		Prescription prescription = new Prescription();
+		prescription.setPatientName("Load Patient");
+		prescription.setAppointmentId(appointmentId);
+		prescription.setMedication("Paracetamol");
+		prescription.setDosage("500mg");
+		prescription.setDoctorNotes("Twice a day after meals");
+		return prescription;
+	}
+
+	private static String json(Prescription prescription) {
+		return "{\"patientName\":\"" + prescription.getPatientName() + "\",\"appointmentId\":" + prescription.getAppointmentId()
+				+ ",\"medication\":\"" + prescription.getMedication() + "\",\"dosage\":\"" + prescription.getDosage()
+				+ "\",\"doctorNotes\":\"" + prescription.getDoctorNotes() + "\"}";
+	}
+
+	private static void report(Map<Endpoint, LatencyRecorder> results, Duration duration, Path csv) throws IOException {
+		double seconds = duration.toNanos() / 1e9;
+		String header = String.format(Locale.ROOT, "%-18s %9s %8s %9s %9s %9s %9s", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+		System.out.println(header);
+		Path parent = csv.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+			out.println("endpoint,requests,errors,throughput,p50_ms,p99_ms,p999_ms");
+			List<LatencyRecorder> all = new ArrayList<>();
+			for (Map.Entry<Endpoint, LatencyRecorder> entry : results.entrySet()) {
+				row(entry.getKey().key, entry.getValue(), seconds, out);
+				all.add(entry.getValue());
+			}
+			row("total", LatencyRecorder.merge(all), seconds, out);
+		}
+		System.out.println("Report written to " + csv);
+	}
+
+	private static void row(String name, LatencyRecorder recorder, double seconds, PrintWriter csv) {
+		double throughput = recorder.count() / seconds;
+		double p50 = recorder.percentileMillis(0.50);
+		double p99 = recorder.percentileMillis(0.99);
+		double p999 = recorder.percentileMillis(0.999);
+		System.out.printf(Locale.ROOT, "%-18s %9d %8d %9.1f %9.2f %9.2f %9.2f%n", name, recorder.count(), recorder.failures(), throughput, p50, p99, p999);
+		csv.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f%n", name, recorder.count(), recorder.failures(), throughput, p50, p99, p999);
+	}
+}
@@ -0,0 +1,41 @@
+package com.project.back_end.load;
+
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.wire.message.MongoMessage;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory Mongo stand-in that can be made slow: once {@link #setDelayMillis} is above zero, every
+ * read or write command is answered that much later. Handshakes and heartbeats are answered at once,
+ * so the driver keeps considering the server healthy, as it would a real degraded one.
+ *
+ * The delay holds the server's own I/O threads, so a slowed server also serves fewer commands at a
+ * time, like a saturated Mongo.
+ */
+final class SlowMongoBackend extends MemoryBackend {
+
+	private static final Set<String> DATA_COMMANDS = Set.of(
+			"find", "getMore", "insert", "update", "delete", "aggregate", "count", "findAndModify");
+
+	private volatile long delayMillis;
+
+	void setDelayMillis(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	@Override
+	public Document handleMessage(MongoMessage message) {
+		long delay = delayMillis;
+		if (delay > 0 && !message.getDocument().isEmpty() && DATA_COMMANDS.contains(message.getDocument().keySet().iterator().next())) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return super.handleMessage(message);
+	}
+}
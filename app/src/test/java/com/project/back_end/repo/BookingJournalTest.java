@@ -0,0 +1,203 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingJournalTest {
+
+	@TempDir
+	Path dir;
+
+	// No appointments stored yet, so every baseline is empty
+	private final AppointmentSnapshotRepository emptyTable = new AppointmentSnapshotRepository(null) {
+		@Override
+		public void scan(int fetchSize, RowCallbackHandler handler) {
+		}
+	};
+
+	@Test
+	void eventsAreReplayedInOrderAcrossSegments() throws Exception {
+		// Three records per segment, so the events below span several files
+		BookingJournal journal = open();
+		Appointment first = appointment(10L, 1L, LocalDateTime.of(2026, 5, 4, 9, 0));
+		Appointment moved = appointment(10L, 2L, LocalDateTime.of(2026, 5, 5, 11, 0));
+		journal.booked(first);
+		journal.rescheduled(first, moved);
+		journal.booked(appointment(11L, 1L, LocalDateTime.of(2026, 5, 4, 10, 0)));
+		journal.cancelled(moved);
+
+		List<String> events = new ArrayList<>();
+		long next = journal.replay(journal.baselineOffset(), record -> events.add(describe(record)));
+		assertEquals(List.of("5:0@0/0", "7:0@0/0", "1:10@1/9", "2:10@2/11", "1:11@1/10", "3:10@2/11"), events);
+		assertEquals(next, journal.endOffset());
+		assertEquals(next, journal.replay(next, record -> events.add("unexpected")));
+	}
+
+	@Test
+	void aCleanRestartFoldsTheEventsIntoANewBaselineAndDeletesTheOldSegments() throws Exception {
+		BookingJournal journal = open();
+		Appointment first = appointment(10L, 1L, LocalDateTime.of(2026, 5, 4, 9, 0));
+		journal.booked(first);
+		journal.rescheduled(first, appointment(10L, 2L, LocalDateTime.of(2026, 5, 5, 11, 0)));
+		journal.booked(appointment(11L, 1L, LocalDateTime.of(2026, 5, 4, 10, 0)));
+		journal.booked(appointment(12L, 3L, LocalDateTime.of(2026, 5, 6, 8, 0)));
+		journal.cancelled(appointment(11L, 1L, LocalDateTime.of(2026, 5, 4, 10, 0)));
+		journal.doctorDeleted(3L);
+		journal.close();
+
+		for (int restart = 0; restart < 3; restart++) {
+			BookingJournal reopened = open();
+			assertTrue(reopened.canWarmCaches());
+			List<String> events = new ArrayList<>();
+			reopened.replay(0, record -> events.add(describe(record)));
+			assertEquals(List.of("5:0@0/0", "6:10@2/11", "7:1@0/0"), events.subList(events.size() - 3, events.size()));
+			// Whatever precedes the baseline shares its first segment; older segments are gone
+			assertTrue(events.size() - 3 < 3, events.toString());
+			assertTrue(segmentFiles() <= 2);
+			reopened.close();
+		}
+	}
+
+	@Test
+	void anUncleanStopWritesANewBaseline() throws Exception {
+		BookingJournal journal = open();
+		journal.booked(appointment(10L, 1L, LocalDateTime.of(2026, 5, 4, 9, 0)));
+		journal.booked(appointment(11L, 1L, LocalDateTime.of(2026, 5, 4, 10, 0)));
+		journal.booked(appointment(12L, 1L, LocalDateTime.of(2026, 5, 4, 11, 0)));
+		journal.flush();
+		long endBeforeCrash = journal.endOffset();
+
+		// No close(): the SHUTDOWN record is missing, as after a crash
+		BookingJournal recovered = open();
+		assertEquals(endBeforeCrash, recovered.baselineOffset());
+		assertEquals(2, segmentFiles());
+		assertTrue(recovered.canWarmCaches());
+		List<Byte> types = new ArrayList<>();
+		recovered.replay(recovered.baselineOffset(), record -> types.add(record.type()));
+		assertEquals(List.of(BookingJournal.BASELINE_BEGIN, BookingJournal.BASELINE_END), types);
+	}
+
+	@Test
+	void aCleanRestartCarriesThePreviousBaselineThroughTheEvents() throws Exception {
+		// Unclean first start: the baseline comes from a table holding appointments 1 to 4 at 9:00 to 12:00
+		BookingJournal journal = open(new AppointmentSnapshotRepository(null) {
+			@Override
+			public void scan(int fetchSize, RowCallbackHandler handler) {
+				try {
+					for (long id = 1; id <= 4; id++) {
+						ResultSet row = mock(ResultSet.class);
+						when(row.getLong(1)).thenReturn(id == 3 ? 5L : 4L);
+						when(row.getLong(2)).thenReturn(7L);
+						when(row.getObject(3, LocalDateTime.class)).thenReturn(LocalDateTime.of(2026, 5, 4, 8 + (int) id, 0));
+						when(row.getLong(5)).thenReturn(id);
+						when(row.getObject(6)).thenReturn(30);
+						when(row.getInt(6)).thenReturn(30);
+						handler.processRow(row);
+					}
+				} catch (SQLException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}, true);
+		journal.rescheduled(appointment(1L, 4L, LocalDateTime.of(2026, 5, 4, 9, 0)), appointment(1L, 6L, LocalDateTime.of(2026, 5, 7, 15, 0)));
+		journal.cancelled(appointment(2L, 4L, LocalDateTime.of(2026, 5, 4, 10, 0)));
+		journal.doctorDeleted(5L);
+		journal.booked(appointment(20L, 4L, LocalDateTime.of(2026, 5, 8, 16, 0)));
+		journal.close();
+
+		BookingJournal reopened = open();
+		List<String> baseline = new ArrayList<>();
+		reopened.replay(reopened.baselineOffset(), record -> baseline.add(describe(record)));
+		// 4 is copied from the old baseline, 1 and 20 come from the events; 2 was cancelled, 3's doctor deleted
+		assertEquals(List.of("5:0@0/0", "6:4@4/12", "6:1@6/15", "6:20@4/16", "7:3@0/0"), baseline);
+	}
+
+	@Test
+	void withoutWarmCachesNoBaselineIsWrittenAndOldSegmentsGo() throws Exception {
+		BookingJournal journal = open();
+		for (long id = 1; id <= 7; id++) {
+			journal.booked(appointment(id, 1L, LocalDateTime.of(2026, 5, 4, 9, 0)));
+		}
+		journal.close();
+		assertTrue(segmentFiles() > 2);
+
+		BookingJournal reopened = open(emptyTable, false);
+		assertFalse(reopened.canWarmCaches());
+		assertEquals(1, segmentFiles());
+		assertFalse(Files.exists(dir.resolve("baseline")));
+		List<Byte> types = new ArrayList<>();
+		reopened.replay(0, record -> types.add(record.type()));
+		assertFalse(types.contains(BookingJournal.BASELINE_BEGIN), types.toString());
+
+		// Turning warm-caches on later rebuilds the baseline from the database
+		reopened.close();
+		BookingJournal warm = open();
+		assertTrue(warm.canWarmCaches());
+		assertEquals(BookingJournal.BASELINE_BEGIN, typeAt(warm, warm.baselineOffset()));
+	}
+
+	private static byte typeAt(BookingJournal journal, long offset) {
+		byte[] type = new byte[1];
+		journal.replay(offset, record -> {
+			if (record.offset() == offset) {
+				type[0] = record.type();
+			}
+		});
+		return type[0];
+	}
+
+	private static String describe(BookingJournal.JournalRecord record) {
+		return record.type() + ":" + record.appointmentId() + "@" + record.doctorId()
+				+ "/" + BookingJournal.timeOf(record.epochMinute()).getHour();
+	}
+
+	private long segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+		}
+	}
+
+	private BookingJournal open() throws Exception {
+		return open(emptyTable, true);
+	}
+
+	private BookingJournal open(AppointmentSnapshotRepository table, boolean warmCaches) throws Exception {
+		BookingJournal journal = new BookingJournal(table, true, warmCaches, dir.toString(),
+				3 * BookingJournal.RECORD_BYTES, 100);
+		journal.open();
+		return journal;
+	}
+
+	private static Appointment appointment(Long id, Long doctorId, LocalDateTime time) {
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+		Patient patient = new Patient();
+		patient.setId(7L);
+		Appointment appointment = new Appointment();
+		appointment.setId(id);
+		appointment.setDoctor(doctor);
+		appointment.setPatient(patient);
+		appointment.setAppointmentTime(time);
+		appointment.setDurationMinutes(30);
+		return appointment;
+	}
+}
@@ -0,0 +1,109 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.AppointmentSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentSnapshotTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+	@Test
+	void parallelGroupByMatchesAPlainScan() {
+		Random random = new Random(11);
+		int rows = 300_000;
+		long[] doctors = new long[rows];
+		LocalDateTime[] times = new LocalDateTime[rows];
+		int[] statuses = new int[rows];
+		AppointmentSnapshot.Columns.Builder builder = new AppointmentSnapshot.Columns.Builder();
+		for (int i = 0; i < rows; i++) {
+			doctors[i] = 100 + random.nextInt(40);
+			times[i] = START.plusDays(random.nextInt(365)).plusHours(8 + random.nextInt(10));
+			statuses[i] = random.nextInt(2);
+			builder.add(doctors[i], random.nextInt(5000), times[i], statuses[i]);
+		}
+		AppointmentSnapshot.Columns columns = builder.build(START);
+
+		LocalDateTime from = START.plusDays(30);
+		LocalDateTime to = START.plusDays(200);
+		long[] expected = new long[24];
+		for (int i = 0; i < rows; i++) {
+			if (statuses[i] == 1 && !times[i].isBefore(from) && times[i].isBefore(to)) {
+				expected[times[i].getHour()]++;
+			}
+		}
+		assertArrayEquals(expected, columns.count(AppointmentSnapshot.GroupBy.HOUR,
+				new AppointmentSnapshot.Filter().status(1).between(from, to)));
+
+		long mondaysOfDoctor = 0;
+		for (int i = 0; i < rows; i++) {
+			if (doctors[i] == 117 && times[i].getDayOfWeek() == DayOfWeek.MONDAY) {
+				mondaysOfDoctor++;
+			}
+		}
+		long[] byDoctor = columns.count(AppointmentSnapshot.GroupBy.DOCTOR,
+				new AppointmentSnapshot.Filter().doctorId(117L).weekday(DayOfWeek.MONDAY));
+		long total = 0;
+		for (int code = 0; code < byDoctor.length; code++) {
+			if (byDoctor[code] > 0) {
+				assertEquals(117L, columns.keyOf(AppointmentSnapshot.GroupBy.DOCTOR, code));
+			}
+			total += byDoctor[code];
+		}
+		assertEquals(mondaysOfDoctor, total);
+	}
+
+	@Test
+	void reportsWaitForTheFirstLoadWhichRunsOffTheCallersThread() throws Exception {
+		CountDownLatch tableScanned = new CountDownLatch(1);
+		List<String> scannedOn = new CopyOnWriteArrayList<>();
+		AppointmentSnapshot snapshot = new AppointmentSnapshot(new AppointmentSnapshotRepository(null) {
+			@Override
+			public void scan(int fetchSize, RowCallbackHandler handler) {
+				scannedOn.add(Thread.currentThread().getName());
+				try {
+					tableScanned.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, 1000, 0, 0);
+		try {
+			snapshot.startRefreshing();
+			// Answered at once while the load is under way, without queueing another
+			assertTrue(snapshot.report(AppointmentSnapshot.GroupBy.STATUS, new AppointmentSnapshot.Filter()).isEmpty());
+			assertTrue(snapshot.report(AppointmentSnapshot.GroupBy.HOUR, new AppointmentSnapshot.Filter()).isEmpty());
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (scannedOn.isEmpty()) {
+				assertTrue(System.currentTimeMillis() < deadline, "snapshot load not started");
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(List.of("appointment-snapshot"), scannedOn);
+
+			tableScanned.countDown();
+			Optional<Map<String, Object>> report;
+			while ((report = snapshot.report(AppointmentSnapshot.GroupBy.STATUS, new AppointmentSnapshot.Filter())).isEmpty()) {
+				assertTrue(System.currentTimeMillis() < deadline, "snapshot not loaded");
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(0, report.get().get("snapshotRows"));
+		} finally {
+			snapshot.shutdown();
+		}
+	}
+}
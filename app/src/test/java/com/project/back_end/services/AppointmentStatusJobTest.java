@@ -0,0 +1,71 @@
+package com.project.back_end.services;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "clinic.status-job.chunk-size=2")
+@ActiveProfiles("test")
+class AppointmentStatusJobTest {
+
+	@Autowired
+	private AppointmentStatusJob job;
+
+	@Autowired
+	private AppointmentBatchRepository appointmentBatchRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	@Test
+	void onlyAppointmentsThatHaveEndedAreCompletedAcrossChunks() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Job", "09:00"));
+		Patient patient = patientRepository.save(TestData.patient("Pat Job"));
+
+		LocalDateTime now = LocalDateTime.of(2030, 6, 1, 12, 0);
+		List<Appointment> rows = new ArrayList<>();
+		// Five ended, one in progress (started 11:30, one hour long), one in the future
+		for (int day = 1; day <= 5; day++) {
+			rows.add(TestData.appointment(doctor, patient, now.minusDays(day)));
+		}
+		rows.add(TestData.appointment(doctor, patient, now.minusMinutes(30)));
+		rows.add(TestData.appointment(doctor, patient, now.plusDays(1)));
+		appointmentBatchRepository.insertAll(rows);
+
+		assertEquals(5, job.completeEndedBefore(now));
+		assertEquals(0, job.completeEndedBefore(now));
+		assertEquals(1, job.completeEndedBefore(now.plusMinutes(30)));
+		long scheduled = appointmentRepository.findAll().stream()
+				.filter(a -> a.getStatus() == Appointment.STATUS_SCHEDULED).count();
+		assertEquals(1, scheduled);
+	}
+}
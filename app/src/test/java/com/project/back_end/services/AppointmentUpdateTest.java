@@ -0,0 +1,150 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentUpdateTest {
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	// Lets a test slip another save in between an update's read and its write
+	@MockitoSpyBean
+	private DoctorService doctorService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	private Patient patient;
+	private Appointment booked;
+	private LocalDateTime slot;
+
+	@BeforeEach
+	void seed() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Edit", "10:00", "11:00", "14:00"));
+		patient = patientRepository.save(TestData.patient("Pat Edit"));
+		slot = LocalDate.now().plusDays(2).atTime(10, 0);
+		booked = TestData.appointment(doctor, patient, slot);
+		assertEquals(1, appointmentService.bookAppointment(booked));
+	}
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	@Test
+	void staleEditsAreRefusedWithTheCurrentAppointment() {
+		assertEquals(HttpStatus.OK, update(edit(0L, slot.plusHours(1))).getStatusCode());
+
+		// Made against version 0, after the move above
+		ResponseEntity<Map<String, Object>> conflict = update(edit(0L, slot.plusHours(4)));
+		assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+		assertEquals(slot.plusHours(1), ((AppointmentDTO) conflict.getBody().get("current")).getAppointmentTime());
+		assertEquals(slot.plusHours(1), stored().getAppointmentTime());
+	}
+
+	@Test
+	void omittedFieldsAreKeptAndStatusIsNotEditable() {
+		Appointment edit = edit(null, slot.plusHours(1));
+		edit.setDoctor(null);
+		edit.setStatus(Appointment.STATUS_COMPLETED);
+		assertEquals(HttpStatus.OK, update(edit).getStatusCode());
+
+		Appointment stored = stored();
+		assertEquals(slot.plusHours(1), stored.getAppointmentTime());
+		assertEquals(booked.getDoctor().getId(), stored.getDoctor().getId());
+		assertEquals(Appointment.STATUS_SCHEDULED, stored.getStatus());
+		assertEquals(Appointment.DEFAULT_DURATION_MINUTES, stored.getDurationMinutes());
+	}
+
+	@Test
+	void aLostRaceOnAnotherFieldIsMerged() {
+		concurrently(current -> current.setDurationMinutes(30));
+
+		assertEquals(HttpStatus.OK, update(edit(0L, slot.plusHours(1))).getStatusCode());
+		Appointment stored = stored();
+		assertEquals(slot.plusHours(1), stored.getAppointmentTime());
+		assertEquals(30, stored.getDurationMinutes());
+		assertEquals(2L, stored.getVersion());
+	}
+
+	@Test
+	void aLostRaceOnTheSameFieldIsAConflict() {
+		concurrently(current -> current.setAppointmentTime(slot.plusHours(4)));
+
+		ResponseEntity<Map<String, Object>> conflict = update(edit(0L, slot.plusHours(1)));
+		assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+		assertEquals(slot.plusHours(4), ((AppointmentDTO) conflict.getBody().get("current")).getAppointmentTime());
+		assertEquals(slot.plusHours(4), stored().getAppointmentTime());
+	}
+
+	/**
+	 * Before the next update writes, another client's edit of the same appointment commits.
+	 */
+	private void concurrently(Consumer<Appointment> otherEdit) {
+		boolean[] done = {false};
+		doAnswer(invocation -> {
+			if (!done[0]) {
+				done[0] = true;
+				// Another thread, so the edit commits outside the update's transaction
+				CompletableFuture.runAsync(() -> {
+					Appointment current = stored();
+					otherEdit.accept(current);
+					appointmentRepository.save(current);
+				}).join();
+			}
+			return invocation.callRealMethod();
+		}).when(doctorService).isSlotBookable(any(), any());
+	}
+
+	private ResponseEntity<Map<String, Object>> update(Appointment edit) {
+		return appointmentService.updateAppointment(edit, patient.getId());
+	}
+
+	private Appointment edit(Long version, LocalDateTime time) {
+		Appointment edit = TestData.appointment(booked.getDoctor(), patient, time);
+		edit.setId(booked.getId());
+		edit.setVersion(version);
+		return edit;
+	}
+
+	private Appointment stored() {
+		return appointmentRepository.findById(booked.getId()).orElseThrow();
+	}
+}
@@ -0,0 +1,133 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.BatchBooking;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingConcurrencyTest {
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private DoctorScheduleIndex doctorScheduleIndex;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@AfterEach
+	void clean() {
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	@Test
+	void aStaleIndexDoesNotLetASecondBookingIn() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Stale", "10:00"));
+		Patient first = patientRepository.save(TestData.patient("Pat Stale One"));
+		Patient second = patientRepository.save(TestData.patient("Pat Stale Two"));
+		LocalDateTime slot = LocalDate.now().plusDays(3).atTime(10, 0);
+		assertFalse(doctorScheduleIndex.overlaps(doctor.getId(), slot, 60, null));
+
+		// Written by another instance: this one's index has not heard of it
+		appointmentRepository.save(TestData.appointment(doctor, first, slot));
+		assertFalse(doctorScheduleIndex.overlaps(doctor.getId(), slot, 60, null));
+
+		assertEquals(0, appointmentService.bookAppointment(TestData.appointment(doctor, second, slot)));
+		assertEquals(1, appointmentRepository.count());
+	}
+
+	@Test
+	void aBatchIsCheckedAgainstTheStoredSchedule() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Batch", "10:00", "11:00"));
+		Patient first = patientRepository.save(TestData.patient("Pat Batch One"));
+		Patient second = patientRepository.save(TestData.patient("Pat Batch Two"));
+		LocalDateTime slot = LocalDate.now().plusDays(3).atTime(10, 0);
+		assertFalse(doctorScheduleIndex.overlaps(doctor.getId(), slot, 60, null));
+		appointmentRepository.save(TestData.appointment(doctor, first, slot));
+
+		BatchBooking batch = new BatchBooking();
+		batch.setAppointments(List.of(TestData.appointment(doctor, second, slot.plusHours(1)),
+				TestData.appointment(doctor, second, slot)));
+		assertEquals(HttpStatus.CONFLICT, appointmentService.bookAppointments(batch).getStatusCode());
+		assertEquals(1, appointmentRepository.count());
+	}
+
+	@Test
+	void concurrentBookingsOfOneSlotHaveOneWinner() throws Exception {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Race", "10:00"));
+		LocalDateTime slot = LocalDate.now().plusDays(3).atTime(10, 0);
+		int threads = 6;
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			patients.add(patientRepository.save(TestData.patient("Pat Race " + i)));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> bookings = new ArrayList<>();
+		for (Patient patient : patients) {
+			bookings.add(pool.submit(() -> {
+				start.await();
+				return appointmentService.bookAppointment(TestData.appointment(doctor, patient, slot));
+			}));
+		}
+		start.countDown();
+		int booked = 0;
+		for (Future<Integer> booking : bookings) {
+			booked += booking.get() == 1 ? 1 : 0;
+		}
+		pool.shutdown();
+		assertEquals(1, booked);
+		assertEquals(1, appointmentRepository.count());
+	}
+
+	@Test
+	void theIndexHoldsABoundedNumberOfDays() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Bounded", "10:00"));
+		DoctorScheduleIndex index = new DoctorScheduleIndex(appointmentRepository, 2);
+		LocalDate today = LocalDate.now();
+		for (int day = -1; day <= 2; day++) {
+			index.overlaps(doctor.getId(), today.plusDays(day).atTime(10, 0), 60, null);
+		}
+		assertEquals(2, index.size());
+
+		index.evictAll();
+		index.overlaps(doctor.getId(), today.minusDays(1).atTime(10, 0), 60, null);
+		index.overlaps(doctor.getId(), today.atTime(10, 0), 60, null);
+		index.prune();
+		assertEquals(1, index.size());
+	}
+}
@@ -0,0 +1,102 @@
+package com.project.back_end.services;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Doctor;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two instances over one database polling in the background: one serves traffic only, with
+ * scheduling off, and the other is busy with a long @Scheduled job. Both must still see the
+ * other's writes within a few polls.
+ */
+class CacheSyncPollingTest {
+
+	private static final long POLL_MS = 100;
+	// Polling interval plus room for a slow poll on a loaded build machine
+	private static final long WITHIN_MS = 2000;
+
+	private static MongoServer mongo;
+	private static ConfigurableApplicationContext trafficOnly;
+	private static ConfigurableApplicationContext busy;
+	private static final CountDownLatch longJob = new CountDownLatch(1);
+
+	@BeforeAll
+	static void startInstances() {
+		TestData.disableDevtoolsRestart();
+		mongo = new MongoServer(new MemoryBackend());
+		InetSocketAddress mongoAddress = mongo.bind();
+		trafficOnly = instance(mongoAddress, "create-drop", false);
+		busy = instance(mongoAddress, "none", true);
+	}
+
+	@AfterAll
+	static void stopInstances() {
+		longJob.countDown();
+		busy.close();
+		trafficOnly.close();
+		mongo.shutdownNow();
+	}
+
+	@Test
+	void writesArriveWithinAPollWhateverTheSharedSchedulerIsDoing() throws Exception {
+		// Holds the one thread of the shared scheduler, as a long batch job would
+		ThreadPoolTaskScheduler scheduler = (ThreadPoolTaskScheduler) busy.getBean(TaskScheduler.class);
+		CountDownLatch running = new CountDownLatch(1);
+		scheduler.execute(() -> {
+			running.countDown();
+			try {
+				longJob.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		assertEquals(1, scheduler.getScheduledThreadPoolExecutor().getCorePoolSize());
+
+		Doctor fromTrafficOnly = TestData.doctor("Doctor Polled One", "10:00");
+		assertEquals(1, trafficOnly.getBean(DoctorService.class).saveDoctor(fromTrafficOnly));
+		awaitCatalogued(busy, fromTrafficOnly);
+
+		Doctor fromBusy = TestData.doctor("Doctor Polled Two", "11:00");
+		assertEquals(1, busy.getBean(DoctorService.class).saveDoctor(fromBusy));
+		awaitCatalogued(trafficOnly, fromBusy);
+	}
+
+	private static void awaitCatalogued(ConfigurableApplicationContext instance, Doctor doctor) throws InterruptedException {
+		DoctorFilterEngine catalogue = instance.getBean(DoctorFilterEngine.class);
+		long deadline = System.currentTimeMillis() + WITHIN_MS;
+		while (catalogue.find(doctor.getId()).isEmpty()) {
+			assertTrue(System.currentTimeMillis() < deadline, doctor.getName() + " not seen within " + WITHIN_MS + " ms");
+			Thread.sleep(10);
+		}
+	}
+
+	private static ConfigurableApplicationContext instance(InetSocketAddress mongoAddress, String ddlAuto, boolean scheduling) {
+		return new SpringApplicationBuilder(BackEndApplication.class)
+				.profiles("test")
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:cachepolling;MODE=MySQL;DB_CLOSE_DELAY=-1",
+						"--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+						"--spring.data.mongodb.uri=mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/prescriptions",
+						"--spring.main.banner-mode=off",
+						"--clinic.scheduling.enabled=" + scheduling,
+						"--clinic.cache-sync.poll-ms=" + POLL_MS);
+	}
+}
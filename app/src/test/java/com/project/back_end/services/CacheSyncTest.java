@@ -0,0 +1,86 @@
+package com.project.back_end.services;
+
+import com.project.back_end.BackEndApplication;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.PatientRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application contexts over one database stand in for two instances behind the load balancer.
+ * The test profile turns background polling off, so each poll below is the only one.
+ */
+class CacheSyncTest {
+
+	private static MongoServer mongo;
+	private static ConfigurableApplicationContext first;
+	private static ConfigurableApplicationContext second;
+
+	@BeforeAll
+	static void startInstances() {
+		TestData.disableDevtoolsRestart();
+		mongo = new MongoServer(new MemoryBackend());
+		InetSocketAddress mongoAddress = mongo.bind();
+		first = instance(mongoAddress, "create-drop");
+		second = instance(mongoAddress, "none");
+	}
+
+	@AfterAll
+	static void stopInstances() {
+		second.close();
+		first.close();
+		mongo.shutdownNow();
+	}
+
+	@Test
+	void writesOnOneInstanceReachTheOtherOnItsNextPoll() {
+		CacheSync sync = second.getBean(CacheSync.class);
+		DoctorFilterEngine catalogue = second.getBean(DoctorFilterEngine.class);
+		DoctorService doctors = second.getBean(DoctorService.class);
+
+		Doctor doctor = TestData.doctor("Doctor Sync", "10:00");
+		assertEquals(1, first.getBean(DoctorService.class).saveDoctor(doctor));
+		assertTrue(catalogue.find(doctor.getId()).isEmpty());
+		assertEquals(1, sync.poll());
+		assertTrue(catalogue.find(doctor.getId()).isPresent());
+
+		LocalDate day = LocalDate.now().plusDays(2);
+		assertTrue(doctors.getDoctorAvailability(doctor.getId(), day).contains("10:00"));
+		Patient patient = first.getBean(PatientRepository.class).save(TestData.patient("Pat Sync"));
+		Appointment appointment = TestData.appointment(doctor, patient, day.atTime(10, 0));
+		assertEquals(1, first.getBean(AppointmentService.class).bookAppointment(appointment));
+		assertEquals(1, sync.poll());
+		assertFalse(doctors.getDoctorAvailability(doctor.getId(), day).contains("10:00"));
+
+		// An instance skips the changes it published itself
+		assertEquals(0, first.getBean(CacheSync.class).poll());
+		assertEquals(0, sync.poll());
+	}
+
+	private static ConfigurableApplicationContext instance(InetSocketAddress mongoAddress, String ddlAuto) {
+		// Arguments, not builder properties: those are defaults, and the test profile would override them
+		return new SpringApplicationBuilder(BackEndApplication.class)
+				.profiles("test")
+				.run(
+						"--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:cachesync;MODE=MySQL;DB_CLOSE_DELAY=-1",
+						"--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+						"--spring.data.mongodb.uri=mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/prescriptions",
+						"--spring.main.banner-mode=off");
+	}
+}
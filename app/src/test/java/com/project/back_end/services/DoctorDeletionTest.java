@@ -0,0 +1,271 @@
+package com.project.back_end.services;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.models.DoctorDeletionJob.Status;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorDeletionJobRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest(properties = "clinic.doctor-deletion.chunk-size=2")
+@ActiveProfiles("test")
+class DoctorDeletionTest {
+
+	private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+
+	@DynamicPropertySource
+	static void mongo(DynamicPropertyRegistry registry) {
+		InetSocketAddress address = MONGO.bind();
+		registry.add("spring.data.mongodb.uri",
+				() -> "mongodb://" + address.getHostString() + ":" + address.getPort() + "/prescriptions");
+	}
+
+	@AfterAll
+	static void stopMongo() {
+		MONGO.shutdownNow();
+	}
+
+	@Autowired
+	private DoctorDeletionService doctorDeletionService;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private DoctorDeletionJobRepository jobRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	// Lets a test slip a write in between the worker's chunked pass and its last step
+	@MockitoSpyBean
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	private Doctor doctor;
+	private Patient patient;
+	private LocalDate day;
+
+	@BeforeEach
+	void seed() {
+		doctor = doctorRepository.save(TestData.doctor("Doctor Leaving", "10:00"));
+		patient = patientRepository.save(TestData.patient("Pat Leaving"));
+		day = LocalDate.now().plusDays(3);
+	}
+
+	@AfterEach
+	void clean() {
+		jobRepository.deleteAll();
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+		mongoTemplate.remove(new Query(), Prescription.class).block();
+	}
+
+	@Test
+	void progressIsRecordedChunkByChunkAndPrescriptionsGoWithTheirAppointments() {
+		List<Long> ids = book(5);
+
+		DoctorDeletionJob job = awaitFinished(doctorDeletionService.start(doctor.getId()).get().getJobId());
+
+		assertEquals(Status.COMPLETED, job.getStatus());
+		assertEquals(5, job.getTotalAppointments());
+		assertEquals(5, job.getAppointmentsDeleted());
+		assertEquals(5, job.getPrescriptionsDeleted());
+		assertEquals(100, job.getPercentComplete());
+		assertEquals(ids.get(4), job.getLastAppointmentId());
+		assertGone();
+	}
+
+	@Test
+	void anInterruptedJobResumesFromItsCursor() {
+		List<Long> ids = book(4);
+		// As left by an instance that died after the first chunk of two, its lease since expired
+		String jobId = jobRepository.save(new DoctorDeletionJob(UUID.randomUUID().toString(), doctor.getId())).getJobId();
+		String deadOwner = UUID.randomUUID().toString();
+		assertEquals(1, jobRepository.claim(jobId, deadOwner, DoctorDeletionJob.ACTIVE, LocalDateTime.now(), LocalDateTime.now().plusMinutes(1)));
+		jobRepository.started(jobId, 4);
+		mongoTemplate.remove(Query.query(Criteria.where("appointmentId").in(ids.subList(0, 2))), Prescription.class).block();
+		appointmentRepository.deleteAllById(ids.subList(0, 2));
+		jobRepository.chunkDeleted(jobId, deadOwner, 2, 2, ids.get(1), LocalDateTime.now().minusSeconds(1));
+		assertEquals(50, jobRepository.findById(jobId).get().getPercentComplete());
+		assertEquals(0, appointmentService.bookAppointment(TestData.appointment(doctor, patient, day.plusDays(10).atTime(10, 0))));
+
+		doctorDeletionService.resumeUnfinished();
+		DoctorDeletionJob job = awaitFinished(jobId);
+
+		assertEquals(Status.COMPLETED, job.getStatus());
+		assertEquals(4, job.getTotalAppointments());
+		assertEquals(4, job.getAppointmentsDeleted());
+		assertEquals(4, job.getPrescriptionsDeleted());
+		assertGone();
+	}
+
+	@Test
+	void aJobLeasedByALiveInstanceIsLeftToItUntilTheLeaseRunsOut() throws Exception {
+		book(2);
+		String jobId = jobRepository.save(new DoctorDeletionJob(UUID.randomUUID().toString(), doctor.getId())).getJobId();
+		LocalDateTime leaseUntil = LocalDateTime.now().plusSeconds(1);
+		assertEquals(1, jobRepository.claim(jobId, UUID.randomUUID().toString(), DoctorDeletionJob.ACTIVE, LocalDateTime.now(), leaseUntil));
+
+		doctorDeletionService.resumeUnfinished();
+		Thread.sleep(300);
+		assertEquals(Status.PENDING, jobRepository.findById(jobId).get().getStatus());
+		assertTrue(doctorRepository.existsById(doctor.getId()));
+		assertEquals(2, appointmentRepository.countByDoctorId(doctor.getId()));
+
+		while (!LocalDateTime.now().isAfter(leaseUntil)) {
+			Thread.sleep(50);
+		}
+		doctorDeletionService.resumeUnfinished();
+		DoctorDeletionJob job = awaitFinished(jobId);
+		assertEquals(Status.COMPLETED, job.getStatus());
+		assertEquals(2, job.getAppointmentsDeleted());
+		assertGone();
+	}
+
+	@Test
+	void concurrentRequestsToDeleteADoctorShareOneJob() throws Exception {
+		book(2);
+		List<CompletableFuture<Optional<DoctorDeletionJob>>> requests = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			requests.add(CompletableFuture.supplyAsync(() -> doctorDeletionService.start(doctor.getId())));
+		}
+		// A request that comes in after the job has finished finds no doctor
+		Set<String> jobIds = new HashSet<>();
+		for (CompletableFuture<Optional<DoctorDeletionJob>> request : requests) {
+			request.get().ifPresent(job -> jobIds.add(job.getJobId()));
+		}
+		assertEquals(1, jobIds.size());
+
+		assertEquals(Status.COMPLETED, awaitFinished(jobIds.iterator().next()).getStatus());
+		assertEquals(1, jobRepository.count());
+		assertGone();
+	}
+
+	@Test
+	void bookingsRacingTheDeletionAreRefusedOrDeletedWithTheDoctor() throws Exception {
+		book(3);
+		List<CompletableFuture<Integer>> racing = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			LocalDateTime slot = day.plusDays(10 + i).atTime(10, 0);
+			racing.add(CompletableFuture.supplyAsync(() -> appointmentService.bookAppointment(TestData.appointment(doctor, patient, slot))));
+		}
+		String jobId = doctorDeletionService.start(doctor.getId()).get().getJobId();
+		// Once the job is recorded no booking gets in, on this instance or another
+		assertEquals(0, appointmentService.bookAppointment(TestData.appointment(doctor, patient, day.plusDays(30).atTime(10, 0))));
+		assertEquals(jobId, doctorDeletionService.start(doctor.getId()).get().getJobId());
+
+		int booked = 0;
+		for (CompletableFuture<Integer> booking : racing) {
+			int result = booking.get();
+			assertTrue(result == 0 || result == 1);
+			booked += result;
+		}
+		DoctorDeletionJob job = awaitFinished(jobId);
+		assertEquals(Status.COMPLETED, job.getStatus());
+		assertEquals(3 + booked, job.getAppointmentsDeleted());
+		assertGone();
+	}
+
+	@Test
+	void appointmentsWrittenAfterTheChunkedPassLoseTheirPrescriptionsToo() {
+		book(2);
+		Appointment[] late = new Appointment[1];
+		doAnswer(invocation -> {
+			if ("doctor-deletion".equals(Thread.currentThread().getName()) && late[0] == null) {
+				// Committed by another thread just before the last step locks the doctor
+				CompletableFuture.runAsync(() -> {
+					late[0] = appointmentRepository.save(TestData.appointment(doctor, patient, day.plusDays(20).atTime(10, 0)));
+					mongoTemplate.insert(new Prescription("Pat Leaving", late[0].getId(), "Aspirin", "1 daily")).block();
+				}).join();
+			}
+			// The repository is an interface proxy: its default answer delegates to the proxy
+			return mockingDetails(doctorRepository).getMockCreationSettings().getDefaultAnswer().answer(invocation);
+		}).when(doctorRepository).lockById(any());
+
+		DoctorDeletionJob job = awaitFinished(doctorDeletionService.start(doctor.getId()).get().getJobId());
+
+		assertEquals(Status.COMPLETED, job.getStatus());
+		assertEquals(3, job.getAppointmentsDeleted());
+		assertEquals(3, job.getPrescriptionsDeleted());
+		assertGone();
+	}
+
+	/**
+	 * Books appointments with a prescription each, on consecutive days.
+	 */
+	private List<Long> book(int count) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Appointment appointment = TestData.appointment(doctor, patient, day.plusDays(i).atTime(10, 0));
+			assertEquals(1, appointmentService.bookAppointment(appointment));
+			mongoTemplate.insert(new Prescription("Pat Leaving", appointment.getId(), "Aspirin", "1 daily")).block();
+			ids.add(appointment.getId());
+		}
+		return ids;
+	}
+
+	private DoctorDeletionJob awaitFinished(String jobId) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		DoctorDeletionJob job;
+		while (!(job = jobRepository.findById(jobId).get()).isFinished()) {
+			assertTrue(System.currentTimeMillis() < deadline, "deletion still " + job.getStatus());
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return job;
+	}
+
+	private void assertGone() {
+		assertFalse(doctorRepository.existsById(doctor.getId()));
+		assertEquals(0, appointmentRepository.countByDoctorId(doctor.getId()));
+		assertEquals(0L, mongoTemplate.count(new Query(), Prescription.class).block());
+	}
+}
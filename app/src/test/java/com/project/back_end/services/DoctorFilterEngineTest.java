@@ -0,0 +1,100 @@
+package com.project.back_end.services;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoctorFilterEngineTest {
+
+	private final DoctorFilterEngine engine = new DoctorFilterEngine();
+
+	@Test
+	void namesMatchOnAnySubstringIgnoringCase() {
+		engine.load(List.of(
+				doctor(1L, "Alice Smith", "Cardiology", "09:00"),
+				doctor(2L, "Bob Smithers", "Dermatology", "14:00"),
+				doctor(3L, "Al Jones", "Cardiology", "10:00")));
+
+		assertEquals(List.of(1L, 2L), ids(engine.filter("SMITH", null, null)));
+		assertEquals(List.of(1L), ids(engine.filter(" ice sm ", null, null)));
+		// Shorter than a trigram: every doctor is a candidate and the substring decides
+		assertEquals(List.of(1L, 3L), ids(engine.filter("al", null, null)));
+		// Every trigram of "smithe" is indexed for doctor 1 except "the"
+		assertEquals(List.of(2L), ids(engine.filter("smithe", null, null)));
+		assertEquals(List.of(), ids(engine.filter("smyth", null, null)));
+		assertEquals(List.of(1L, 2L, 3L), ids(engine.filter("null", " ", null)));
+	}
+
+	@Test
+	void specialtyAndHalfOfTheDayCombineWithTheName() {
+		engine.load(List.of(
+				doctor(1L, "Alice Smith", "Cardiology", "09:00"),
+				doctor(2L, "Bob Smithers", "Cardiology", "09:00", "15:00"),
+				doctor(3L, "Carol Smith", "Dermatology", "14:00"),
+				doctor(4L, "Dan Brown", "Cardiology", "16:00")));
+
+		assertEquals(List.of(1L, 2L), ids(engine.filter(null, "cardiology", "AM")));
+		assertEquals(List.of(2L, 4L), ids(engine.filter(null, "Cardiology", "pm")));
+		assertEquals(List.of(2L), ids(engine.filter("smith", "CARDIOLOGY", "PM")));
+		assertEquals(List.of(3L), ids(engine.filter("smith", "Dermatology", "PM")));
+		assertEquals(List.of(), ids(engine.filter("smith", "Dermatology", "AM")));
+		assertEquals(List.of(), ids(engine.filter(null, "Neurology", null)));
+	}
+
+	@Test
+	void removedSlotsAreReusedAndTheIndexesShrink() {
+		List<Doctor> doctors = new ArrayList<>();
+		for (long id = 1; id <= 1000; id++) {
+			doctors.add(doctor(id, "Doctor " + id, id % 2 == 0 ? "Cardiology" : "Dermatology", id % 3 == 0 ? "15:00" : "09:00"));
+		}
+		engine.load(doctors);
+		int loadedCapacity = engine.bitmapCapacity();
+
+		for (long id = 1; id <= 995; id++) {
+			engine.remove(id);
+		}
+		assertEquals(5, engine.size());
+		assertEquals(5, engine.slots());
+		assertTrue(engine.bitmapCapacity() < loadedCapacity / 8, "bitmaps keep " + engine.bitmapCapacity() + " bits");
+
+		// The doctors moved into the freed slots are still found by every index
+		assertEquals(List.of(996L, 998L, 1000L), sorted(ids(engine.filter(null, "Cardiology", null))));
+		assertEquals(List.of(996L, 998L), sorted(ids(engine.filter("doctor 99", "Cardiology", null))));
+		assertEquals(List.of(996L, 999L), sorted(ids(engine.filter(null, null, "PM"))));
+		assertEquals(List.of(997L), ids(engine.filter("997", "dermatology", "AM")));
+
+		engine.put(doctor(2000L, "Doctor New", "Neurology", "10:00"));
+		engine.put(doctor(997L, "Renamed", "Dermatology", "16:00"));
+		assertEquals(6, engine.slots());
+		assertEquals(List.of(), ids(engine.filter("997", null, null)));
+		assertEquals(List.of(997L), ids(engine.filter("renamed", "Dermatology", "PM")));
+		assertEquals(List.of(2000L), ids(engine.filter("new", "neurology", "am")));
+		assertEquals("Renamed", engine.find(997L).get().getName());
+	}
+
+	private static Doctor doctor(Long id, String name, String specialty, String... times) {
+		Doctor doctor = TestData.doctor(name, times);
+		doctor.setId(id);
+		doctor.setSpecialty(specialty);
+		return doctor;
+	}
+
+	private static List<Long> ids(List<Doctor> doctors) {
+		List<Long> ids = new ArrayList<>();
+		for (Doctor doctor : doctors) {
+			ids.add(doctor.getId());
+		}
+		return ids;
+	}
+
+	private static List<Long> sorted(List<Long> ids) {
+		ids.sort(null);
+		return ids;
+	}
+}
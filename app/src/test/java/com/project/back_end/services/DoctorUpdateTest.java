@@ -0,0 +1,76 @@
+package com.project.back_end.services;
+
+import com.project.back_end.TestData;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DoctorUpdateTest {
+
+	@Autowired
+	private DoctorService doctorService;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@AfterEach
+	void clean() {
+		doctorRepository.deleteAll();
+	}
+
+	@Test
+	void staleEditsAreRefusedWithTheCurrentDoctor() {
+		Doctor doctor = doctor();
+		assertEquals(1, doctorService.saveDoctor(doctor));
+		Long id = doctor.getId();
+
+		Doctor renamed = doctor();
+		renamed.setId(id);
+		renamed.setVersion(0L);
+		renamed.setName("Doctor Renamed");
+		ResponseEntity<Map<String, Object>> first = doctorService.updateDoctor(renamed);
+		assertEquals(HttpStatus.OK, first.getStatusCode());
+		assertEquals(1L, first.getBody().get("version"));
+
+		// Made against version 0, after the rename above
+		Doctor stale = doctor();
+		stale.setId(id);
+		stale.setVersion(0L);
+		stale.setSpecialty("Neurology");
+		ResponseEntity<Map<String, Object>> conflict = doctorService.updateDoctor(stale);
+		assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+		assertEquals("Doctor Renamed", ((Doctor) conflict.getBody().get("current")).getName());
+		assertEquals("Cardiology", doctorRepository.findById(id).get().getSpecialty());
+
+		// No version and no password: applied on top of the current state, password kept
+		Doctor phoneOnly = doctor();
+		phoneOnly.setId(id);
+		phoneOnly.setName("Doctor Renamed");
+		phoneOnly.setPassword(null);
+		phoneOnly.setPhone("5559998888");
+		assertEquals(HttpStatus.OK, doctorService.updateDoctor(phoneOnly).getStatusCode());
+		Doctor stored = doctorRepository.findById(id).get();
+		assertEquals("5559998888", stored.getPhone());
+		assertEquals(TestData.PASSWORD, stored.getPassword());
+		assertEquals(2L, stored.getVersion());
+	}
+
+	private static Doctor doctor() {
+		Doctor doctor = TestData.doctor("Doctor Version", "09:00");
+		// Rebuilt for every edit below; a fixed number keeps the phone out of the edits
+		doctor.setPhone("5550005555");
+		return doctor;
+	}
+}
@@ -0,0 +1,65 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+	@Test
+	void mixedDurationsDoNotConflictWhenAdjacent() {
+		IntervalTree tree = new IntervalTree();
+		tree.insert(540, 555, 1);   // 09:00-09:15
+		tree.insert(555, 585, 2);   // 09:15-09:45
+		tree.insert(600, 660, 3);   // 10:00-11:00
+
+		assertFalse(tree.overlaps(585, 600, null));
+		assertTrue(tree.overlaps(570, 600, null));
+		assertTrue(tree.overlaps(630, 645, null));
+		assertFalse(tree.overlaps(660, 720, null));
+	}
+
+	@Test
+	void ignoredIdAndRemovalAreRespected() {
+		IntervalTree tree = new IntervalTree();
+		tree.insert(600, 660, 7);
+
+		assertFalse(tree.overlaps(600, 630, 7L));
+		assertTrue(tree.remove(600, 7));
+		assertFalse(tree.remove(600, 7));
+		assertEquals(0, tree.size());
+		assertFalse(tree.overlaps(600, 630, null));
+	}
+
+	@Test
+	void matchesBruteForceUnderRandomChurn() {
+		Random random = new Random(42);
+		IntervalTree tree = new IntervalTree();
+		List<long[]> live = new ArrayList<>();
+		for (int id = 0; id < 2000; id++) {
+			if (!live.isEmpty() && random.nextInt(3) == 0) {
+				long[] gone = live.remove(random.nextInt(live.size()));
+				assertTrue(tree.remove(gone[0], gone[2]));
+			} else {
+				long start = random.nextInt(1440);
+				long[] added = {start, start + 15 + random.nextInt(60), id};
+				tree.insert(added[0], added[1], added[2]);
+				live.add(added);
+			}
+			long probe = random.nextInt(1440);
+			long probeEnd = probe + 1 + random.nextInt(60);
+			boolean expected = false;
+			for (long[] interval : live) {
+				expected |= interval[0] < probeEnd && interval[1] > probe;
+			}
+			assertEquals(expected, tree.overlaps(probe, probeEnd, null));
+		}
+		assertEquals(live.size(), tree.size());
+	}
+}
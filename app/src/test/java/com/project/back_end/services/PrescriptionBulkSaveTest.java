@@ -0,0 +1,102 @@
+package com.project.back_end.services;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.ReactivePrescriptionRepository;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrescriptionBulkSaveTest {
+
+	private MongoServer mongo;
+	private MongoClient client;
+	private ReactiveMongoTemplate mongoTemplate;
+	private PrescriptionService prescriptionService;
+
+	@BeforeEach
+	void start() {
+		mongo = new MongoServer(new MemoryBackend());
+		InetSocketAddress address = mongo.bind();
+		client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+		mongoTemplate = new ReactiveMongoTemplate(client, "prescriptions");
+		// Index creation is off in tests; the unique index is what rejects the racing insert
+		mongoTemplate.indexOps(Prescription.class)
+				.ensureIndex(new Index("appointmentId", Sort.Direction.ASC).unique()).block();
+
+		// The pre-check sees nothing, as when another request stores the same appointment just after it
+		ReactivePrescriptionRepository repository = mock(ReactivePrescriptionRepository.class);
+		when(repository.findByAppointmentIdIn(any())).thenReturn(Flux.empty());
+		when(repository.existsByAppointmentId(any())).thenReturn(Mono.just(false));
+		when(repository.save(any())).thenAnswer(invocation -> mongoTemplate.insert((Prescription) invocation.getArgument(0)));
+		prescriptionService = new PrescriptionService(repository, mongoTemplate,
+				Validation.buildDefaultValidatorFactory().getValidator(), new PrescriptionSearchCache(10, 60),
+				mock(CacheChangeLog.class), 5000);
+	}
+
+	@AfterEach
+	void stop() {
+		client.close();
+		mongo.shutdownNow();
+	}
+
+	@Test
+	void aDuplicateRejectedByTheIndexIsReportedPerItem() {
+		mongoTemplate.insert(prescription(2L)).block();
+
+		ResponseEntity<Map<String, Object>> response = prescriptionService
+				.savePrescriptions(List.of(prescription(1L), prescription(2L), prescription(3L))).block();
+
+		assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+		assertEquals(List.of("saved", "duplicate", "saved"), statusesOf(response.getBody()));
+		assertEquals(2L, response.getBody().get("saved"));
+		assertEquals(3L, mongoTemplate.count(new Query(), Prescription.class).block());
+	}
+
+	@Test
+	void aSingleSaveLosingTheRaceIsRefusedLikeAKnownDuplicate() {
+		mongoTemplate.insert(prescription(2L)).block();
+
+		ResponseEntity<Map<String, String>> response = prescriptionService.savePrescription(prescription(2L)).block();
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals("Prescription already exists for this appointment", response.getBody().get("message"));
+		assertEquals(HttpStatus.CREATED, prescriptionService.savePrescription(prescription(3L)).block().getStatusCode());
+		assertEquals(2L, mongoTemplate.count(new Query(), Prescription.class).block());
+	}
+
+	private static Prescription prescription(Long appointmentId) {
+		return new Prescription("Pat Bulk", appointmentId, "Amoxicillin", "500mg");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> statusesOf(Map<String, Object> body) {
+		List<String> statuses = new ArrayList<>();
+		for (Map<String, Object> result : (List<Map<String, Object>>) body.get("results")) {
+			statuses.add((String) result.get("status"));
+		}
+		return statuses;
+	}
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrescriptionSearchCacheTest {
+
+	private static final Map<String, Object> RESULT = Map.of("hasNext", false);
+
+	@Test
+	void leastRecentlyUsedSearchIsDroppedFirst() {
+		PrescriptionSearchCache cache = new PrescriptionSearchCache(2, 60);
+		cache.put("a", RESULT, cache.generation());
+		cache.put("b", RESULT, cache.generation());
+		cache.get("a");
+		cache.put("c", RESULT, cache.generation());
+
+		assertEquals(RESULT, cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(RESULT, cache.get("c"));
+	}
+
+	@Test
+	void resultsOfSearchesStartedBeforeAWriteAreNotStored() {
+		PrescriptionSearchCache cache = new PrescriptionSearchCache(10, 60);
+		cache.put("a", RESULT, cache.generation());
+		long started = cache.generation();
+		cache.invalidateAll();
+		cache.put("b", RESULT, started);
+
+		assertNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(0, cache.size());
+	}
+}
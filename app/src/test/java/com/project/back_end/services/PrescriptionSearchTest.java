@@ -0,0 +1,101 @@
+package com.project.back_end.services;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.project.back_end.models.Prescription;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrescriptionSearchTest {
+
+	private static final LocalDateTime MONDAY = LocalDate.of(2026, 3, 2).atTime(9, 0);
+
+	private static MongoServer mongo;
+	private static MongoClient client;
+	private static PrescriptionService prescriptionService;
+
+	@BeforeAll
+	static void seed() {
+		mongo = new MongoServer(new MemoryBackend());
+		InetSocketAddress address = mongo.bind();
+		client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+		ReactiveMongoTemplate mongoTemplate = new ReactiveMongoTemplate(client, "prescriptions");
+		prescriptionService = new PrescriptionService(null, mongoTemplate, null, new PrescriptionSearchCache(10, 60), null, 5000);
+		String[] medications = {"Amoxicillin", "amlodipine", " AMOXIL ", "Ibuprofen", "Am"};
+		for (int i = 0; i < medications.length; i++) {
+			Prescription prescription = new Prescription("Pat Search", (long) i + 1, medications[i], "1 daily");
+			prescription.setIssuedAt(MONDAY.plusDays(i));
+			mongoTemplate.insert(prescription).block();
+		}
+	}
+
+	@AfterAll
+	static void stop() {
+		client.close();
+		mongo.shutdownNow();
+	}
+
+	@Test
+	void prefixesOfAnyLengthFindTheirMedicationsNewestFirst() {
+		assertEquals(List.of(5L, 3L, 2L, 1L), appointmentsOf(search("a", null)));
+		assertEquals(List.of(5L, 3L, 2L, 1L), appointmentsOf(search("AM", null)));
+		assertEquals(List.of(3L, 1L), appointmentsOf(search("amo", null)));
+		assertEquals(List.of(3L, 1L), appointmentsOf(search(" amox", null)));
+		assertEquals(List.of(1L), appointmentsOf(search("amoxic", null)));
+		assertEquals(List.of(), appointmentsOf(search("amoxy", null)));
+		assertEquals(List.of(5L, 3L, 2L), appointmentsOf(search("am", MONDAY.toLocalDate().plusDays(1))));
+	}
+
+	@Test
+	void everySearchWithoutTextIsReadInTheOrderOfAnIndex() {
+		List<String> indexes = new ArrayList<>();
+		for (CompoundIndex index : Prescription.class.getAnnotationsByType(CompoundIndex.class)) {
+			indexes.add(index.def().replace(" ", ""));
+		}
+		LocalDate day = MONDAY.toLocalDate();
+		// Equality fields, then the sort, then the fields filtered on the index's entries
+		assertServedBy(PrescriptionService.searchQuery("amo", null, null, null), indexes, "{'medicationPrefixes':1,'issuedAt':-1,'_id':-1");
+		assertServedBy(PrescriptionService.searchQuery("amoxi", null, day, null), indexes, "{'medicationPrefixes':1,'issuedAt':-1,'_id':-1,'medicationKey':1}");
+		assertServedBy(PrescriptionService.searchQuery(null, null, day, day), indexes, "{'issuedAt':-1,'_id':-1}");
+	}
+
+	private static void assertServedBy(Query query, List<String> indexes, String index) {
+		assertTrue(indexes.stream().anyMatch(def -> def.startsWith(index)), indexes.toString());
+		Document sort = query.getSortObject();
+		assertEquals(new Document("issuedAt", -1).append("_id", -1), sort);
+		Document filter = query.getQueryObject();
+		if (index.startsWith("{'medicationPrefixes'")) {
+			assertTrue(filter.get("medicationPrefixes") instanceof String, filter::toString);
+		}
+	}
+
+	private static Map<String, Object> search(String medication, LocalDate from) {
+		return prescriptionService.searchPrescriptions(medication, null, from, null, 0, 20).block().getBody();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Long> appointmentsOf(Map<String, Object> result) {
+		List<Long> ids = new ArrayList<>();
+		for (Prescription prescription : (List<Prescription>) result.get("prescriptions")) {
+			ids.add(prescription.getAppointmentId());
+		}
+		return ids;
+	}
+}
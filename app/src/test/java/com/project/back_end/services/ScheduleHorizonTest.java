@@ -0,0 +1,95 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleHorizonTest {
+
+	private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+	// No stored bookings, and no other booking overlaps anything that is removed
+	private final AppointmentSnapshotRepository emptyTable = new AppointmentSnapshotRepository(null) {
+		@Override
+		public void scanSchedule(LocalDateTime from, LocalDateTime until, Long doctorId, int fetchSize,
+								 RowCallbackHandler handler) {
+		}
+	};
+	private final DoctorScheduleIndex noOverlaps = new DoctorScheduleIndex(null, 1) {
+		@Override
+		public boolean overlaps(Long doctorId, LocalDateTime start, int minutes, Long ignoreAppointmentId) {
+			return false;
+		}
+	};
+
+	@Test
+	void answersForTickAlignedDoctorsInsideTheWindow() {
+		ScheduleHorizon horizon = new ScheduleHorizon(emptyTable, noOverlaps, new SlotGrid(), true, 30, 15, 10, 100);
+		horizon.rebuild(List.of(doctor(1L, 30), doctor(2L, 20)));
+
+		Appointment visit = appointment(1L, TOMORROW.atTime(10, 0), 45);
+		horizon.add(visit);
+		assertEquals(0, horizon.isFree(1L, TOMORROW.atTime(10, 30), 30));
+		assertEquals(1, horizon.isFree(1L, TOMORROW.atTime(11, 0), 30));
+		assertEquals(1, horizon.isFree(1L, TOMORROW.atTime(9, 30), 30));
+		// Not tracked, outside the window, or not on the tick
+		assertEquals(-1, horizon.isFree(2L, TOMORROW.atTime(10, 0), 20));
+		assertEquals(-1, horizon.isFree(1L, TOMORROW.plusDays(40).atTime(10, 0), 30));
+		assertEquals(-1, horizon.isFree(1L, TOMORROW.atTime(10, 5), 30));
+
+		horizon.remove(visit);
+		assertEquals(1, horizon.isFree(1L, TOMORROW.atTime(10, 0), 60));
+	}
+
+	@Test
+	void evictedRowsAreReusedWithoutLeakingBookings() {
+		ScheduleHorizon horizon = new ScheduleHorizon(emptyTable, noOverlaps, new SlotGrid(), true, 30, 15, 10, 100);
+		List<Doctor> doctors = new ArrayList<>();
+		for (long id = 1; id <= 10; id++) {
+			doctors.add(doctor(id, 30));
+		}
+		horizon.rebuild(doctors);
+		horizon.add(appointment(3L, TOMORROW.atTime(9, 0), 30));
+
+		// Far more evictions than the id table has slots
+		for (long id = 11; id <= 200; id++) {
+			horizon.evictDoctor(id - 8);
+			horizon.track(doctor(id, 30));
+			assertTrue(horizon.tracks(id));
+			assertFalse(horizon.tracks(id - 8));
+			assertEquals(1, horizon.isFree(id, TOMORROW.atTime(9, 0), 30));
+		}
+		assertEquals(1, horizon.isFree(1L, TOMORROW.atTime(9, 0), 30));
+	}
+
+	private static Doctor doctor(Long id, int slotMinutes) {
+		Doctor doctor = new Doctor();
+		doctor.setId(id);
+		doctor.setSlotMinutes(slotMinutes);
+		doctor.setWorkdayStart(LocalTime.of(9, 0));
+		return doctor;
+	}
+
+	private static Appointment appointment(Long doctorId, LocalDateTime time, int minutes) {
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+		Appointment appointment = new Appointment();
+		appointment.setId(doctorId * 100);
+		appointment.setDoctor(doctor);
+		appointment.setAppointmentTime(time);
+		appointment.setDurationMinutes(minutes);
+		return appointment;
+	}
+}
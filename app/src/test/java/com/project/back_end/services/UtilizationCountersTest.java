@@ -0,0 +1,50 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class UtilizationCountersTest {
+
+	@Test
+	void rangeTotalsSurviveUpdatesOnBothSidesOfTheWindow() {
+		UtilizationCounters.DayCounters counters = new UtilizationCounters.DayCounters();
+		long today = LocalDate.of(2026, 3, 2).toEpochDay();
+		counters.add(today, 1, 30);
+		counters.add(today + 2000, 1, 60);
+		counters.add(today - 2000, 2, 90);
+		counters.add(today, -1, -30);
+
+		assertArrayEquals(new long[] {0, 0}, counters.sum(today - 1, today + 1));
+		assertArrayEquals(new long[] {3, 150}, counters.sum(today - 5000, today + 5000));
+		assertArrayEquals(new long[] {2, 90}, counters.sum(today - 2000, today - 2000));
+	}
+
+	@Test
+	void rangeTotalsMatchAPlainScan() {
+		UtilizationCounters.DayCounters counters = new UtilizationCounters.DayCounters();
+		long[] appointments = new long[4000];
+		long[] minutes = new long[4000];
+		Random random = new Random(7);
+		for (int i = 0; i < 5000; i++) {
+			int day = 2000 + (random.nextBoolean() ? 1 : -1) * random.nextInt(1500);
+			long length = 15 * (1 + random.nextInt(4));
+			counters.add(day, 1, length);
+			appointments[day]++;
+			minutes[day] += length;
+		}
+		for (int i = 0; i < 200; i++) {
+			int first = random.nextInt(4000);
+			int last = first + random.nextInt(4000 - first);
+			long[] expected = new long[2];
+			for (int day = first; day <= last; day++) {
+				expected[0] += appointments[day];
+				expected[1] += minutes[day];
+			}
+			assertArrayEquals(expected, counters.sum(first, last));
+		}
+	}
+}
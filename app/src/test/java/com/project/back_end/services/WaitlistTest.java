@@ -0,0 +1,174 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.WaitlistRequest;
+import com.project.back_end.TestData;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.WaitlistEntry;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.WaitlistEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class WaitlistTest {
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private Waitlist waitlist;
+
+	@Autowired
+	private WaitlistEntryRepository waitlistEntryRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@AfterEach
+	void clean() {
+		waitlistEntryRepository.deleteAll();
+		appointmentRepository.deleteAll();
+		doctorRepository.deleteAll();
+		patientRepository.deleteAll();
+	}
+
+	@Test
+	void cancelledSlotGoesToTheLongestWaitingPatient() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Waitlist", "10:00", "11:00"));
+		Patient first = patientRepository.save(TestData.patient("Pat First"));
+		Patient second = patientRepository.save(TestData.patient("Pat Second"));
+		Patient third = patientRepository.save(TestData.patient("Pat Third"));
+		LocalDate day = LocalDate.now().plusDays(2);
+
+		Appointment booked = TestData.appointment(doctor, first, day.atTime(10, 0));
+		assertEquals(1, appointmentService.bookAppointment(booked));
+
+		assertEquals(HttpStatus.CONFLICT, appointmentService.joinWaitlist(request(doctor, day, 11), second.getId()).getStatusCode(),
+				"a free slot is booked, not waited for");
+		assertEquals(HttpStatus.CREATED, appointmentService.joinWaitlist(request(doctor, day, 10), second.getId()).getStatusCode());
+		assertEquals(HttpStatus.CREATED, appointmentService.joinWaitlist(request(doctor, day, 10), third.getId()).getStatusCode());
+
+		assertEquals(HttpStatus.OK, appointmentService.cancelAppointment(booked.getId(), first.getId()).getStatusCode());
+		Appointment successor = onlyAppointment();
+		assertEquals(second.getId(), successor.getPatient().getId());
+		assertEquals(day.atTime(10, 0), successor.getAppointmentTime());
+		WaitlistEntry assigned = waitlist.entriesOf(second.getId()).get(0);
+		assertEquals(WaitlistEntry.Status.ASSIGNED, assigned.getStatus());
+		assertEquals(successor.getId(), assigned.getAppointmentId());
+
+		assertEquals(HttpStatus.OK, appointmentService.cancelAppointment(successor.getId(), second.getId()).getStatusCode());
+		assertEquals(third.getId(), onlyAppointment().getPatient().getId());
+	}
+
+	@Test
+	void eachEntryIsClaimedOnceUnderContention() throws Exception {
+		LocalDate day = LocalDate.now().plusDays(1);
+		for (long patientId = 1; patientId <= 3; patientId++) {
+			long id = patientId;
+			assertTrue(inTransaction(() -> waitlist.join(1L, id, day, null, 60)).isPresent());
+		}
+		assertTrue(inTransaction(() -> waitlist.join(1L, 1L, day, LocalTime.of(10, 0), 60)).isEmpty(), "one entry per patient and day");
+
+		int threads = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		Set<Long> claimed = ConcurrentHashMap.newKeySet();
+		List<Future<Integer>> claims = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			claims.add(pool.submit(() -> {
+				start.await();
+				int won = 0;
+				Optional<WaitlistEntry> entry;
+				while ((entry = inTransaction(() -> waitlist.claim(1L, day, candidate -> true).map(claim -> {
+					waitlist.assigned(claim, 0L);
+					return claim;
+				}))).isPresent()) {
+					assertTrue(claimed.add(entry.get().getId()), "entry claimed twice");
+					won++;
+				}
+				return won;
+			}));
+		}
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> claim : claims) {
+			total += claim.get();
+		}
+		pool.shutdown();
+		assertEquals(3, total);
+		assertEquals(3, claimed.size());
+	}
+
+	@Test
+	void aPatientWaitsForABoundedNumberOfNearDays() {
+		Doctor doctor = doctorRepository.save(TestData.doctor("Doctor Bounds", "10:00"));
+		Patient patient = patientRepository.save(TestData.patient("Pat Bounds"));
+		LocalDate day = LocalDate.now().plusDays(1);
+		for (int i = 0; i < 5; i++) {
+			LocalDate date = day.plusDays(i);
+			assertTrue(inTransaction(() -> waitlist.join(doctor.getId(), patient.getId(), date, null, 60)).isPresent());
+		}
+		assertTrue(inTransaction(() -> waitlist.join(doctor.getId(), patient.getId(), day.plusDays(5), null, 60)).isEmpty(),
+				"at most clinic.waitlist.max-per-patient waiting entries");
+
+		Long first = waitlist.entriesOf(patient.getId()).get(0).getId();
+		assertEquals(1, waitlist.withdraw(first, patient.getId()));
+		assertTrue(inTransaction(() -> waitlist.join(doctor.getId(), patient.getId(), day.plusDays(5), null, 60)).isPresent());
+
+		WaitlistRequest farOff = request(doctor, waitlist.lastDate().plusDays(1), 10);
+		assertEquals(HttpStatus.BAD_REQUEST, appointmentService.joinWaitlist(farOff, patient.getId()).getStatusCode());
+	}
+
+	private <T> T inTransaction(Supplier<T> work) {
+		return transactionTemplate.execute(status -> work.get());
+	}
+
+	private Appointment onlyAppointment() {
+		List<Appointment> appointments = appointmentRepository.findAll();
+		assertEquals(1, appointments.size());
+		return appointments.get(0);
+	}
+
+	private static WaitlistRequest request(Doctor doctor, LocalDate day, int hour) {
+		WaitlistRequest request = new WaitlistRequest();
+		request.setDoctorId(doctor.getId());
+		request.setDate(day);
+		request.setTime(LocalTime.of(hour, 0));
+		return request;
+	}
+}